@@ -1,3 +1,23 @@
+import com.uni.crimes.database.CrimeSideTables
+import com.uni.crimes.model.CrimeRecord
+import com.uni.crimes.utils.CrimeCsvParser
+import com.uni.crimes.utils.CrimeCsvSchema
+import groovy.json.JsonSlurper
+import java.sql.Statement
+import java.util.Properties
+
+buildscript {
+    repositories {
+        mavenCentral()
+    }
+    dependencies {
+        // JDBC driver used only by generateCrimeDatabase on the build machine
+        classpath("org.xerial:sqlite-jdbc:3.45.3.0")
+        // CSV parser and side-table SQL, from the crime-core included build
+        classpath("com.uni.crimes:crime-core:1.0")
+    }
+}
+
 plugins {
     alias(libs.plugins.android.application)
 }
@@ -14,6 +34,13 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Room exports each schema version here so migrations can be reviewed
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
     }
 
     buildTypes {
@@ -29,9 +56,20 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    // 1M-point benchmarks in the unit tests only run with -Pbenchmarks
+    testOptions {
+        unitTests.all {
+            it.systemProperty("crimes.benchmarks", project.hasProperty("benchmarks"))
+        }
+    }
+    // MigrationTestHelper reads the exported schemas from the test APK's assets
+    sourceSets {
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
 }
 
 dependencies {
+    implementation("com.uni.crimes:crime-core:1.0")
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -47,9 +85,14 @@ dependencies {
     // Local SQLite Database (Room)
     implementation("androidx.room:room-runtime:2.6.1")
     annotationProcessor("androidx.room:room-compiler:2.6.1")
+    implementation("androidx.room:room-paging:2.6.1")
+    
+    // Paging for large lists
+    implementation("androidx.paging:paging-runtime:3.2.1")
     
     // ViewModel and LiveData
     implementation("androidx.lifecycle:lifecycle-viewmodel:2.7.0")
+    implementation("androidx.lifecycle:lifecycle-viewmodel-ktx:2.7.0")
     implementation("androidx.lifecycle:lifecycle-livedata:2.7.0")
     implementation("androidx.lifecycle:lifecycle-common-java8:2.7.0")
     
@@ -66,4 +109,126 @@ dependencies {
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
-}
\ No newline at end of file
+    androidTestImplementation("androidx.room:room-testing:2.6.1")
+}
+
+/**
+ * Builds the prepackaged crime database from assets/crimeyorkshire.csv.
+ * Tables, indexes and FTS triggers come from the newest exported Room schema, so the
+ * file passes Room's schema validation; rows are parsed by crime-core's CrimeCsvParser,
+ * the same code the app imports with, so they carry the same keys and content hashes.
+ * The side tables Room does not describe (rtree, crime_types triggers, count tables) are
+ * built here from crime-core's CrimeSideTables; CrimeDatabase.PREPACKAGED_CALLBACK only
+ * verifies them on the device.
+ */
+abstract class GenerateCrimeDatabaseTask : DefaultTask() {
+    @get:InputFile
+    abstract val csvFile: RegularFileProperty
+
+    @get:InputDirectory
+    abstract val schemaDir: DirectoryProperty
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @TaskAction
+    fun generate() {
+        val schemaFile = schemaDir.get().asFile.listFiles { f -> f.extension == "json" }
+            ?.maxByOrNull { it.nameWithoutExtension.toIntOrNull() ?: -1 }
+            ?: throw GradleException("No exported Room schema in ${schemaDir.get().asFile}")
+        @Suppress("UNCHECKED_CAST")
+        val database = (JsonSlurper().parse(schemaFile) as Map<String, Any?>)["database"] as Map<String, Any?>
+        @Suppress("UNCHECKED_CAST")
+        val entities = database["entities"] as List<Map<String, Any?>>
+
+        val dbFile = outputDir.get().file("databases/crime_database.db").asFile
+        dbFile.parentFile.mkdirs()
+        dbFile.delete()
+
+        org.sqlite.JDBC().connect("jdbc:sqlite:${dbFile.absolutePath}", Properties())!!.use { connection ->
+            connection.createStatement().use { statement ->
+                fun withTable(sql: Any?, table: Any?) =
+                    (sql as String).replace("\${TABLE_NAME}", table as String)
+
+                entities.forEach { statement.execute(withTable(it["createSql"], it["tableName"])) }
+                entities.forEach { entity ->
+                    @Suppress("UNCHECKED_CAST")
+                    (entity["indices"] as List<Map<String, Any?>>?)?.forEach {
+                        statement.execute(withTable(it["createSql"], entity["tableName"]))
+                    }
+                }
+                // No room_master_table: Room validates the tables of a prepackaged file
+                // without one against the compiled schema and then stamps its own identity
+                // hash, so the file never depends on the hash recorded in the JSON
+
+                connection.autoCommit = false
+                var inserted = 0
+                var skipped = 0
+                connection.prepareStatement(
+                    "INSERT OR IGNORE INTO crimes (crimeId, crimeType, reportedBy, lsoaName, " +
+                        "latitude, longitude, outcomeCategory, month, contentHash) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                ).use { insert ->
+                    csvFile.get().asFile.bufferedReader().use { reader ->
+                        val columns = CrimeCsvSchema.detect(reader)
+                        skipped = CrimeCsvParser.parse(reader, columns, ::CrimeRecord) { crime ->
+                            insert.setString(1, crime.crimeId)
+                            insert.setString(2, crime.crimeType)
+                            insert.setString(3, crime.reportedBy)
+                            insert.setString(4, crime.lsoaName)
+                            insert.setDouble(5, crime.latitude)
+                            insert.setDouble(6, crime.longitude)
+                            insert.setString(7, crime.outcomeCategory)
+                            insert.setString(8, crime.month)
+                            insert.setLong(9, crime.contentHash)
+                            inserted += insert.executeUpdate()
+                        }
+                    }
+                }
+                connection.commit()
+
+                // Fill the FTS index in one pass, then install its content sync triggers
+                entities.filter { it.containsKey("contentSyncTriggers") }.forEach { fts ->
+                    statement.execute("INSERT INTO `${fts["tableName"]}`(`${fts["tableName"]}`) VALUES('rebuild')")
+                    @Suppress("UNCHECKED_CAST")
+                    (fts["contentSyncTriggers"] as List<String>).forEach { statement.execute(it) }
+                }
+
+                // Side tables: created after the bulk load and filled with one set-based pass
+                // each; their triggers keep them in sync with later writes on the device
+                statement.executeAll(CrimeSideTables.spatialIndex())
+                statement.execute(CrimeSideTables.spatialIndexBackfill())
+                statement.executeAll(CrimeSideTables.dictionaryTriggers())
+                statement.execute(CrimeSideTables.dictionaryBackfill())
+                statement.executeAll(CrimeSideTables.aggregateTriggers())
+                statement.executeAll(CrimeSideTables.aggregateRebuild())
+                connection.commit()
+                connection.autoCommit = true
+
+                statement.execute("PRAGMA user_version = ${database["version"]}")
+                statement.execute("ANALYZE")
+                statement.execute("VACUUM")
+                logger.lifecycle("Prepackaged ${dbFile.name}: $inserted crimes, $skipped invalid rows, " +
+                    "schema v${database["version"]}")
+            }
+        }
+    }
+
+    private fun Statement.executeAll(statements: List<String>) = statements.forEach { execute(it) }
+}
+
+androidComponents {
+    onVariants { variant ->
+        val variantName = variant.name.replaceFirstChar { it.uppercase() }
+        val generateCrimeDatabase = tasks.register<GenerateCrimeDatabaseTask>("generate${variantName}CrimeDatabase") {
+            csvFile.set(layout.projectDirectory.file("src/main/assets/crimeyorkshire.csv"))
+            schemaDir.set(layout.projectDirectory.dir("schemas/com.uni.crimes.database.CrimeDatabase"))
+            outputDir.set(layout.buildDirectory.dir("generated/crimeDatabase/${variant.name}"))
+            // Room exports the schema JSON while compiling
+            dependsOn(tasks.named("compile${variantName}JavaWithJavac"))
+        }
+        variant.sources.assets?.addGeneratedSourceDirectory(
+            generateCrimeDatabase, GenerateCrimeDatabaseTask::outputDir
+        )
+    }
+}
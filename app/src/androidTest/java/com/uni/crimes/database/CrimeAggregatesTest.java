@@ -0,0 +1,139 @@
+package com.uni.crimes.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.model.Crime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for CrimeAggregates
+ * Every write path must leave the trigger-maintained counts equal to a full recount
+ */
+@RunWith(AndroidJUnit4.class)
+public class CrimeAggregatesTest {
+
+    private static final String[] TYPES = {"Burglary", "Drugs", "Robbery", "Shoplifting"};
+    private static final String[] MONTHS = {"2024-01", "2024-02", "2024-03"};
+    private static final String[] OUTCOMES = {"Under investigation", "No further action", null};
+
+    private CrimeDatabase database;
+    private CrimeDao dao;
+    private final List<Crime> crimes = new ArrayList<>();
+    private final Random random = new Random(7);
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, CrimeDatabase.class)
+                .addCallback(CrimeDatabase.SCHEMA_CALLBACK)
+                .build();
+        dao = database.crimeDao();
+
+        for (int i = 0; i < 5_000; i++) {
+            crimes.add(randomCrime("CRIME" + i));
+        }
+        database.runInTransaction(() -> dao.insertAllCrimes(crimes));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void countsMatchAfterInsert() {
+        assertConsistent();
+    }
+
+    @Test
+    public void countsMatchAfterUpdate() {
+        for (int i = 0; i < 500; i++) {
+            Crime crime = crimes.get(i);
+            crime.setCrimeType(TYPES[random.nextInt(TYPES.length)]);
+            crime.setLsoaName("LSOA " + random.nextInt(50));
+            crime.setOutcomeCategory(OUTCOMES[random.nextInt(OUTCOMES.length)]);
+            dao.updateCrime(crime);
+        }
+        assertConsistent();
+    }
+
+    @Test
+    public void countsMatchAfterDeleteAndReplace() {
+        for (int i = 0; i < 500; i++) {
+            dao.deleteCrime(crimes.get(i));
+        }
+        // insertCrime uses REPLACE, which goes through the delete triggers
+        for (int i = 500; i < 1_000; i++) {
+            Crime replacement = randomCrime(crimes.get(i).getCrimeId());
+            dao.insertCrime(replacement);
+        }
+        assertConsistent();
+
+        dao.deleteAllCrimes();
+        assertConsistent();
+        assertEquals(0, countRows("crime_counts_type_month"));
+    }
+
+    @Test
+    public void checkerReportsDrift() {
+        database.getOpenHelper().getWritableDatabase()
+                .execSQL("UPDATE crime_counts_outcome SET crimeCount = crimeCount + 1");
+        assertFalse(CrimeAggregates.findMismatches(database.getOpenHelper().getWritableDatabase()).isEmpty());
+
+        CrimeAggregates.rebuild(database.getOpenHelper().getWritableDatabase());
+        assertConsistent();
+    }
+
+    @Test
+    public void prepackagedCheckAcceptsCompleteDatabase() {
+        assertEquals(Collections.emptyList(),
+                CrimeDatabase.findPrepackagedProblems(database.getOpenHelper().getWritableDatabase()));
+    }
+
+    @Test
+    public void prepackagedCheckReportsMissingPieces() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        db.execSQL("DROP TRIGGER crime_counts_outcome_AFTER_INSERT");
+        db.execSQL("DELETE FROM crime_counts_type_month");
+
+        List<String> problems = CrimeDatabase.findPrepackagedProblems(db);
+        assertEquals(problems.toString(), 2, problems.size());
+    }
+
+    private Crime randomCrime(String crimeId) {
+        return new Crime(crimeId, TYPES[random.nextInt(TYPES.length)],
+                "West Yorkshire Police", "LSOA " + random.nextInt(50),
+                53.0 + random.nextDouble(), -2.0 + random.nextDouble(),
+                OUTCOMES[random.nextInt(OUTCOMES.length)], MONTHS[random.nextInt(MONTHS.length)]);
+    }
+
+    private void assertConsistent() {
+        List<String> mismatches = CrimeAggregates.findMismatches(database.getOpenHelper().getWritableDatabase());
+        assertTrue(mismatches.toString(), mismatches.isEmpty());
+    }
+
+    private long countRows(String table) {
+        try (Cursor cursor = database.getOpenHelper().getReadableDatabase()
+                .query("SELECT COUNT(*) FROM " + table)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
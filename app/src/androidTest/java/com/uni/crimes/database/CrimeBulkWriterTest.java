@@ -0,0 +1,216 @@
+package com.uni.crimes.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.ImportJob;
+import com.uni.crimes.utils.CrimeCsvParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for CrimeBulkWriter
+ * Also times the bulk path against the old per-row crimeExists + batches of 100 path
+ */
+@RunWith(AndroidJUnit4.class)
+public class CrimeBulkWriterTest {
+
+    private static final String TAG = "CrimeBulkWriterTest";
+    private static final String DB_NAME = "bulk_writer_test.db";
+    private static final int ROWS = 50_000;
+
+    private Context context;
+    private CrimeDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        database = openDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void countsInsertedAndSkippedRows() {
+        database.crimeDao().insertCrime(crime(3));
+
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 4, 8)) {
+            for (int i = 0; i < 10; i++) {
+                writer.add(crime(i));
+            }
+            writer.add(crime(5)); // duplicate within the same import
+            CrimeBulkWriter.Result result = writer.finish();
+
+            assertEquals(9, result.getInsertedCount());
+            assertEquals(2, result.getSkippedCount());
+        }
+        assertEquals(10, database.crimeDao().getCrimeCount());
+    }
+
+    @Test
+    public void reimportSkipsStoredRowsByBatch() {
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 4, 8)) {
+            for (int i = 0; i < 10; i++) {
+                writer.add(crime(i));
+            }
+            writer.finish();
+        }
+
+        // Every ID is a filter hit now; each batch is confirmed with one IN query
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 4, 8)) {
+            for (int i = 0; i < 12; i++) {
+                writer.add(crime(i));
+            }
+            CrimeBulkWriter.Result result = writer.finish();
+
+            assertEquals(2, result.getInsertedCount());
+            assertEquals(10, result.getSkippedCount());
+        }
+        assertEquals(12, database.crimeDao().getCrimeCount());
+    }
+
+    @Test
+    public void closeWithoutFinishRollsBackUncommittedRows() {
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 2, 4)) {
+            for (int i = 0; i < 6; i++) {
+                writer.add(crime(i));
+            }
+        }
+        // The first 4 rows were committed at the interval, the next batch of 2 was not
+        assertEquals(4, database.crimeDao().getCrimeCount());
+    }
+
+    @Test
+    public void checkpointCommitsAndRollsBackWithRows() {
+        ImportJob job = new ImportJob();
+        job.setSourceUri("content://test/crimes.csv");
+        job.setFingerprint("6:abc");
+        job.setId(database.crimeDao().insertImportJob(job));
+
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 2, 4)) {
+            writer.setCommitListener(w -> {
+                job.setRecordsCommitted(w.getRowsAdded());
+                database.crimeDao().updateImportJob(job);
+            });
+            for (int i = 0; i < 6; i++) {
+                writer.add(crime(i));
+            }
+        }
+
+        // Only the checkpoint of the committed transaction survives the rollback
+        ImportJob saved = database.crimeDao().getInterruptedImportJob();
+        assertNotNull(saved);
+        assertEquals(4, saved.getRecordsCommitted());
+        assertEquals(4, database.crimeDao().getCrimeCount());
+    }
+
+    @Test
+    public void deltaImportRewritesOnlyChangedRows() {
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 4, 8)) {
+            for (int i = 0; i < 10; i++) {
+                writer.add(hashed(crime(i)));
+            }
+            writer.finish();
+        }
+
+        CrimeBulkWriter.Result result;
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database, 4, 8)) {
+            writer.enableDelta(true);
+            for (int i = 0; i < 12; i++) {
+                if (i == 4 || i == 5) {
+                    continue; // dropped from the new file
+                }
+                Crime crime = crime(i);
+                if (i < 3) {
+                    crime.setOutcomeCategory("Offender charged");
+                }
+                writer.add(hashed(crime));
+            }
+            result = writer.finish();
+        }
+
+        assertEquals(2, result.getInsertedCount());
+        assertEquals(3, result.getChangedCount());
+        assertEquals(5, result.getUnchangedCount());
+        assertEquals(2, result.getRemovedCount());
+        assertEquals(10, database.crimeDao().getCrimeCount());
+        assertEquals("Offender charged", database.crimeDao().getCrimeById("CRIME0").getOutcomeCategory());
+        assertNull(database.crimeDao().getCrimeById("CRIME4"));
+    }
+
+    @Test
+    public void bulkPathBeatsPerRowLookups() {
+        List<Crime> crimes = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            crimes.add(crime(i));
+        }
+
+        long legacyStart = System.nanoTime();
+        List<Crime> pending = new ArrayList<>();
+        CrimeDao dao = database.crimeDao();
+        for (Crime crime : crimes) {
+            if (!dao.crimeExists(crime.getCrimeId())) {
+                pending.add(crime);
+                if (pending.size() >= 100) {
+                    dao.insertAllCrimes(pending);
+                    pending.clear();
+                }
+            }
+        }
+        dao.insertAllCrimes(pending);
+        long legacyMs = (System.nanoTime() - legacyStart) / 1_000_000;
+
+        database.close();
+        context.deleteDatabase(DB_NAME);
+        database = openDatabase();
+
+        long bulkStart = System.nanoTime();
+        CrimeBulkWriter.Result result;
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database)) {
+            for (Crime crime : crimes) {
+                writer.add(crime);
+            }
+            result = writer.finish();
+        }
+        long bulkMs = (System.nanoTime() - bulkStart) / 1_000_000;
+
+        Log.i(TAG, ROWS + " rows: per-row lookups " + legacyMs + " ms, bulk writer " + bulkMs + " ms");
+        assertEquals(ROWS, result.getInsertedCount());
+        assertEquals(ROWS, database.crimeDao().getCrimeCount());
+        assertTrue("Bulk path should be faster", bulkMs < legacyMs);
+    }
+
+    private CrimeDatabase openDatabase() {
+        return Room.databaseBuilder(context, CrimeDatabase.class, DB_NAME)
+                .addCallback(CrimeDatabase.SCHEMA_CALLBACK)
+                .build();
+    }
+
+    private static Crime hashed(Crime crime) {
+        crime.setContentHash(CrimeCsvParser.contentHash(crime));
+        return crime;
+    }
+
+    private static Crime crime(int i) {
+        return new Crime("CRIME" + i, i % 3 == 0 ? "Burglary" : "Drugs", "West Yorkshire Police",
+                "Leeds " + (i % 200), 53.7 + i * 1e-6, -1.5 - i * 1e-6, "Under investigation", "2024-01");
+    }
+}
@@ -0,0 +1,146 @@
+package com.uni.crimes.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.model.Crime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for CrimeMigrations
+ * Migrates a version 2 database through every step, validates it against the exported
+ * schemas and checks the query plans of the SQL the DAO actually runs
+ */
+@RunWith(AndroidJUnit4.class)
+public class CrimeMigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), CrimeDatabase.class);
+
+    private final List<String[]> executed = Collections.synchronizedList(new ArrayList<>());
+    private Context context;
+    private CrimeDatabase database;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 2);
+        db.execSQL("INSERT INTO crimes VALUES ('CRIME001', 'Burglary', " +
+                "'West Yorkshire Police', 'Leeds 001A', 53.8008, -1.5491, " +
+                "'Under investigation', '2024-01')");
+        db.close();
+
+        // Fails if any migrated table, index or FTS table differs from the exported schema
+        helper.runMigrationsAndValidate(TEST_DB, 10, true, CrimeMigrations.ALL).close();
+
+        database = Room.databaseBuilder(context, CrimeDatabase.class, TEST_DB)
+                .addMigrations(CrimeMigrations.ALL)
+                .setQueryCallback((sql, args) -> executed.add(toRow(sql, args)), Runnable::run)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrationKeepsExistingRows() {
+        assertEquals(1, database.crimeDao().getCrimeCount());
+        assertNotNull(database.crimeDao().getCrimeById("CRIME001"));
+    }
+
+    @Test
+    public void migrationBuildsFullTextIndexForExistingRows() {
+        List<Crime> results = database.crimeDao().searchCrimesRankedSync("burg");
+        assertEquals(1, results.size());
+        assertEquals("CRIME001", results.get(0).getCrimeId());
+    }
+
+    @Test
+    public void migrationBackfillsSpatialIndex() {
+        List<Crime> results = database.crimeDao()
+                .getCrimesInBounds(53.81, 53.79, -1.54, -1.56, "Burglary", "2024-01");
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    public void deltaImportMonthLookupUsesMonthIndex() {
+        try (Cursor cursor = database.crimeDao()
+                .getCrimeIdsForMonthsCursor(Collections.singletonList("2024-01"))) {
+            assertEquals(1, cursor.getCount());
+        }
+        assertUsesIndex(lastQuery("WHERE month IN"), "index_crimes_month");
+    }
+
+    @Test
+    public void viewportQueryUsesSpatialIndex() {
+        database.crimeDao().getCrimesInBounds(53.81, 53.79, -1.54, -1.56, "Burglary", "2024-01");
+        assertUsesIndex(lastQuery("crimes_rtree"), "crimes_rtree");
+    }
+
+    /**
+     * Last statement Room executed whose SQL contains the marker
+     */
+    private String[] lastQuery(String marker) {
+        synchronized (executed) {
+            for (int i = executed.size() - 1; i >= 0; i--) {
+                if (executed.get(i)[0].contains(marker)) {
+                    return executed.get(i);
+                }
+            }
+        }
+        fail("No executed query contains " + marker);
+        return null;
+    }
+
+    private void assertUsesIndex(String[] query, String indexName) {
+        String sql = query[0];
+        Object[] args = new Object[query.length - 1];
+        System.arraycopy(query, 1, args, 0, args.length);
+
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = database.getOpenHelper().getReadableDatabase()
+                .query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        String text = plan.toString();
+        assertTrue(sql + " -> " + text, text.contains(indexName));
+        assertFalse(sql + " -> " + text, text.matches("(?s).*SCAN (TABLE )?crimes(\\s.*)?"));
+    }
+
+    private static String[] toRow(String sql, List<Object> args) {
+        String[] row = new String[args.size() + 1];
+        row[0] = sql;
+        for (int i = 0; i < args.size(); i++) {
+            row[i + 1] = args.get(i) == null ? null : String.valueOf(args.get(i));
+        }
+        return row;
+    }
+}
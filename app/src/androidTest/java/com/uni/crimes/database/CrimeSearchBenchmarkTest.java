@@ -0,0 +1,124 @@
+package com.uni.crimes.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.model.Crime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Search benchmark: the five-column LIKE scan against the crimes_fts ranked search
+ * over 10k, 100k and 1M rows. Median latency per term is logged for both
+ */
+@RunWith(Parameterized.class)
+public class CrimeSearchBenchmarkTest {
+
+    private static final String TAG = "CrimeSearchBenchmark";
+    private static final String TEST_DB = "search-benchmark";
+    private static final int BATCH = 10_000;
+    private static final int RUNS = 9;
+    private static final String[] TYPES = {"Burglary", "Drugs", "Shoplifting", "Violence & sexual offences"};
+    private static final String[] TERMS = {"burglary", "leeds 12", "shoplifting leeds"};
+
+    @Parameterized.Parameters(name = "{0} rows")
+    public static List<Integer> rowCounts() {
+        return Arrays.asList(10_000, 100_000, 1_000_000);
+    }
+
+    @Parameterized.Parameter
+    public int rows;
+
+    private Context context;
+    private CrimeDatabase database;
+    private CrimeDao dao;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        // On disk rather than in memory: a million rows plus their FTS index would not fit
+        database = Room.databaseBuilder(context, CrimeDatabase.class, TEST_DB)
+                .addCallback(CrimeDatabase.SCHEMA_CALLBACK)
+                .build();
+        dao = database.crimeDao();
+
+        database.runInTransaction(() -> {
+            List<Crime> batch = new ArrayList<>(BATCH);
+            for (int i = 0; i < rows; i++) {
+                batch.add(new Crime("CRIME" + i, TYPES[i % TYPES.length], "West Yorkshire Police",
+                        "Leeds " + (i % 400), 53.7 + (i % 1000) / 10000.0, -1.5 - (i % 1000) / 10000.0,
+                        "Under investigation", "2024-0" + (1 + i % 9)));
+                if (batch.size() == BATCH) {
+                    dao.insertAllCrimes(batch);
+                    batch.clear();
+                }
+            }
+            dao.insertAllCrimes(batch);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void ftsSearchIsFasterThanLikeScan() {
+        long likeTotal = 0;
+        long ftsTotal = 0;
+        for (String term : TERMS) {
+            // Warm the page cache so neither side pays for the first read
+            dao.searchCrimesByAnyFieldSync(term);
+            dao.searchCrimesRankedSync(term);
+
+            long[] like = new long[RUNS];
+            long[] fts = new long[RUNS];
+            int ftsHits = 0;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                dao.searchCrimesByAnyFieldSync(term);
+                like[run] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                ftsHits = dao.searchCrimesRankedSync(term).size();
+                fts[run] = System.nanoTime() - start;
+            }
+            long likeMedian = median(like);
+            long ftsMedian = median(fts);
+            likeTotal += likeMedian;
+            ftsTotal += ftsMedian;
+            Log.i(TAG, rows + " rows, \"" + term + "\": LIKE " + likeMedian / 1000 + " us, FTS " +
+                    ftsMedian / 1000 + " us (" + ftsHits + " hits)");
+            assertTrue("No FTS results for " + term, ftsHits > 0);
+        }
+        assertTrue("FTS search should beat the LIKE scan", ftsTotal < likeTotal);
+    }
+
+    @Test
+    public void fieldSearchWithoutTokensStaysOnItsField() {
+        // "&" has no FTS tokens, so this runs the LIKE fallback; only crimeType contains it
+        assertTrue(dao.searchFieldRankedSync("lsoaName", "&").isEmpty());
+        assertEquals(rows / TYPES.length, dao.searchFieldRankedSync("crimeType", "&").size());
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,126 @@
+package com.uni.crimes.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.model.Crime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for CrimeSpatialIndex
+ * Compares getCrimesInBounds against a brute-force scan over a random dataset
+ */
+@RunWith(AndroidJUnit4.class)
+public class CrimeSpatialIndexTest {
+
+    private static final int POINT_COUNT = 200_000;
+    private static final String[] TYPES = {"Burglary", "Drugs", "Robbery", "Shoplifting"};
+    private static final String[] MONTHS = {"2024-01", "2024-02", "2024-03"};
+
+    private CrimeDatabase database;
+    private final List<Crime> crimes = new ArrayList<>();
+    private final Random random = new Random(42);
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, CrimeDatabase.class)
+                .addCallback(CrimeDatabase.SCHEMA_CALLBACK)
+                .build();
+
+        for (int i = 0; i < POINT_COUNT; i++) {
+            crimes.add(new Crime("CRIME" + i, TYPES[random.nextInt(TYPES.length)],
+                    "West Yorkshire Police", "LSOA " + (i % 500),
+                    53.0 + random.nextDouble() * 1.7, -2.5 + random.nextDouble() * 2.0,
+                    "Under investigation", MONTHS[random.nextInt(MONTHS.length)]));
+        }
+        database.runInTransaction(() -> database.crimeDao().insertAllCrimes(crimes));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void boundsQueryMatchesBruteForce() {
+        assertTrue(CrimeSpatialIndex.isAvailable());
+        for (int i = 0; i < 20; i++) {
+            double south = 53.0 + random.nextDouble() * 1.5;
+            double west = -2.5 + random.nextDouble() * 1.8;
+            double north = south + random.nextDouble() * 0.2;
+            double east = west + random.nextDouble() * 0.2;
+            String type = i % 2 == 0 ? null : TYPES[i % TYPES.length];
+            String month = i % 3 == 0 ? MONTHS[i % MONTHS.length] : null;
+
+            assertEquals(bruteForce(north, south, east, west, type, month),
+                    ids(database.crimeDao().getCrimesInBounds(north, south, east, west, type, month)));
+        }
+    }
+
+    @Test
+    public void pointBufferReadsTheSameBoxInRowidOrder() {
+        CrimePointBuffer points = CrimePointBuffer.loadInBounds(database, 53.9, 53.8, -1.4, -1.6, null, null);
+        Set<String> expected = bruteForce(53.9, 53.8, -1.4, -1.6, null, null);
+
+        assertEquals(expected.size(), points.size());
+        for (int i = 1; i < points.size(); i++) {
+            assertTrue(points.getRowId(i) > points.getRowId(i - 1));
+        }
+    }
+
+    @Test
+    public void indexFollowsUpdatesAndDeletes() {
+        Crime moved = crimes.get(0);
+        moved.setLatitude(54.5);
+        moved.setLongitude(-0.6);
+        database.crimeDao().updateCrime(moved);
+        database.crimeDao().deleteCrime(crimes.get(1));
+
+        Set<String> found = ids(database.crimeDao().getCrimesInBounds(54.51, 54.49, -0.59, -0.61, null, null));
+        assertTrue(found.contains(moved.getCrimeId()));
+
+        Crime deleted = crimes.get(1);
+        Set<String> around = ids(database.crimeDao().getCrimesInBounds(
+                deleted.getLatitude() + 0.001, deleted.getLatitude() - 0.001,
+                deleted.getLongitude() + 0.001, deleted.getLongitude() - 0.001, null, null));
+        assertFalse(around.contains(deleted.getCrimeId()));
+    }
+
+    private Set<String> bruteForce(double north, double south, double east, double west,
+                                   String type, String month) {
+        Set<String> result = new HashSet<>();
+        for (Crime crime : crimes) {
+            if (crime.getLatitude() >= south && crime.getLatitude() <= north
+                    && crime.getLongitude() >= west && crime.getLongitude() <= east
+                    && (type == null || type.equals(crime.getCrimeType()))
+                    && (month == null || month.equals(crime.getMonth()))) {
+                result.add(crime.getCrimeId());
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> ids(List<Crime> list) {
+        Set<String> result = new HashSet<>();
+        for (Crime crime : list) {
+            result.add(crime.getCrimeId());
+        }
+        return result;
+    }
+}
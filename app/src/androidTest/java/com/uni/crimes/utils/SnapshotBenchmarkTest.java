@@ -0,0 +1,115 @@
+package com.uni.crimes.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.database.CrimeBulkWriter;
+import com.uni.crimes.database.CrimeDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Restore benchmark: loading 1M crimes from a CrimeSnapshot against a CSV import of
+ * the same rows, both into an empty table through CrimeBulkWriter, so the difference
+ * is reading the file. Timings and file sizes are logged
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnapshotBenchmarkTest {
+
+    private static final String TAG = "SnapshotBenchmark";
+    private static final String DB_NAME = "snapshot_benchmark.db";
+    private static final int ROWS = 1_000_000;
+    private static final String[] TYPES = {"Burglary", "Drugs", "Shoplifting", "Violence and sexual offences"};
+    private static final String[] OUTCOMES = {"Under investigation", "Unable to prosecute suspect",
+            "Investigation complete; no suspect identified"};
+
+    private Context context;
+    private CrimeDatabase database;
+    private File csvFile;
+    private File snapshotFile;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        database = Room.databaseBuilder(context, CrimeDatabase.class, DB_NAME)
+                .addCallback(CrimeDatabase.SCHEMA_CALLBACK)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .build();
+
+        csvFile = new File(context.getCacheDir(), "snapshot_benchmark.csv");
+        snapshotFile = new File(context.getCacheDir(), "snapshot_benchmark.crsn");
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(csvFile))) {
+            out.write("Crime ID,Month,Reported by,Crime type,LSOA name,Latitude,Longitude,Last outcome category\n");
+            for (int i = 0; i < ROWS; i++) {
+                out.write(String.format(Locale.US, "%016x,2024-%02d,West Yorkshire Police,%s,Leeds %03dA,%.6f,%.6f,\"%s\"\n",
+                        i * 0x9E3779B97F4A7C15L, 1 + i % 12, TYPES[i % TYPES.length], i % 500,
+                        53.5 + (i % 5000) / 10000.0, -2.2 + (i % 9973) / 10000.0, OUTCOMES[i % OUTCOMES.length]));
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DB_NAME);
+        csvFile.delete();
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void snapshotRestoreBeatsCsvImport() throws IOException {
+        CSVImporter.ImportListener listener = new CSVImporter.ImportListener() {
+            @Override public void onProgress(int progress) {}
+            @Override public void onSuccess(int importedCount) {}
+            @Override public void onError(String error) {
+                fail(error);
+            }
+        };
+
+        long start = System.nanoTime();
+        CrimeBulkWriter.Result imported;
+        try (InputStream in = new FileInputStream(csvFile)) {
+            imported = new CSVImporter(context, database).importFromStream(in, listener);
+        }
+        long csvMs = (System.nanoTime() - start) / 1_000_000;
+        assertNotNull(imported);
+        assertEquals(ROWS, imported.getInsertedCount());
+
+        SnapshotManager snapshots = new SnapshotManager(context, database);
+        Uri uri = Uri.fromFile(snapshotFile);
+        start = System.nanoTime();
+        assertEquals(ROWS, snapshots.exportTo(uri, listener));
+        long exportMs = (System.nanoTime() - start) / 1_000_000;
+
+        database.crimeDao().deleteAllCrimes();
+        start = System.nanoTime();
+        assertEquals(ROWS, snapshots.restoreFrom(uri, listener));
+        long restoreMs = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(ROWS, database.crimeDao().getCrimeCount());
+
+        Log.i(TAG, String.format(Locale.US,
+                "%d rows: CSV import %d ms (%d KB), snapshot restore %d ms (%d KB), export %d ms",
+                ROWS, csvMs, csvFile.length() / 1024, restoreMs, snapshotFile.length() / 1024, exportMs));
+        assertTrue("Snapshot restore should beat CSV import", restoreMs < csvMs);
+    }
+}
@@ -0,0 +1,117 @@
+package com.uni.crimes.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.uni.crimes.database.CrimeDatabase;
+import com.uni.crimes.model.Crime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Heap benchmark for StringPool: 200k crimes loaded through Room share one String per
+ * distinct text value, against the same values held as separate copies as a plain
+ * cursor read would. The database file size is logged alongside for reference; the
+ * crimes table keeps its text columns, so interning does not change it
+ */
+@RunWith(AndroidJUnit4.class)
+public class StringPoolBenchmarkTest {
+
+    private static final String TAG = "StringPoolBenchmark";
+    private static final String DB_NAME = "string_pool_benchmark.db";
+    private static final int ROWS = 200_000;
+    private static final String[] TYPES = {"Anti-social behaviour", "Burglary", "Criminal damage and arson",
+            "Drugs", "Other theft", "Public order", "Shoplifting", "Vehicle crime",
+            "Violence and sexual offences"};
+    private static final String[] OUTCOMES = {"Under investigation", "Unable to prosecute suspect",
+            "Investigation complete; no suspect identified", "Status update unavailable"};
+
+    private Context context;
+    private CrimeDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        database = Room.databaseBuilder(context, CrimeDatabase.class, DB_NAME)
+                .addCallback(CrimeDatabase.SCHEMA_CALLBACK)
+                .build();
+
+        List<Crime> crimes = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            crimes.add(new Crime("CRIME" + i, TYPES[i % TYPES.length], "West Yorkshire Police",
+                    "Leeds " + (i % 1500) + "A", 53.7 + (i % 1000) / 10000.0, -1.5 - (i % 997) / 10000.0,
+                    OUTCOMES[i % OUTCOMES.length], String.format(Locale.US, "2024-%02d", 1 + i % 12)));
+        }
+        database.runInTransaction(() -> database.crimeDao().insertAllCrimes(crimes));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void loadedCrimesShareTextInstances() {
+        long before = usedHeap();
+        List<Crime> crimes = database.crimeDao().getAllCrimesSync();
+        long pooledBytes = usedHeap() - before;
+        assertEquals(ROWS, crimes.size());
+
+        Map<String, Boolean> instances = new IdentityHashMap<>();
+        for (Crime crime : crimes) {
+            instances.put(crime.getCrimeType(), true);
+            instances.put(crime.getReportedBy(), true);
+            instances.put(crime.getLsoaName(), true);
+            instances.put(crime.getOutcomeCategory(), true);
+            instances.put(crime.getMonth(), true);
+        }
+
+        // The same text values as separate copies, one per row and column
+        before = usedHeap();
+        List<String[]> copies = new ArrayList<>(ROWS);
+        for (Crime crime : crimes) {
+            copies.add(new String[]{copy(crime.getCrimeType()), copy(crime.getReportedBy()),
+                    copy(crime.getLsoaName()), copy(crime.getOutcomeCategory()), copy(crime.getMonth())});
+        }
+        long copiedBytes = usedHeap() - before;
+
+        long fileBytes = context.getDatabasePath(DB_NAME).length();
+        Log.i(TAG, String.format(Locale.US,
+                "%d crimes: %d distinct text instances, pooled list %d KB, " +
+                "unshared copies of the text alone %d KB, database file %d KB",
+                ROWS, instances.size(), pooledBytes / 1024, copiedBytes / 1024, fileBytes / 1024));
+
+        // 9 types + 1 force + 1500 LSOAs + 4 outcomes + 12 months
+        assertTrue(instances.size() <= TYPES.length + 1 + 1500 + OUTCOMES.length + 12);
+        assertEquals(ROWS, copies.size());
+    }
+
+    private static String copy(String value) {
+        return value == null ? null : new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -18,9 +18,6 @@ import com.google.android.material.textfield.TextInputEditText;
 import com.uni.crimes.database.CrimeDatabase;
 import com.uni.crimes.model.Crime;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 public class AddUpdateCrimeFragment extends Fragment {
 
     private static final String TAG = "AddUpdateCrimeFragment";
@@ -34,7 +31,6 @@ public class AddUpdateCrimeFragment extends Fragment {
     private boolean isEditMode = false;
     private Crime currentCrime;
     private CrimeDatabase database;
-    private ExecutorService executor;
 
     public static AddUpdateCrimeFragment newInstance(String crimeId) {
         AddUpdateCrimeFragment fragment = new AddUpdateCrimeFragment();
@@ -57,7 +53,6 @@ public class AddUpdateCrimeFragment extends Fragment {
         }
         
         database = CrimeDatabase.getInstance(requireContext());
-        executor = Executors.newSingleThreadExecutor();
     }
 
     @Nullable
@@ -127,7 +122,7 @@ public class AddUpdateCrimeFragment extends Fragment {
     private void loadCrimeData() {
         if (crimeId == null) return;
         
-        executor.execute(() -> {
+        CrimeDatabase.getReadExecutor().execute(() -> {
             Crime crime = database.crimeDao().getCrimeById(crimeId);
             
             if (getActivity() != null) {
@@ -212,7 +207,7 @@ public class AddUpdateCrimeFragment extends Fragment {
             
             btnSave.setEnabled(false);
             
-            executor.execute(() -> {
+            CrimeDatabase.getWriteExecutor().execute(() -> {
                 try {
                     if (isEditMode) {
                         database.crimeDao().updateCrime(crime);
@@ -273,8 +268,5 @@ public class AddUpdateCrimeFragment extends Fragment {
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "onDestroy() called");
-        if (executor != null) {
-            executor.shutdown();
-        }
     }
 }
\ No newline at end of file
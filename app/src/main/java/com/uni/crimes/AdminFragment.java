@@ -20,18 +20,13 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.work.WorkInfo;
 
 import com.google.android.material.button.MaterialButton;
 import com.uni.crimes.auth.AuthManager;
 import com.uni.crimes.viewmodel.CrimeViewModel;
-import com.uni.crimes.model.Crime;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import com.uni.crimes.work.CrimeImportWorker;
+import com.uni.crimes.work.CrimeSnapshotWorker;
 
 /**
  * Admin Dashboard Fragment - Role-Based Access Control
@@ -49,11 +44,22 @@ public class AdminFragment extends Fragment {
 
     private static final String TAG = "AdminFragment";
     
+    // police.uk archives hold every force; only this app's force is imported from them
+    private static final String FORCE_FILTER = "West Yorkshire";
+    
+    private static final String SNAPSHOT_MIME_TYPE = "application/octet-stream";
+    
     private TextView tvAdminInfo, tvCrimeCount, tvSyncStatus;
     private MaterialButton btnImportDataset, btnAddCrime, btnManageCrimes, btnSyncData;
+    private MaterialButton btnExportSnapshot, btnRestoreSnapshot;
     
     private AuthManager authManager;
     private CrimeViewModel crimeViewModel;
+    private boolean importRequested = false;
+    private boolean snapshotRequested = false;
+    // Imports and snapshot tasks never run together (see CrimeSnapshotWorker)
+    private boolean importActive = false;
+    private boolean snapshotActive = false;
 
     private final ActivityResultLauncher<Intent> filePickerLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
@@ -66,6 +72,22 @@ public class AdminFragment extends Fragment {
                 }
             });
 
+    private final ActivityResultLauncher<String> exportSnapshotLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(SNAPSHOT_MIME_TYPE),
+            uri -> {
+                if (uri != null) {
+                    exportSnapshot(uri);
+                }
+            });
+
+    private final ActivityResultLauncher<String[]> restoreSnapshotLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(),
+            uri -> {
+                if (uri != null) {
+                    restoreSnapshot(uri);
+                }
+            });
+
     private final ActivityResultLauncher<String> requestPermissionLauncher = registerForActivityResult(
             new ActivityResultContracts.RequestPermission(),
             isGranted -> {
@@ -109,6 +131,8 @@ public class AdminFragment extends Fragment {
         setupAdminInfo();
         setupListeners();
         observeViewModel();
+        observeImportWork();
+        observeSnapshotWork();
     }
 
     /**
@@ -130,6 +154,8 @@ public class AdminFragment extends Fragment {
         btnAddCrime = view.findViewById(R.id.btn_add_crime);
         btnManageCrimes = view.findViewById(R.id.btn_manage_crimes);
         btnSyncData = view.findViewById(R.id.btn_sync_data);
+        btnExportSnapshot = view.findViewById(R.id.btn_export_snapshot);
+        btnRestoreSnapshot = view.findViewById(R.id.btn_restore_snapshot);
     }
 
     /**
@@ -149,6 +175,8 @@ public class AdminFragment extends Fragment {
         btnAddCrime.setOnClickListener(v -> navigateToAddCrime());
         btnManageCrimes.setOnClickListener(v -> navigateToManageCrimes());
         btnSyncData.setOnClickListener(v -> performDataSync());
+        btnExportSnapshot.setOnClickListener(v -> exportSnapshotLauncher.launch("crimes.snapshot"));
+        btnRestoreSnapshot.setOnClickListener(v -> restoreSnapshotLauncher.launch(new String[]{SNAPSHOT_MIME_TYPE}));
     }
 
     /**
@@ -193,46 +221,133 @@ public class AdminFragment extends Fragment {
         Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
         intent.addCategory(Intent.CATEGORY_OPENABLE);
         intent.setType("*/*");
-        String[] mimeTypes = {"text/csv", "text/comma-separated-values", "application/csv", "text/plain"};
+        String[] mimeTypes = {"text/csv", "text/comma-separated-values", "application/csv", "text/plain",
+                "application/zip", "application/gzip", "application/x-gzip"};
         intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
         intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
         filePickerLauncher.launch(intent);
     }
 
     /**
-     * Reads and processes the selected CSV file.
+     * Hands the selected CSV file to CrimeImportWorker.
      */
     private void readCsvFile(Uri uri) {
-        try (InputStream inputStream = requireActivity().getContentResolver().openInputStream(uri);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            
-            List<Crime> crimes = new ArrayList<>();
-            String line;
-            reader.readLine(); // Skip header
-
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split(",");
-                // NOTE: This assumes a specific CSV structure. 
-                // You may need to adjust this based on your CSV file's format.
-                if (tokens.length >= 10) {
-                    Crime crime = new Crime();
-                    crime.setCrimeId(tokens[0]);
-                    crime.setMonth(tokens[1]);
-                    crime.setReportedBy(tokens[2]);
-                    crime.setLsoaName(tokens[3]);
-                    crime.setLongitude(Double.parseDouble(tokens[4]));
-                    crime.setLatitude(Double.parseDouble(tokens[5]));
-                    crime.setCrimeType(tokens[9]);
-                    crimes.add(crime);
-                }
+        try {
+            requireContext().getContentResolver().takePersistableUriPermission(uri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Could not take persistable permission", e);
+        }
+        // Columns are mapped from the header, so police.uk exports import as they are
+        importRequested = true;
+        CrimeImportWorker.enqueueFileImport(requireContext(), uri, FORCE_FILTER, false);
+        Toast.makeText(requireContext(), "CSV import started", Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Shows progress of the background CSV import in the sync status line
+     */
+    private void observeImportWork() {
+        CrimeImportWorker.getWorkInfos(requireContext()).observe(getViewLifecycleOwner(), workInfos -> {
+            if (workInfos == null || workInfos.isEmpty()) {
+                return;
+            }
+            WorkInfo workInfo = workInfos.get(workInfos.size() - 1);
+            importActive = !workInfo.getState().isFinished();
+            updateSnapshotButtons();
+            if (importActive) {
+                int processed = workInfo.getProgress().getInt(CrimeImportWorker.KEY_PROCESSED, 0);
+                tvSyncStatus.setText("Importing CSV: " + processed + " records processed");
+            } else if (importRequested) {
+                importRequested = false;
+                boolean succeeded = workInfo.getState() == WorkInfo.State.SUCCEEDED;
+                tvSyncStatus.setText(succeeded
+                        ? "Imported " + workInfo.getOutputData().getInt(CrimeImportWorker.KEY_IMPORTED, 0) + " new records"
+                        : "CSV import failed");
+                Toast.makeText(requireContext(), succeeded ? "CSV data imported successfully!" : "Error reading CSV file",
+                        Toast.LENGTH_SHORT).show();
             }
-            crimeViewModel.insertCrimes(crimes);
-            Toast.makeText(requireContext(), "CSV data imported successfully!", Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * Writes the whole crimes table to a binary snapshot file (see CrimeSnapshot)
+     */
+    private void exportSnapshot(Uri uri) {
+        Log.d(TAG, "Admin exporting snapshot to " + uri);
+        startSnapshot(uri, true, Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+    }
 
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading CSV file", e);
-            Toast.makeText(requireContext(), "Error reading CSV file", Toast.LENGTH_SHORT).show();
+    /**
+     * Replaces the crimes table with a previously exported snapshot
+     * Loads without parsing any CSV, so a full dataset is back in seconds
+     */
+    private void restoreSnapshot(Uri uri) {
+        Log.d(TAG, "Admin restoring snapshot from " + uri);
+        startSnapshot(uri, false, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+    }
+
+    /**
+     * Hands the snapshot task to CrimeSnapshotWorker, unless a CSV import is running
+     * The worker checks again, since an import may be enqueued in the meantime
+     */
+    private void startSnapshot(Uri uri, boolean export, int permissionFlags) {
+        if (importActive) {
+            Toast.makeText(requireContext(), "Wait for the CSV import to finish", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        try {
+            // A rerun after process death must be able to reopen the document
+            requireContext().getContentResolver().takePersistableUriPermission(uri, permissionFlags);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Could not take persistable permission", e);
         }
+        snapshotRequested = true;
+        tvSyncStatus.setText(export ? "Exporting snapshot..." : "Restoring snapshot...");
+        if (export) {
+            CrimeSnapshotWorker.enqueueExport(requireContext(), uri);
+        } else {
+            CrimeSnapshotWorker.enqueueRestore(requireContext(), uri);
+        }
+    }
+
+    /**
+     * Shows progress and the result of the background snapshot export or restore
+     */
+    private void observeSnapshotWork() {
+        CrimeSnapshotWorker.getWorkInfos(requireContext()).observe(getViewLifecycleOwner(), workInfos -> {
+            if (workInfos == null || workInfos.isEmpty()) {
+                return;
+            }
+            WorkInfo workInfo = workInfos.get(workInfos.size() - 1);
+            boolean export = CrimeSnapshotWorker.isExport(workInfo);
+            snapshotActive = !workInfo.getState().isFinished();
+            updateSnapshotButtons();
+            if (snapshotActive) {
+                int processed = workInfo.getProgress().getInt(CrimeSnapshotWorker.KEY_PROCESSED, 0);
+                tvSyncStatus.setText((export ? "Exported " : "Restored ") + processed + " records...");
+            } else if (snapshotRequested) {
+                snapshotRequested = false;
+                if (workInfo.getState() == WorkInfo.State.SUCCEEDED) {
+                    long count = workInfo.getOutputData().getLong(CrimeSnapshotWorker.KEY_COUNT, 0);
+                    tvSyncStatus.setText((export ? "Snapshot exported: " : "Snapshot restored: ") + count + " records");
+                    Toast.makeText(requireContext(), export ? "Snapshot exported" : "Snapshot restored",
+                            Toast.LENGTH_SHORT).show();
+                } else {
+                    String error = workInfo.getOutputData().getString(CrimeSnapshotWorker.KEY_ERROR);
+                    if (error == null) {
+                        error = export ? "Snapshot export failed" : "Snapshot restore failed";
+                    }
+                    tvSyncStatus.setText(error);
+                    Toast.makeText(requireContext(), error, Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+    }
+
+    private void updateSnapshotButtons() {
+        btnExportSnapshot.setEnabled(!snapshotActive && !importActive);
+        btnRestoreSnapshot.setEnabled(!snapshotActive && !importActive);
+        btnImportDataset.setEnabled(!snapshotActive);
     }
 
     /**
@@ -18,9 +18,6 @@ import com.uni.crimes.auth.AuthManager;
 import com.uni.crimes.database.CrimeDatabase;
 import com.uni.crimes.model.Crime;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 public class CrimeDetailFragment extends Fragment {
 
     private static final String TAG = "CrimeDetailFragment";
@@ -34,7 +31,6 @@ public class CrimeDetailFragment extends Fragment {
     private Crime currentCrime;
     private CrimeDatabase database;
     private AuthManager authManager;
-    private ExecutorService executor;
 
     public static CrimeDetailFragment newInstance(String crimeId) {
         CrimeDetailFragment fragment = new CrimeDetailFragment();
@@ -55,7 +51,6 @@ public class CrimeDetailFragment extends Fragment {
         
         database = CrimeDatabase.getInstance(requireContext());
         authManager = new AuthManager(requireContext());
-        executor = Executors.newSingleThreadExecutor();
     }
 
     @Nullable
@@ -103,7 +98,7 @@ public class CrimeDetailFragment extends Fragment {
             return;
         }
         
-        executor.execute(() -> {
+        CrimeDatabase.getReadExecutor().execute(() -> {
             Crime crime = database.crimeDao().getCrimeById(crimeId);
             
             if (getActivity() != null) {
@@ -144,7 +139,7 @@ public class CrimeDetailFragment extends Fragment {
         if (currentCrime != null) {
             Log.d(TAG, "Delete crime: " + currentCrime.getCrimeId());
             
-            executor.execute(() -> {
+            CrimeDatabase.getWriteExecutor().execute(() -> {
                 database.crimeDao().deleteCrime(currentCrime);
                 
                 if (getActivity() != null) {
@@ -185,8 +180,5 @@ public class CrimeDetailFragment extends Fragment {
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "onDestroy() called");
-        if (executor != null) {
-            executor.shutdown();
-        }
     }
 }
\ No newline at end of file
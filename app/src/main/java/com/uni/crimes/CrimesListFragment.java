@@ -14,8 +14,8 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
-import com.uni.crimes.adapter.CrimeAdapter;
-import com.uni.crimes.model.Crime;
+import com.uni.crimes.adapter.CrimePagingAdapter;
+import com.uni.crimes.model.CrimeListRow;
 import com.uni.crimes.viewmodel.CrimeViewModel;
 
 /**
@@ -24,14 +24,14 @@ import com.uni.crimes.viewmodel.CrimeViewModel;
  * Implements all lifecycle methods with logging as per coursework requirements
  * 
  * Functional Description:
- * - Retrieves all crime records from SQLite database
+ * - Pages crime records from SQLite database (only the visible window is loaded)
  * - Displays them using RecyclerView with card-based layout
  * - Shows key information: crime type, LSOA name, outcome category
  * - Loads data asynchronously for smooth user interaction
  * - Clicking crime item opens Crime Detail Screen
  * - Satisfies requirement to view all data from West Yorkshire Crimes database
  */
-public class CrimesListFragment extends Fragment implements CrimeAdapter.OnCrimeClickListener {
+public class CrimesListFragment extends Fragment implements CrimePagingAdapter.OnCrimeRowClickListener {
 
     private static final String TAG = "CrimesListFragment";
     
@@ -40,7 +40,7 @@ public class CrimesListFragment extends Fragment implements CrimeAdapter.OnCrime
     private SwipeRefreshLayout swipeRefresh;
     private View emptyState;
     private View loadingState;
-    private CrimeAdapter adapter;
+    private CrimePagingAdapter adapter;
     
     // MVVM Components
     private CrimeViewModel crimeViewModel;
@@ -86,7 +86,7 @@ public class CrimesListFragment extends Fragment implements CrimeAdapter.OnCrime
      * Setup RecyclerView with adapter
      */
     private void setupRecyclerView() {
-        adapter = new CrimeAdapter(this);
+        adapter = new CrimePagingAdapter(this);
         rvCrimes.setLayoutManager(new LinearLayoutManager(getContext()));
         rvCrimes.setAdapter(adapter);
         Log.d(TAG, "RecyclerView setup completed");
@@ -100,15 +100,19 @@ public class CrimesListFragment extends Fragment implements CrimeAdapter.OnCrime
         // Show loading initially
         showLoading();
         
-        // Observe all crimes from SQLite database
-        crimeViewModel.getAllCrimes().observe(getViewLifecycleOwner(), crimes -> {
+        // Observe paged crimes from SQLite database
+        crimeViewModel.getPagedCrimeRows().observe(getViewLifecycleOwner(), pagingData -> {
+            adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData);
+        });
+        
+        // Row count drives the empty state without loading the rows themselves
+        crimeViewModel.getCrimeCount().observe(getViewLifecycleOwner(), count -> {
             hideLoading();
             swipeRefresh.setRefreshing(false);
             
-            if (crimes != null && !crimes.isEmpty()) {
-                adapter.setCrimes(crimes);
+            if (count != null && count > 0) {
                 showContent();
-                Log.d(TAG, "Crime list updated from SQLite database. Count: " + crimes.size());
+                Log.d(TAG, "Crime list updated from SQLite database. Count: " + count);
             } else {
                 showEmpty();
                 Log.d(TAG, "No crimes found in database");
@@ -159,16 +163,16 @@ public class CrimesListFragment extends Fragment implements CrimeAdapter.OnCrime
     private void setupSwipeRefresh() {
         swipeRefresh.setOnRefreshListener(() -> {
             Log.d(TAG, "Swipe refresh triggered - refreshing data from SQLite");
-            // Data will be refreshed automatically through LiveData observation
+            adapter.refresh();
             swipeRefresh.setRefreshing(false);
         });
     }
 
     @Override
-    public void onCrimeClick(Crime crime) {
-        Log.d(TAG, "Crime clicked: " + crime.getCrimeId() + " - Navigating to Crime Detail Screen");
+    public void onCrimeRowClick(CrimeListRow row) {
+        Log.d(TAG, "Crime clicked: " + row.getCrimeId() + " - Navigating to Crime Detail Screen");
         
-        CrimeDetailFragment detailFragment = CrimeDetailFragment.newInstance(crime.getCrimeId());
+        CrimeDetailFragment detailFragment = CrimeDetailFragment.newInstance(row.getCrimeId());
         
         if (getActivity() instanceof MainActivity) {
             ((MainActivity) getActivity()).navigateToFragment(detailFragment);
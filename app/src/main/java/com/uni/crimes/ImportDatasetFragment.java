@@ -21,30 +21,35 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
 
 import com.google.android.material.button.MaterialButton;
-import com.uni.crimes.database.CrimeDatabase;
-import com.uni.crimes.model.Crime;
-import com.uni.crimes.utils.CSVImporter;
-
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.google.android.material.card.MaterialCardView;
+import com.uni.crimes.model.ImportReport;
+import com.uni.crimes.utils.ImportMetrics;
+import com.uni.crimes.viewmodel.CrimeViewModel;
+import com.uni.crimes.work.CrimeImportWorker;
 
 public class ImportDatasetFragment extends Fragment {
 
     private static final String TAG = "ImportDatasetFragment";
     
-    private TextView tvInfo, tvStatus;
+    // police.uk archives hold every force; only this app's force is imported from them
+    private static final String FORCE_FILTER = "West Yorkshire";
+    
+    private TextView tvInfo, tvStatus, tvReport;
     private MaterialButton btnImport, btnImportFromFile;
     private ProgressBar progressBar;
+    private MaterialCardView cardProgress;
+    
+    private CrimeViewModel crimeViewModel;
+    private boolean importRunning = false;
     
-    private CrimeDatabase database;
-    private ExecutorService executor;
+    // Set when this screen started the import, so a finished result seen on return
+    // updates the status text without toasting again
+    private boolean importRequested = false;
     
     // Permission launcher
     private ActivityResultLauncher<String> requestPermissionLauncher;
@@ -57,8 +62,7 @@ public class ImportDatasetFragment extends Fragment {
         super.onCreate(savedInstanceState);
         Log.d(TAG, "onCreate() called");
         
-        database = CrimeDatabase.getInstance(requireContext());
-        executor = Executors.newSingleThreadExecutor();
+        crimeViewModel = new ViewModelProvider(this).get(CrimeViewModel.class);
         
         // Initialize permission launcher
         requestPermissionLauncher = registerForActivityResult(
@@ -102,6 +106,8 @@ public class ImportDatasetFragment extends Fragment {
         
         initViews(view);
         setupListeners();
+        observeImportWork();
+        observeImportReport();
     }
 
     private void initViews(View view) {
@@ -110,6 +116,8 @@ public class ImportDatasetFragment extends Fragment {
         btnImport = view.findViewById(R.id.btn_import);
         btnImportFromFile = view.findViewById(R.id.btn_import_from_file);
         progressBar = view.findViewById(R.id.progress_bar);
+        tvReport = view.findViewById(R.id.tv_report);
+        cardProgress = view.findViewById(R.id.card_progress);
     }
 
     private void setupListeners() {
@@ -120,6 +128,89 @@ public class ImportDatasetFragment extends Fragment {
         }
     }
     
+    /**
+     * Mirror the import work's state into the status views
+     * The import itself runs in CrimeImportWorker, so it keeps going through rotation
+     * and navigation; a new view just picks up the current WorkInfo
+     */
+    private void observeImportWork() {
+        CrimeImportWorker.getWorkInfos(requireContext()).observe(getViewLifecycleOwner(), workInfos -> {
+            if (workInfos == null || workInfos.isEmpty()) {
+                return;
+            }
+            WorkInfo workInfo = workInfos.get(workInfos.size() - 1);
+            switch (workInfo.getState()) {
+                case ENQUEUED:
+                case RUNNING:
+                case BLOCKED:
+                    setImportRunning(true);
+                    int processed = workInfo.getProgress().getInt(CrimeImportWorker.KEY_PROCESSED, 0);
+                    int rate = workInfo.getProgress().getInt(CrimeImportWorker.KEY_ROWS_PER_SECOND, 0);
+                    tvStatus.setText(processed > 0
+                            ? "Processed " + processed + " records (" + rate + " records/s)..."
+                            : "Importing dataset...");
+                    break;
+                case SUCCEEDED:
+                    setImportRunning(false);
+                    Data output = workInfo.getOutputData();
+                    int imported = output.getInt(CrimeImportWorker.KEY_IMPORTED, 0);
+                    int changed = output.getInt(CrimeImportWorker.KEY_CHANGED, 0);
+                    int unchanged = output.getInt(CrimeImportWorker.KEY_UNCHANGED, 0);
+                    int removed = output.getInt(CrimeImportWorker.KEY_REMOVED, 0);
+                    tvStatus.setText("Import successful! Imported " + imported + " new crime records." +
+                            (changed + unchanged + removed > 0
+                                    ? "\nUpdated " + changed + ", unchanged " + unchanged + ", removed " + removed + "."
+                                    : ""));
+                    if (importRequested) {
+                        importRequested = false;
+                        Toast.makeText(getContext(), "Dataset imported successfully", Toast.LENGTH_SHORT).show();
+                    }
+                    break;
+                case FAILED:
+                case CANCELLED:
+                    setImportRunning(false);
+                    String error = workInfo.getOutputData().getString(CrimeImportWorker.KEY_ERROR);
+                    tvStatus.setText("Import failed: " + (error != null ? error : workInfo.getState()));
+                    if (importRequested) {
+                        importRequested = false;
+                        Toast.makeText(getContext(), "Import failed", Toast.LENGTH_SHORT).show();
+                    }
+                    break;
+            }
+        });
+    }
+    
+    /**
+     * Show the metrics of the last finished import under the status line
+     * The report is saved by CSVImporter when an import ends, so it appears as the
+     * work finishes and is still there when the screen is reopened
+     */
+    private void observeImportReport() {
+        crimeViewModel.getLatestImportReport().observe(getViewLifecycleOwner(), report -> {
+            if (report == null) {
+                return;
+            }
+            cardProgress.setVisibility(View.VISIBLE);
+            tvReport.setText("Last import: " + report.getSource() +
+                    (ImportReport.STATUS_FAILED.equals(report.getStatus()) ? " (failed)" : "") +
+                    "\n" + ImportMetrics.describe(report));
+            tvReport.setVisibility(importRunning ? View.GONE : View.VISIBLE);
+        });
+    }
+    
+    private void setImportRunning(boolean running) {
+        importRunning = running;
+        btnImport.setEnabled(!running);
+        if (btnImportFromFile != null) {
+            btnImportFromFile.setEnabled(!running);
+        }
+        progressBar.setVisibility(running ? View.VISIBLE : View.GONE);
+        tvStatus.setVisibility(View.VISIBLE);
+        cardProgress.setVisibility(View.VISIBLE);
+        // The report shown is the previous import's until this one finishes
+        tvReport.setVisibility(running || tvReport.length() == 0 ? View.GONE : View.VISIBLE);
+    }
+    
     private void checkPermissionAndPickFile() {
         Log.d(TAG, "checkPermissionAndPickFile() called, SDK version: " + Build.VERSION.SDK_INT);
         
@@ -158,7 +249,8 @@ public class ImportDatasetFragment extends Fragment {
         Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
         intent.addCategory(Intent.CATEGORY_OPENABLE);
         intent.setType("*/*");
-        String[] mimeTypes = {"text/csv", "text/comma-separated-values", "application/csv", "text/plain"};
+        String[] mimeTypes = {"text/csv", "text/comma-separated-values", "application/csv", "text/plain",
+                "application/zip", "application/gzip", "application/x-gzip"};
         intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
         // Request read permission for the selected file
         intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
@@ -175,229 +267,33 @@ public class ImportDatasetFragment extends Fragment {
     private void importFromUri(Uri uri) {
         Log.d(TAG, "Importing from URI: " + uri);
         
-        btnImport.setEnabled(false);
-        if (btnImportFromFile != null) {
-            btnImportFromFile.setEnabled(false);
-        }
-        progressBar.setVisibility(View.VISIBLE);
-        tvStatus.setText("Importing dataset from selected file...");
-        tvStatus.setVisibility(View.VISIBLE);
-        
-        executor.execute(() -> {
-            // Try to take persistable permission (may fail, that's okay)
-            try {
-                final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION;
-                requireContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
-            } catch (SecurityException e) {
-                Log.w(TAG, "Could not take persistable permission (this is normal for some file sources)", e);
-            }
-            
-            try (InputStream inputStream = requireContext().getContentResolver().openInputStream(uri);
-                 BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                
-                List<Crime> crimesToImport = new ArrayList<>();
-                String line;
-                int lineNumber = 0;
-                int importedCount = 0;
-                
-                // Skip header line
-                String header = reader.readLine();
-                Log.d(TAG, "CSV Header: " + header);
-                
-                while ((line = reader.readLine()) != null) {
-                    lineNumber++;
-                    
-                    try {
-                        Crime crime = parseCrimeLine(line, lineNumber);
-                        if (crime != null) {
-                            if (!database.crimeDao().crimeExists(crime.getCrimeId())) {
-                                crimesToImport.add(crime);
-                                importedCount++;
-                                
-                                if (crimesToImport.size() >= 100) {
-                                    database.crimeDao().insertAllCrimes(crimesToImport);
-                                    crimesToImport.clear();
-                                    
-                                    final int progress = importedCount;
-                                    if (getActivity() != null) {
-                                        getActivity().runOnUiThread(() -> 
-                                            tvStatus.setText("Imported " + progress + " records..."));
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.w(TAG, "Error parsing line " + lineNumber, e);
-                    }
-                }
-                
-                if (!crimesToImport.isEmpty()) {
-                    database.crimeDao().insertAllCrimes(crimesToImport);
-                }
-                
-                final int finalCount = importedCount;
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        progressBar.setVisibility(View.GONE);
-                        tvStatus.setText("Import successful! Imported " + finalCount + " new crime records.");
-                        btnImport.setEnabled(true);
-                        if (btnImportFromFile != null) {
-                            btnImportFromFile.setEnabled(true);
-                        }
-                        Toast.makeText(getContext(), "Dataset imported successfully", Toast.LENGTH_SHORT).show();
-                    });
-                }
-                
-            } catch (SecurityException e) {
-                Log.e(TAG, "Permission denied reading file", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        progressBar.setVisibility(View.GONE);
-                        tvStatus.setText("Permission denied. Please grant storage access.");
-                        btnImport.setEnabled(true);
-                        if (btnImportFromFile != null) {
-                            btnImportFromFile.setEnabled(true);
-                        }
-                        Toast.makeText(getContext(), "Permission denied", Toast.LENGTH_SHORT).show();
-                    });
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error importing from file", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        progressBar.setVisibility(View.GONE);
-                        tvStatus.setText("Import failed: " + e.getMessage());
-                        btnImport.setEnabled(true);
-                        if (btnImportFromFile != null) {
-                            btnImportFromFile.setEnabled(true);
-                        }
-                        Toast.makeText(getContext(), "Import failed", Toast.LENGTH_SHORT).show();
-                    });
-                }
-            }
-        });
-    }
-    
-    private Crime parseCrimeLine(String line, int lineNumber) {
+        // Take persistable permission so the worker can reopen the file after process death
+        // (may fail, that's okay)
         try {
-            String[] parts = parseCSVLine(line);
-            
-            if (parts.length < 7) {
-                return null;
-            }
-            
-            String crimeId = parts[0].trim();
-            String crimeType = parts[1].trim();
-            String reportedBy = parts[2].trim();
-            String lsoaName = parts[3].trim();
-            String latitudeStr = parts[4].trim();
-            String longitudeStr = parts[5].trim();
-            String outcomeCategory = parts[6].trim();
-            
-            if (crimeId.isEmpty() || crimeType.isEmpty()) {
-                return null;
-            }
-            
-            double latitude = 0.0;
-            double longitude = 0.0;
-            
-            try {
-                if (!latitudeStr.isEmpty()) latitude = Double.parseDouble(latitudeStr);
-                if (!longitudeStr.isEmpty()) longitude = Double.parseDouble(longitudeStr);
-            } catch (NumberFormatException e) {
-                // Continue with 0,0 coordinates
-            }
-            
-            String month = "2024-01";
-            return new Crime(crimeId, crimeType, reportedBy, lsoaName, latitude, longitude, outcomeCategory, month);
-            
-        } catch (Exception e) {
-            return null;
+            final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION;
+            requireContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Could not take persistable permission (this is normal for some file sources)", e);
         }
-    }
-    
-    private String[] parseCSVLine(String line) {
-        List<String> result = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
         
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                result.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
-            }
-        }
-        result.add(currentField.toString());
-        return result.toArray(new String[0]);
+        importRequested = true;
+        setImportRunning(true);
+        tvStatus.setText("Importing dataset from selected file...");
+        CrimeImportWorker.enqueueFileImport(requireContext(), uri, FORCE_FILTER, false);
     }
-
+    
     private void importDataset() {
         Log.d(TAG, "Starting dataset import from assets");
         
-        btnImport.setEnabled(false);
-        if (btnImportFromFile != null) {
-            btnImportFromFile.setEnabled(false);
-        }
-        progressBar.setVisibility(View.VISIBLE);
+        importRequested = true;
+        setImportRunning(true);
         tvStatus.setText("Importing dataset from crimeyorkshire.csv...");
-        tvStatus.setVisibility(View.VISIBLE);
-        
-        CSVImporter importer = new CSVImporter(requireContext(), database.crimeDao());
-        
-        executor.execute(() -> {
-            importer.importFromAssets("crimeyorkshire.csv", new CSVImporter.ImportListener() {
-                @Override
-                public void onProgress(int progress) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> 
-                            tvStatus.setText("Imported " + progress + " records..."));
-                    }
-                }
-
-                @Override
-                public void onSuccess(int importedCount) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            progressBar.setVisibility(View.GONE);
-                            tvStatus.setText("Import successful! Imported " + importedCount + " new crime records.");
-                            btnImport.setEnabled(true);
-                            if (btnImportFromFile != null) {
-                                btnImportFromFile.setEnabled(true);
-                            }
-                            Toast.makeText(getContext(), "Dataset imported successfully", Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                }
-
-                @Override
-                public void onError(String error) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            progressBar.setVisibility(View.GONE);
-                            tvStatus.setText("Import failed: " + error);
-                            btnImport.setEnabled(true);
-                            if (btnImportFromFile != null) {
-                                btnImportFromFile.setEnabled(true);
-                            }
-                            Toast.makeText(getContext(), "Import failed", Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                }
-            });
-        });
+        CrimeImportWorker.enqueueAssetImport(requireContext(), "crimeyorkshire.csv");
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "onDestroy() called");
-        if (executor != null) {
-            executor.shutdown();
-        }
     }
 }
@@ -10,6 +10,8 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -21,8 +23,12 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.mapbox.common.Cancelable;
+import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.Point;
 import com.mapbox.maps.CameraOptions;
+import com.mapbox.maps.CameraState;
+import com.mapbox.maps.CoordinateBounds;
 import com.mapbox.maps.MapView;
 import com.mapbox.maps.MapboxMap;
 import com.mapbox.maps.Style;
@@ -30,26 +36,67 @@ import com.mapbox.maps.plugin.Plugin;
 import com.mapbox.maps.plugin.annotation.AnnotationConfig;
 import com.mapbox.maps.plugin.annotation.AnnotationPlugin;
 import com.mapbox.maps.plugin.annotation.AnnotationType;
+import com.mapbox.maps.plugin.annotation.generated.PointAnnotation;
 import com.mapbox.maps.plugin.annotation.generated.PointAnnotationManager;
 import com.mapbox.maps.plugin.annotation.generated.PointAnnotationOptions;
-import com.uni.crimes.model.Crime;
+import com.uni.crimes.database.CrimeDatabase;
+import com.uni.crimes.database.CrimePointBuffer;
+import com.uni.crimes.map.ClusterIndex;
+import com.uni.crimes.map.ClusterTileCache;
+import com.uni.crimes.map.CrimeHeatmapRenderer;
+import com.uni.crimes.map.CrimeLayerRenderer;
+import com.uni.crimes.map.DensityGrid;
+import com.uni.crimes.map.FrameTimeRecorder;
+import com.uni.crimes.map.FrameTimeStats;
+import com.uni.crimes.repository.ResultSetRegistry;
 import com.uni.crimes.viewmodel.CrimeViewModel;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class MapFragment extends Fragment {
 
     private static final String TAG = "MapFragment";
-    private static final String ARG_CRIMES_LIST = "crimes_list";
-    private static final int BATCH_SIZE = 100; // Process markers in batches
+    private static final String ARG_RESULTS_TOKEN = "results_token";
+    private static final String ARG_SEARCH_FIELD = "search_field";
+    private static final String ARG_SEARCH_TERM = "search_term";
+    private static final String STATE_RENDER_MODE = "render_mode";
+    private static final String STATE_HEATMAP_TYPE = "heatmap_type";
+    // Largest reload applied to the cluster index in place (or 1/16 of the points, if more)
+    private static final int MIN_INCREMENTAL_CHANGES = 1024;
+    private static final long CAMERA_DEBOUNCE_MS = 150;
+    // Extra area queried on each side of the viewport, as a fraction of its size
+    private static final double VIEWPORT_MARGIN = 0.25;
+    // From this zoom every index entry is a single crime, so the stored crimes map
+    // reads the viewport straight from the database through the crimes_rtree index
+    private static final double STREET_ZOOM = ClusterIndex.DEFAULT_MAX_ZOOM + 1;
+    private static final double MAX_LATITUDE = 85.0511;
+    // How long frame times are recorded after each camera move or redraw
+    private static final long FRAME_WINDOW_MS = 2000;
+
+    /**
+     * How crimes are drawn: one annotation per marker, one GeoJSON source and style layers,
+     * or a heatmap of the density grid
+     */
+    private enum RenderMode { ANNOTATIONS, LAYER, HEATMAP }
 
     private MapView mapView;
     private FloatingActionButton fabResetView;
     private FloatingActionButton fabZoomIn;
     private FloatingActionButton fabZoomOut;
+    private FloatingActionButton fabRenderMode;
+    private View layoutCrimeTypeFilter;
+    private AutoCompleteTextView actvCrimeTypeFilter;
     private ProgressBar progressBar;
     private TextView tvLoadingStatus;
     private View loadingOverlay;
@@ -57,7 +104,12 @@ public class MapFragment extends Fragment {
     private PointAnnotationManager pointAnnotationManager;
     private MapboxMap mapboxMap;
     private CrimeViewModel crimeViewModel;
-    private List<Crime> crimesToShow = new ArrayList<>();
+    private CrimePointBuffer crimesToShow = CrimePointBuffer.empty();
+    private boolean showingSearchResults = false;
+    // ResultSetRegistry token of the search results shown, and the search that produced them
+    private String resultsToken;
+    private String searchField;
+    private String searchTerm;
     
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
@@ -65,6 +117,28 @@ public class MapFragment extends Fragment {
     private boolean isMapReady = false;
     private boolean isStyleLoaded = false;
     private Bitmap cachedMarkerBitmap;
+    
+    // Only touched on the executor thread
+    private final ClusterIndex clusterIndex = new ClusterIndex();
+    private CrimePointBuffer indexedPoints;
+    private final ClusterTileCache tileCache = new ClusterTileCache(clusterIndex);
+    private DensityGrid densityGrid;
+    
+    // Main thread
+    private Future<?> pendingQuery;
+    private Cancelable cameraSubscription;
+    private final Runnable renderRunnable = this::renderVisibleClusters;
+    private int renderRequest = 0;
+    private double[] lastQueryBounds;
+    private int lastQueryLevel = -1;
+    private final Map<Long, PointAnnotation> renderedMarkers = new HashMap<>();
+    private CrimeLayerRenderer layerRenderer;
+    private CrimeHeatmapRenderer heatmapRenderer;
+    // Crime type id shown by the heatmap, from crimesToShow's type dictionary
+    private int heatmapTypeId = DensityGrid.ALL_TYPES;
+    private RenderMode renderMode = RenderMode.ANNOTATIONS;
+    private final Map<RenderMode, FrameTimeStats> frameStats = new EnumMap<>(RenderMode.class);
+    private final FrameTimeRecorder frameRecorder = new FrameTimeRecorder();
 
     private static final double YORKSHIRE_LAT = 53.8008;
     private static final double YORKSHIRE_LNG = -1.5491;
@@ -74,10 +148,17 @@ public class MapFragment extends Fragment {
         return new MapFragment();
     }
 
-    public static MapFragment newInstance(ArrayList<Crime> crimes) {
+    /**
+     * Map of search results registered in ResultSetRegistry
+     * The search field and term let the map run the search again if the result set is
+     * gone, e.g. after the process was killed in the background
+     */
+    public static MapFragment newInstance(String resultsToken, String searchField, String searchTerm) {
         MapFragment fragment = new MapFragment();
         Bundle args = new Bundle();
-        args.putSerializable(ARG_CRIMES_LIST, crimes);
+        args.putString(ARG_RESULTS_TOKEN, resultsToken);
+        args.putString(ARG_SEARCH_FIELD, searchField);
+        args.putString(ARG_SEARCH_TERM, searchTerm);
         fragment.setArguments(args);
         return fragment;
     }
@@ -87,17 +168,38 @@ public class MapFragment extends Fragment {
         super.onCreate(savedInstanceState);
         Log.d(TAG, "onCreate() called");
 
-        if (getArguments() != null) {
-            ArrayList<Crime> crimes = (ArrayList<Crime>) getArguments().getSerializable(ARG_CRIMES_LIST);
-            if (crimes != null) {
-                crimesToShow = new ArrayList<>(crimes);
-                Log.d(TAG, "Received " + crimes.size() + " crimes to display");
+        if (getArguments() != null && getArguments().getString(ARG_RESULTS_TOKEN) != null) {
+            resultsToken = getArguments().getString(ARG_RESULTS_TOKEN);
+            searchField = getArguments().getString(ARG_SEARCH_FIELD);
+            searchTerm = getArguments().getString(ARG_SEARCH_TERM);
+            showingSearchResults = true;
+            CrimePointBuffer points = ResultSetRegistry.getInstance().get(resultsToken);
+            if (points != null) {
+                crimesToShow = points;
+                Log.d(TAG, "Received " + points.size() + " crimes to display");
+            } else {
+                Log.d(TAG, "Result set " + resultsToken + " is gone, searching again for: " + searchTerm);
             }
         }
 
+        if (savedInstanceState != null) {
+            renderMode = RenderMode.valueOf(savedInstanceState.getString(STATE_RENDER_MODE, renderMode.name()));
+            heatmapTypeId = savedInstanceState.getInt(STATE_HEATMAP_TYPE, DensityGrid.ALL_TYPES);
+        }
+        for (RenderMode mode : RenderMode.values()) {
+            frameStats.put(mode, new FrameTimeStats());
+        }
+
         crimeViewModel = new ViewModelProvider(this).get(CrimeViewModel.class);
     }
 
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_RENDER_MODE, renderMode.name());
+        outState.putInt(STATE_HEATMAP_TYPE, heatmapTypeId);
+    }
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -112,6 +214,7 @@ public class MapFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         setupMap();
         setupFabs();
+        updateCrimeTypeFilter();
         observeViewModel();
     }
 
@@ -120,6 +223,9 @@ public class MapFragment extends Fragment {
         fabResetView = view.findViewById(R.id.fab_reset_view);
         fabZoomIn = view.findViewById(R.id.fab_zoom_in);
         fabZoomOut = view.findViewById(R.id.fab_zoom_out);
+        fabRenderMode = view.findViewById(R.id.fab_render_mode);
+        layoutCrimeTypeFilter = view.findViewById(R.id.layout_crime_type_filter);
+        actvCrimeTypeFilter = view.findViewById(R.id.actv_crime_type_filter);
         progressBar = view.findViewById(R.id.progress_bar);
         tvLoadingStatus = view.findViewById(R.id.tv_loading_status);
         loadingOverlay = view.findViewById(R.id.loading_overlay);
@@ -138,8 +244,11 @@ public class MapFragment extends Fragment {
                 
                 try {
                     initAnnotationManager();
+                    layerRenderer = new CrimeLayerRenderer(style);
+                    heatmapRenderer = new CrimeHeatmapRenderer(style);
                     resetMapView();
                     isMapReady = true;
+                    cameraSubscription = mapboxMap.subscribeCameraChanged(cameraChanged -> scheduleRender());
                     
                     // Load markers if we have crimes
                     if (!crimesToShow.isEmpty()) {
@@ -193,25 +302,121 @@ public class MapFragment extends Fragment {
                 mapboxMap.setCamera(options);
             }
         });
+        
+        fabRenderMode.setOnClickListener(v -> toggleRenderMode());
+    }
+
+    /**
+     * Cycle through annotations, the GeoJSON layer and the heatmap on the same data,
+     * logging the frame times recorded so far so the modes can be compared
+     */
+    private void toggleRenderMode() {
+        logFrameTimes();
+        renderMode = RenderMode.values()[(renderMode.ordinal() + 1) % RenderMode.values().length];
+        if (pointAnnotationManager != null) {
+            pointAnnotationManager.deleteAll();
+        }
+        renderedMarkers.clear();
+        if (layerRenderer != null) {
+            layerRenderer.clear();
+        }
+        if (heatmapRenderer != null) {
+            heatmapRenderer.clear();
+        }
+        updateCrimeTypeFilter();
+        lastQueryLevel = -1;
+        renderVisibleClusters();
+        if (getContext() != null) {
+            String message;
+            switch (renderMode) {
+                case LAYER: message = "Drawing markers as a map layer"; break;
+                case HEATMAP: message = "Showing crime density"; break;
+                default: message = "Drawing markers as annotations"; break;
+            }
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Show the crime type dropdown in heatmap mode, listing the types of crimesToShow
+     * Picking a type only switches which grid counts are drawn; nothing is rescanned
+     */
+    private void updateCrimeTypeFilter() {
+        if (renderMode != RenderMode.HEATMAP) {
+            layoutCrimeTypeFilter.setVisibility(View.GONE);
+            return;
+        }
+        String[] typeNames = crimesToShow.getTypeNames();
+        List<String> labels = new ArrayList<>();
+        List<Integer> typeIds = new ArrayList<>();
+        labels.add("All crime types");
+        typeIds.add(DensityGrid.ALL_TYPES);
+        int selected = 0;
+        for (int id = 0; id < typeNames.length; id++) {
+            if (typeNames[id] != null) {
+                if (id == heatmapTypeId) {
+                    selected = labels.size();
+                }
+                labels.add(typeNames[id]);
+                typeIds.add(id);
+            }
+        }
+        if (selected == 0) {
+            heatmapTypeId = DensityGrid.ALL_TYPES;
+        }
+
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(
+                requireContext(),
+                android.R.layout.simple_dropdown_item_1line,
+                labels
+        );
+        actvCrimeTypeFilter.setAdapter(adapter);
+        actvCrimeTypeFilter.setText(labels.get(selected), false);
+        actvCrimeTypeFilter.setOnItemClickListener((parent, view, position, id) -> {
+            heatmapTypeId = typeIds.get(position);
+            lastQueryLevel = -1;
+            renderVisibleClusters();
+        });
+        layoutCrimeTypeFilter.setVisibility(View.VISIBLE);
     }
 
     private void observeViewModel() {
-        if (crimesToShow.isEmpty()) {
-            crimeViewModel.getAllCrimes().observe(getViewLifecycleOwner(), crimes -> {
-                if (crimes != null && !crimes.isEmpty()) {
-                    Log.d(TAG, "Received " + crimes.size() + " crimes from ViewModel");
-                    crimesToShow = new ArrayList<>(crimes);
-                    if (isMapReady) {
-                        loadCrimeMarkersAsync();
-                    }
+        if (!showingSearchResults) {
+            // Reload the point columns whenever the table changes
+            crimeViewModel.getCrimeCount().observe(getViewLifecycleOwner(), count -> {
+                if (count != null && count > 0) {
+                    crimeViewModel.loadCrimePoints();
                 } else {
                     Log.d(TAG, "No crimes received from ViewModel");
                     hideLoading();
                 }
             });
+        } else if (crimesToShow.isEmpty()) {
+            // The result set went with the previous process: run the search again
+            crimeViewModel.loadSearchPoints(searchField, searchTerm);
         }
+        
+        crimeViewModel.getCrimePoints().observe(getViewLifecycleOwner(), points -> {
+            if (points != null && !points.isEmpty()) {
+                Log.d(TAG, "Received " + points.size() + " crime points from ViewModel");
+                crimesToShow = points;
+                if (showingSearchResults) {
+                    ResultSetRegistry.getInstance().restore(resultsToken, points);
+                }
+                updateCrimeTypeFilter();
+                if (isMapReady) {
+                    loadCrimeMarkersAsync();
+                }
+            } else {
+                hideLoading();
+            }
+        });
     }
 
+    /**
+     * Rebuild the cluster index from crimesToShow off the main thread, then draw the viewport
+     * A reload that only adds or removes a few rows is applied to the index in place
+     */
     private void loadCrimeMarkersAsync() {
         if (pointAnnotationManager == null || crimesToShow.isEmpty()) {
             Log.d(TAG, "Cannot load markers - manager not ready or no crimes");
@@ -219,73 +424,28 @@ public class MapFragment extends Fragment {
             return;
         }
 
-        showLoading("Loading " + crimesToShow.size() + " crime locations...");
+        showLoading("Clustering " + crimesToShow.size() + " crime locations...");
+        CrimePointBuffer points = crimesToShow;
         
         executor.execute(() -> {
             try {
-                // Pre-cache the marker bitmap
-                mainHandler.post(() -> {
-                    cachedMarkerBitmap = getMarkerBitmap();
-                });
-                
-                // Wait a bit for bitmap to be ready
-                Thread.sleep(100);
-                
-                // Clear existing markers on main thread
-                mainHandler.post(() -> {
-                    if (pointAnnotationManager != null) {
-                        pointAnnotationManager.deleteAll();
-                    }
-                });
-                
-                // Process crimes and create annotation options
-                List<PointAnnotationOptions> allOptions = new ArrayList<>();
-                int validCount = 0;
-                
-                for (Crime crime : crimesToShow) {
-                    try {
-                        double lat = crime.getLatitude();
-                        double lng = crime.getLongitude();
-                        
-                        if (isValidCoordinate(lat, lng)) {
-                            PointAnnotationOptions options = new PointAnnotationOptions()
-                                    .withPoint(Point.fromLngLat(lng, lat));
-                            allOptions.add(options);
-                            validCount++;
-                        }
-                    } catch (Exception e) {
-                        Log.w(TAG, "Error processing crime: " + crime.getCrimeId());
-                    }
-                }
-                
-                final int totalValid = validCount;
-                
-                // Add markers in batches on main thread
-                for (int i = 0; i < allOptions.size(); i += BATCH_SIZE) {
-                    final int start = i;
-                    final int end = Math.min(i + BATCH_SIZE, allOptions.size());
-                    final int progress = (int) ((end * 100.0) / allOptions.size());
-                    
-                    mainHandler.post(() -> {
-                        if (pointAnnotationManager != null && cachedMarkerBitmap != null && isAdded()) {
-                            List<PointAnnotationOptions> batch = allOptions.subList(start, end);
-                            for (PointAnnotationOptions opt : batch) {
-                                opt.withIconImage(cachedMarkerBitmap);
-                                pointAnnotationManager.create(opt);
-                            }
-                            updateLoadingProgress(progress, totalValid);
-                        }
-                    });
-                    
-                    // Small delay between batches to prevent UI freeze
-                    Thread.sleep(50);
+                long start = System.nanoTime();
+                if (!updateIndexes(indexedPoints, points)) {
+                    rebuildIndexes(points);
                 }
+                indexedPoints = points;
+                tileCache.invalidate();
+                final int indexed = clusterIndex.size();
+                Log.d(TAG, "Indexed " + indexed + " crime locations in " +
+                        (System.nanoTime() - start) / 1_000_000 + " ms");
                 
                 mainHandler.post(() -> {
                     hideLoading();
+                    lastQueryLevel = -1;
+                    renderVisibleClusters();
                     if (getContext() != null && isAdded()) {
                         Toast.makeText(getContext(),
-                                "Loaded " + totalValid + " crime locations",
+                                "Loaded " + indexed + " crime locations",
                                 Toast.LENGTH_SHORT).show();
                     }
                 });
@@ -300,6 +460,297 @@ public class MapFragment extends Fragment {
         });
     }
 
+    /**
+     * Load every point with valid coordinates into the cluster index and density grid
+     * (executor thread)
+     */
+    private void rebuildIndexes(CrimePointBuffer points) {
+        double[] latitudes = new double[points.size()];
+        double[] longitudes = new double[points.size()];
+        long[] ids = new long[points.size()];
+        int[] typeIds = new int[points.size()];
+        int count = 0;
+        for (int i = 0; i < points.size(); i++) {
+            double lat = points.getLatitude(i);
+            double lng = points.getLongitude(i);
+            if (isValidCoordinate(lat, lng)) {
+                latitudes[count] = lat;
+                longitudes[count] = lng;
+                // Search results have no row id, so fall back to the position in the buffer
+                ids[count] = points.getRowId(i) >= 0 ? points.getRowId(i) : i;
+                typeIds[count] = points.getTypeId(i);
+                count++;
+            }
+        }
+        clusterIndex.load(latitudes, longitudes, ids, count);
+
+        long start = System.nanoTime();
+        densityGrid = DensityGrid.forYorkshire(points.getTypeNames().length);
+        densityGrid.addAll(latitudes, longitudes, typeIds, count, ForkJoinPool.commonPool());
+        Log.d(TAG, "Built density grid in " + (System.nanoTime() - start) / 1_000_000 + " ms, " +
+                densityGrid.getOutside() + " crimes outside it");
+    }
+
+    /**
+     * Apply the difference between two rowid-ordered point buffers to the cluster index and
+     * density grid (executor thread)
+     * @return False if the buffers cannot be diffed or differ too much, so a rebuild is cheaper
+     */
+    private boolean updateIndexes(CrimePointBuffer previous, CrimePointBuffer points) {
+        if (previous == null || !isSortedByRowId(previous) || !isSortedByRowId(points)
+                // New crime types need a grid with room for them
+                || previous.getTypeNames().length != points.getTypeNames().length) {
+            return false;
+        }
+        int maxChanges = Math.max(MIN_INCREMENTAL_CHANGES, points.size() / 16);
+        List<Integer> removed = new ArrayList<>();
+        List<Integer> added = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < points.size()) {
+            long oldId = i < previous.size() ? previous.getRowId(i) : Long.MAX_VALUE;
+            long newId = j < points.size() ? points.getRowId(j) : Long.MAX_VALUE;
+            if (oldId < newId) {
+                removed.add(i++);
+            } else if (newId < oldId) {
+                added.add(j++);
+            } else {
+                if (previous.getLatitude(i) != points.getLatitude(j)
+                        || previous.getLongitude(i) != points.getLongitude(j)
+                        || previous.getTypeId(i) != points.getTypeId(j)) {
+                    removed.add(i);
+                    added.add(j);
+                }
+                i++;
+                j++;
+            }
+            if (removed.size() + added.size() > maxChanges) {
+                return false;
+            }
+        }
+
+        for (int index : removed) {
+            if (clusterIndex.remove(previous.getRowId(index))) {
+                densityGrid.remove(previous.getLatitude(index), previous.getLongitude(index),
+                        previous.getTypeId(index));
+            }
+        }
+        for (int index : added) {
+            double lat = points.getLatitude(index);
+            double lng = points.getLongitude(index);
+            if (isValidCoordinate(lat, lng)) {
+                clusterIndex.insert(points.getRowId(index), lat, lng);
+                densityGrid.add(lat, lng, points.getTypeId(index));
+            }
+        }
+        Log.d(TAG, "Updated cluster index and density grid: " + added.size() + " added, " + removed.size() + " removed");
+        return true;
+    }
+
+    private static boolean isSortedByRowId(CrimePointBuffer points) {
+        for (int i = 0; i < points.size(); i++) {
+            if (points.getRowId(i) < 0 || (i > 0 && points.getRowId(i) <= points.getRowId(i - 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Render once the camera has been still for CAMERA_DEBOUNCE_MS
+     */
+    private void scheduleRender() {
+        recordFrames();
+        mainHandler.removeCallbacks(renderRunnable);
+        mainHandler.postDelayed(renderRunnable, CAMERA_DEBOUNCE_MS);
+    }
+
+    /**
+     * Query the clusters of the current zoom around the visible bounds and update the markers
+     * Queries cover the viewport plus VIEWPORT_MARGIN on each side, so small pans inside
+     * that area need no query at all; a newer query cancels one still waiting to run
+     */
+    private void renderVisibleClusters() {
+        mainHandler.removeCallbacks(renderRunnable);
+        if (mapboxMap == null || pointAnnotationManager == null || layerRenderer == null
+                || heatmapRenderer == null || !isMapReady) {
+            return;
+        }
+        CameraState camera = mapboxMap.getCameraState();
+        CoordinateBounds bounds = mapboxMap.coordinateBoundsForCamera(new CameraOptions.Builder()
+                .center(camera.getCenter())
+                .zoom(camera.getZoom())
+                .bearing(camera.getBearing())
+                .pitch(camera.getPitch())
+                .padding(camera.getPadding())
+                .build());
+        double zoom = camera.getZoom();
+        int level = (int) Math.floor(zoom);
+        double west = bounds.west();
+        double south = bounds.south();
+        double east = bounds.east();
+        double north = bounds.north();
+        if (level == lastQueryLevel && west <= east && lastQueryBounds[0] <= west && lastQueryBounds[1] <= south
+                && lastQueryBounds[2] >= east && lastQueryBounds[3] >= north) {
+            return;
+        }
+
+        double width = west <= east ? east - west : east + 360 - west;
+        double marginLng = width * VIEWPORT_MARGIN;
+        double marginLat = (north - south) * VIEWPORT_MARGIN;
+        final double[] query = {
+                west - marginLng,
+                Math.max(-MAX_LATITUDE, south - marginLat),
+                east + marginLng,
+                Math.min(MAX_LATITUDE, north + marginLat)
+        };
+        lastQueryBounds = query;
+        lastQueryLevel = level;
+        final int request = ++renderRequest;
+        final RenderMode mode = renderMode;
+        final int typeId = heatmapTypeId;
+        // Search results are not a table query, and the rtree query needs west <= east
+        final boolean streetView = !showingSearchResults && zoom >= STREET_ZOOM && query[0] <= query[2];
+        final CrimeDatabase database = CrimeDatabase.getInstance(requireContext());
+
+        if (pendingQuery != null) {
+            pendingQuery.cancel(false);
+        }
+        pendingQuery = executor.submit(() -> {
+            if (mode == RenderMode.HEATMAP) {
+                if (densityGrid == null) {
+                    return;
+                }
+                FeatureCollection cells = CrimeHeatmapRenderer.toFeatures(densityGrid,
+                        densityGrid.levelForZoom(zoom), typeId, query[0], query[1], query[2], query[3]);
+                mainHandler.post(() -> {
+                    if (request == renderRequest && heatmapRenderer != null && isAdded()) {
+                        heatmapRenderer.show(cells);
+                        recordFrames();
+                    }
+                });
+                return;
+            }
+            List<ClusterIndex.Cluster> clusters;
+            CrimeLayerRenderer.CrimeTypeLookup typeLookup;
+            if (streetView) {
+                CrimePointBuffer visible = CrimePointBuffer.loadInBounds(database,
+                        query[3], query[1], query[2], query[0], null, null);
+                clusters = new ArrayList<>(visible.size());
+                for (int i = 0; i < visible.size(); i++) {
+                    clusters.add(ClusterIndex.Cluster.single(visible.getRowId(i),
+                            visible.getLatitude(i), visible.getLongitude(i)));
+                }
+                typeLookup = pointId -> {
+                    int index = visible.indexOfRowId(pointId);
+                    return index >= 0 ? visible.getTypeName(index) : null;
+                };
+            } else {
+                clusters = tileCache.getClusters(query[0], query[1], query[2], query[3], zoom);
+                typeLookup = this::crimeTypeOf;
+            }
+            // The layer path builds its whole FeatureCollection here, off the main thread
+            FeatureCollection features = mode == RenderMode.LAYER
+                    ? CrimeLayerRenderer.toFeatures(clusters, typeLookup) : null;
+            mainHandler.post(() -> {
+                // A newer camera position has been queried since; draw that one instead
+                if (request != renderRequest || pointAnnotationManager == null || layerRenderer == null
+                        || !isAdded()) {
+                    return;
+                }
+                if (features != null) {
+                    layerRenderer.show(features);
+                } else {
+                    drawClusters(clusters);
+                }
+                recordFrames();
+            });
+        });
+    }
+
+    /**
+     * Diff the queried clusters against the markers on screen: only markers that left the
+     * area or changed are deleted, and only new ones are created
+     */
+    private void drawClusters(List<ClusterIndex.Cluster> clusters) {
+        Map<Long, ClusterIndex.Cluster> wanted = new HashMap<>();
+        for (ClusterIndex.Cluster cluster : clusters) {
+            wanted.put(cluster.getId(), cluster);
+        }
+
+        List<PointAnnotation> stale = new ArrayList<>();
+        Iterator<Map.Entry<Long, PointAnnotation>> rendered = renderedMarkers.entrySet().iterator();
+        while (rendered.hasNext()) {
+            Map.Entry<Long, PointAnnotation> entry = rendered.next();
+            ClusterIndex.Cluster cluster = wanted.get(entry.getKey());
+            if (cluster != null && isSameMarker(entry.getValue(), cluster)) {
+                wanted.remove(entry.getKey());
+            } else {
+                stale.add(entry.getValue());
+                rendered.remove();
+            }
+        }
+        if (!stale.isEmpty()) {
+            pointAnnotationManager.delete(stale);
+        }
+
+        cachedMarkerBitmap = getMarkerBitmap();
+        List<Long> ids = new ArrayList<>(wanted.size());
+        List<PointAnnotationOptions> options = new ArrayList<>(wanted.size());
+        for (ClusterIndex.Cluster cluster : wanted.values()) {
+            PointAnnotationOptions option = new PointAnnotationOptions()
+                    .withPoint(Point.fromLngLat(cluster.getLongitude(), cluster.getLatitude()))
+                    .withIconImage(cachedMarkerBitmap);
+            if (cluster.isCluster()) {
+                option.withTextField(String.valueOf(cluster.getCount()))
+                        .withTextSize(12.0)
+                        .withTextOffset(Arrays.asList(0.0, -1.8));
+            }
+            ids.add(cluster.getId());
+            options.add(option);
+        }
+        if (!options.isEmpty()) {
+            List<PointAnnotation> created = pointAnnotationManager.create(options);
+            for (int i = 0; i < created.size(); i++) {
+                renderedMarkers.put(ids.get(i), created.get(i));
+            }
+        }
+        Log.d(TAG, "Markers: " + options.size() + " added, " + stale.size() + " removed, " +
+                renderedMarkers.size() + " shown");
+    }
+
+    /**
+     * Crime type of an indexed point (executor thread)
+     */
+    @Nullable
+    private String crimeTypeOf(long pointId) {
+        CrimePointBuffer points = indexedPoints;
+        if (points == null || points.isEmpty()) {
+            return null;
+        }
+        // Search results are indexed by position, database points by rowid
+        int index = points.getRowId(0) < 0 ? (int) pointId : points.indexOfRowId(pointId);
+        return index >= 0 && index < points.size() ? points.getTypeName(index) : null;
+    }
+
+    private void recordFrames() {
+        frameRecorder.record(frameStats.get(renderMode), FRAME_WINDOW_MS);
+    }
+
+    private void logFrameTimes() {
+        for (RenderMode mode : RenderMode.values()) {
+            Log.d(TAG, "Frame times, " + mode + ": " + frameStats.get(mode).describe());
+        }
+    }
+
+    private static boolean isSameMarker(PointAnnotation annotation, ClusterIndex.Cluster cluster) {
+        String label = cluster.isCluster() ? String.valueOf(cluster.getCount()) : null;
+        Point point = annotation.getPoint();
+        return point.latitude() == cluster.getLatitude()
+                && point.longitude() == cluster.getLongitude()
+                && Objects.equals(annotation.getTextField(), label);
+    }
+
     private Bitmap getMarkerBitmap() {
         if (cachedMarkerBitmap != null) {
             return cachedMarkerBitmap;
@@ -356,12 +807,6 @@ public class MapFragment extends Fragment {
         }
     }
 
-    private void updateLoadingProgress(int progress, int total) {
-        if (tvLoadingStatus != null && isAdded()) {
-            tvLoadingStatus.setText("Loading markers: " + progress + "% (" + total + " locations)");
-        }
-    }
-
     private void hideLoading() {
         if (loadingOverlay != null) {
             loadingOverlay.setVisibility(View.GONE);
@@ -385,9 +830,21 @@ public class MapFragment extends Fragment {
     public void onDestroyView() {
         super.onDestroyView();
         Log.d(TAG, "onDestroyView() called");
+        if (cameraSubscription != null) {
+            cameraSubscription.cancel();
+            cameraSubscription = null;
+        }
+        mainHandler.removeCallbacks(renderRunnable);
+        frameRecorder.stop();
+        logFrameTimes();
+        renderedMarkers.clear();
+        layerRenderer = null;
+        heatmapRenderer = null;
+        lastQueryLevel = -1;
         isMapReady = false;
         isStyleLoaded = false;
         cachedMarkerBitmap = null;
+        pointAnnotationManager = null;
     }
 
     @Override
@@ -25,7 +25,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.uni.crimes.adapter.CrimeAdapter;
+import com.uni.crimes.database.CrimePointBuffer;
 import com.uni.crimes.model.Crime;
+import com.uni.crimes.repository.CrimeRepository;
+import com.uni.crimes.repository.ResultSetRegistry;
 import com.uni.crimes.viewmodel.CrimeViewModel;
 
 import java.util.ArrayList;
@@ -52,6 +55,9 @@ public class SearchFragment extends Fragment implements CrimeAdapter.OnCrimeClic
     private CrimeViewModel crimeViewModel;
     private CrimeAdapter adapter;
     private List<Crime> currentResults = new ArrayList<>();
+    // Query that produced currentResults, so the map can run it again
+    private String resultsField;
+    private String resultsTerm;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -211,7 +217,9 @@ public class SearchFragment extends Fragment implements CrimeAdapter.OnCrimeClic
         String selectedField = spinnerSearchField.getText().toString();
         Log.d(TAG, "Performing search on SQLite database - Field: " + selectedField + ", Term: " + searchTerm);
 
-        if ("All Fields".equals(selectedField)) {
+        resultsField = selectedField;
+        resultsTerm = searchTerm;
+        if (CrimeRepository.ALL_FIELDS.equals(selectedField)) {
             // Search across all fields using SQL LIKE queries
             crimeViewModel.searchCrimes(searchTerm);
         } else {
@@ -237,14 +245,15 @@ public class SearchFragment extends Fragment implements CrimeAdapter.OnCrimeClic
     }
 
     /**
-     * Show search results on map by passing filtered crime list
+     * Show search results on map by registering their points and passing the token
      * Enables geographic analysis of crime data
      */
     private void showResultsOnMap() {
         if (!currentResults.isEmpty()) {
             Log.d(TAG, "Showing " + currentResults.size() + " search results on map for geographic analysis");
 
-            MapFragment mapFragment = MapFragment.newInstance(new ArrayList<>(currentResults));
+            String token = ResultSetRegistry.getInstance().register(CrimePointBuffer.fromCrimes(currentResults));
+            MapFragment mapFragment = MapFragment.newInstance(token, resultsField, resultsTerm);
 
             if (getActivity() instanceof MainActivity) {
                 ((MainActivity) getActivity()).navigateToFragment(mapFragment);
@@ -0,0 +1,65 @@
+package com.uni.crimes.adapter;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.uni.crimes.R;
+import com.uni.crimes.model.CrimeListRow;
+
+import java.util.Objects;
+
+/**
+ * Paging variant of CrimeAdapter
+ * Only the visible window plus the prefetch distance is ever held in memory,
+ * and each row only carries the columns the card displays
+ */
+public class CrimePagingAdapter extends PagingDataAdapter<CrimeListRow, CrimeViewHolder> {
+    
+    private static final DiffUtil.ItemCallback<CrimeListRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<CrimeListRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CrimeListRow oldItem, @NonNull CrimeListRow newItem) {
+            return oldItem.getCrimeId().equals(newItem.getCrimeId());
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull CrimeListRow oldItem, @NonNull CrimeListRow newItem) {
+            return Objects.equals(oldItem.getCrimeType(), newItem.getCrimeType())
+                    && Objects.equals(oldItem.getLsoaName(), newItem.getLsoaName())
+                    && Objects.equals(oldItem.getOutcomeCategory(), newItem.getOutcomeCategory());
+        }
+    };
+    
+    private final OnCrimeRowClickListener listener;
+    
+    public interface OnCrimeRowClickListener {
+        void onCrimeRowClick(CrimeListRow row);
+    }
+    
+    public CrimePagingAdapter(OnCrimeRowClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+    
+    @NonNull
+    @Override
+    public CrimeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_crime, parent, false);
+        return new CrimeViewHolder(view, position -> {
+            CrimeListRow row = getItem(position);
+            if (row != null && listener != null) {
+                listener.onCrimeRowClick(row);
+            }
+        });
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull CrimeViewHolder holder, int position) {
+        holder.bind(getItem(position));
+    }
+}
@@ -0,0 +1,89 @@
+package com.uni.crimes.adapter;
+
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.card.MaterialCardView;
+import com.uni.crimes.R;
+import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeListRow;
+
+/**
+ * ViewHolder for a single crime card (item_crime layout)
+ * Shared by CrimeAdapter and CrimePagingAdapter
+ */
+public class CrimeViewHolder extends RecyclerView.ViewHolder {
+    private TextView tvCrimeType, tvLsoaName, tvOutcome;
+    private MaterialCardView cardView;
+    private View crimeTypeIndicator;
+    
+    public interface OnItemClickListener {
+        void onItemClick(int position);
+    }
+    
+    public CrimeViewHolder(@NonNull View itemView, OnItemClickListener listener) {
+        super(itemView);
+        tvCrimeType = itemView.findViewById(R.id.tv_crime_type);
+        tvLsoaName = itemView.findViewById(R.id.tv_lsoa_name);
+        tvOutcome = itemView.findViewById(R.id.tv_outcome);
+        cardView = itemView.findViewById(R.id.card_crime);
+        crimeTypeIndicator = itemView.findViewById(R.id.crime_type_indicator);
+        
+        cardView.setOnClickListener(v -> {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && listener != null) {
+                listener.onItemClick(position);
+            }
+        });
+    }
+    
+    public void bind(Crime crime) {
+        bind(crime.getCrimeType(), crime.getLsoaName(), crime.getOutcome());
+    }
+    
+    public void bind(CrimeListRow row) {
+        if (row == null) {
+            // Placeholder while the page is still loading
+            tvCrimeType.setText("");
+            tvLsoaName.setText("");
+            tvOutcome.setText("");
+            return;
+        }
+        bind(row.getCrimeType(), row.getLsoaName(), row.getOutcomeCategory());
+    }
+    
+    private void bind(String crimeType, String lsoaName, String outcome) {
+        tvCrimeType.setText(crimeType != null ? crimeType : "Unknown");
+        tvLsoaName.setText(lsoaName != null ? lsoaName : "Unknown location");
+        tvOutcome.setText(outcome != null ? outcome : "No outcome recorded");
+        
+        // Set indicator color based on crime type
+        if (crimeTypeIndicator != null) {
+            int colorRes = getCrimeTypeColor(crimeType);
+            crimeTypeIndicator.setBackgroundColor(
+                ContextCompat.getColor(itemView.getContext(), colorRes)
+            );
+        }
+    }
+    
+    private int getCrimeTypeColor(String crimeType) {
+        if (crimeType == null) return R.color.crime_other;
+        
+        String type = crimeType.toLowerCase();
+        if (type.contains("violence") || type.contains("assault") || type.contains("robbery")) {
+            return R.color.crime_violent;
+        } else if (type.contains("theft") || type.contains("shoplifting")) {
+            return R.color.crime_theft;
+        } else if (type.contains("burglary")) {
+            return R.color.crime_burglary;
+        } else if (type.contains("drug")) {
+            return R.color.crime_drugs;
+        } else {
+            return R.color.crime_other;
+        }
+    }
+}
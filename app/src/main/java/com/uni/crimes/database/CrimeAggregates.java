@@ -0,0 +1,77 @@
+package com.uni.crimes.database;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally maintained summary tables over the crimes table
+ * Triggers adjust one counter row per insert, update or delete, so dashboards
+ * read O(groups) rows instead of running GROUP BY over every crime
+ * NULL keys are stored as '' because the key columns are part of the primary key
+ * The SQL itself lives in CrimeSideTables, shared with the prepackaged database build
+ */
+public class CrimeAggregates {
+
+    private CrimeAggregates() {}
+
+    /**
+     * Create the summary tables exactly as Room does for the count entities
+     * Only needed by migrations; fresh databases get them from Room
+     */
+    public static void createTables(SupportSQLiteDatabase db) {
+        for (String sql : CrimeSideTables.aggregateTables()) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Create the maintenance triggers
+     * Safe to call more than once
+     */
+    public static void install(SupportSQLiteDatabase db) {
+        for (String sql : CrimeSideTables.aggregateTriggers()) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Recompute every summary table from the crimes table
+     */
+    public static void rebuild(SupportSQLiteDatabase db) {
+        for (String sql : CrimeSideTables.aggregateRebuild()) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Consistency check: recompute the aggregates from scratch and diff them against the live tables
+     * @return Human-readable mismatches, empty if the live tables are correct
+     */
+    public static List<String> findMismatches(SupportSQLiteDatabase db) {
+        List<String> mismatches = new ArrayList<>();
+        for (CrimeSideTables.Aggregate aggregate : CrimeSideTables.aggregates()) {
+            String expected = "(" + aggregate.expectedQuery() + ")";
+            String live = "(SELECT " + aggregate.keyList() + ", `crimeCount` FROM `" + aggregate.getTable() + "`)";
+            collect(db, aggregate, "missing or wrong", expected + " EXCEPT SELECT * FROM " + live, mismatches);
+            collect(db, aggregate, "unexpected", live + " EXCEPT SELECT * FROM " + expected, mismatches);
+        }
+        return mismatches;
+    }
+
+    private static void collect(SupportSQLiteDatabase db, CrimeSideTables.Aggregate aggregate, String kind,
+                                String sql, List<String> out) {
+        try (Cursor cursor = db.query("SELECT * FROM " + sql)) {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder(aggregate.getTable()).append(' ').append(kind).append(':');
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    row.append(' ').append(cursor.getColumnName(i)).append('=').append(cursor.getString(i));
+                }
+                out.add(row.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.uni.crimes.database;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeContentHash;
+import com.uni.crimes.model.CrimeTombstone;
+import com.uni.crimes.utils.CrimeCsvParser;
+import com.uni.crimes.utils.ImportMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk ingestion path for CSV imports
+ * Rows are inserted with INSERT OR IGNORE inside one explicit transaction that is
+ * committed every commitInterval rows, so a large file costs a handful of commits
+ * IDs the shared CrimeIdFilter has never seen go straight to the insert; its hits are
+ * confirmed for the whole batch with one query and dropped, so re-importing a stored
+ * file costs a query per batch instead of one per row. Anything the filter misses is
+ * still rejected by the primary key
+ *
+ * In delta mode (enableDelta) stored rows are compared by content hash instead:
+ * new rows are inserted, changed rows updated, unchanged rows left alone, and rows of
+ * the imported months that the file no longer contains can be tombstoned, so
+ * refreshing a month costs work proportional to what changed
+ * Not thread safe: create, use and close on one thread. Short writes run on the
+ * database write executor; long imports run on their own thread, and other writers
+ * get the lock between commits
+ */
+@SuppressWarnings("deprecation") // Transactions span many calls, so runInTransaction does not fit
+public class CrimeBulkWriter implements AutoCloseable {
+
+    private static final String TAG = "CrimeBulkWriter";
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_COMMIT_INTERVAL = 20_000;
+
+    private final CrimeDatabase database;
+    private final CrimeDao crimeDao;
+    private final int batchSize;
+    private final int commitInterval;
+    private final List<Crime> batch;
+    private final CrimeIdFilter idFilter;
+    private final List<String> insertedSinceCommit = new ArrayList<>();
+
+    private CommitListener commitListener;
+    private ImportMetrics metrics;
+    private int rowsAdded = 0;
+    private int insertedCount = 0;
+    private int skippedCount = 0;
+
+    // Delta mode
+    private boolean delta = false;
+    private boolean tombstoneMissing = false;
+    // Exact IDs of this file: a false hit would skip a new row or spare a deleted one
+    private Set<String> seenIds;
+    private Set<String> seenMonths;
+    private int changedCount = 0;
+    private int unchangedCount = 0;
+    private int removedCount = 0;
+    private int rowsSinceCommit = 0;
+    private boolean inTransaction = false;
+
+    /**
+     * Called inside each transaction just before it commits
+     * Anything written here (e.g. an import checkpoint) commits or rolls back with the rows
+     */
+    public interface CommitListener {
+        void onCommit(CrimeBulkWriter writer);
+    }
+
+    /**
+     * Result of a bulk write
+     * Inserted rows are the "added" side of a delta import's diff; changed, unchanged
+     * and removed stay 0 outside delta mode
+     */
+    public static class Result {
+        private final int insertedCount;
+        private final int skippedCount;
+        private final int changedCount;
+        private final int unchangedCount;
+        private final int removedCount;
+
+        Result(int insertedCount, int skippedCount, int changedCount, int unchangedCount, int removedCount) {
+            this.insertedCount = insertedCount;
+            this.skippedCount = skippedCount;
+            this.changedCount = changedCount;
+            this.unchangedCount = unchangedCount;
+            this.removedCount = removedCount;
+        }
+
+        public int getInsertedCount() { return insertedCount; }
+        public int getSkippedCount() { return skippedCount; }
+        public int getChangedCount() { return changedCount; }
+        public int getUnchangedCount() { return unchangedCount; }
+        public int getRemovedCount() { return removedCount; }
+    }
+
+    public CrimeBulkWriter(CrimeDatabase database) {
+        this(database, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * @param batchSize Rows handed to one INSERT OR IGNORE call
+     * @param commitInterval Rows written between commits; a crash loses at most this many
+     */
+    public CrimeBulkWriter(CrimeDatabase database, int batchSize, int commitInterval) {
+        if (batchSize <= 0 || commitInterval < batchSize) {
+            throw new IllegalArgumentException("Invalid batch size " + batchSize +
+                    " or commit interval " + commitInterval);
+        }
+        this.database = database;
+        this.crimeDao = database.crimeDao();
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.batch = new ArrayList<>(batchSize);
+        this.idFilter = database.getCrimeIdFilter();
+    }
+
+    /**
+     * Queue a crime for insertion, writing the batch when it is full
+     * @return True if a batch was written by this call (a good moment to report progress)
+     */
+    public boolean add(Crime crime) {
+        rowsAdded++;
+        if (delta) {
+            // Later copies of an ID in the same file are skipped, as INSERT OR IGNORE would
+            if (!seenIds.add(crime.getCrimeId())) {
+                skippedCount++;
+                return false;
+            }
+            if (crime.getContentHash() == 0) {
+                crime.setContentHash(CrimeCsvParser.contentHash(crime));
+            }
+            if (crime.getMonth() != null) {
+                seenMonths.add(crime.getMonth());
+            }
+        }
+        batch.add(crime);
+        if (batch.size() < batchSize) {
+            return false;
+        }
+        flush();
+        return true;
+    }
+
+    /**
+     * Write any queued rows and commit
+     * @return Inserted and skipped counts for everything written so far
+     */
+    public Result finish() {
+        flush();
+        if (delta && tombstoneMissing) {
+            removeMissing();
+        }
+        commit();
+        Log.d(TAG, "Bulk write finished. Inserted: " + insertedCount + ", Skipped: " + skippedCount +
+                (delta ? ", Changed: " + changedCount + ", Unchanged: " + unchangedCount +
+                        ", Removed: " + removedCount : ""));
+        return new Result(insertedCount, skippedCount, changedCount, unchangedCount, removedCount);
+    }
+
+    /**
+     * Compare rows with the stored ones by content hash instead of skipping stored IDs
+     * Must be called before the first add()
+     * @param tombstoneMissing Also delete (and tombstone) stored crimes of the imported
+     *                         months that the file did not contain; only valid when the
+     *                         writer sees the whole file
+     */
+    public void enableDelta(boolean tombstoneMissing) {
+        if (rowsAdded > 0) {
+            throw new IllegalStateException("Delta mode must be enabled before adding rows");
+        }
+        this.delta = true;
+        this.tombstoneMissing = tombstoneMissing;
+        this.seenIds = new HashSet<>();
+        this.seenMonths = new HashSet<>();
+    }
+
+    /**
+     * Roll back rows written since the last commit if finish() was not reached
+     */
+    @Override
+    public void close() {
+        if (inTransaction) {
+            database.endTransaction();
+            inTransaction = false;
+            insertedSinceCommit.clear();
+            Log.w(TAG, "Bulk write abandoned; rolled back " + rowsSinceCommit + " uncommitted rows");
+        }
+    }
+
+    public void setCommitListener(CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
+    /**
+     * Report the latency of each commit to metrics
+     */
+    public void setMetrics(ImportMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Rows passed to add() so far; at commit time every one of them has been written or skipped
+     */
+    public int getRowsAdded() {
+        return rowsAdded;
+    }
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!inTransaction) {
+            database.beginTransaction();
+            inTransaction = true;
+        }
+
+        if (delta) {
+            writeDelta();
+        } else {
+            insertIgnoringDuplicates(withoutStored(batch));
+        }
+        rowsSinceCommit += batch.size();
+        batch.clear();
+
+        if (rowsSinceCommit >= commitInterval) {
+            commit();
+        }
+    }
+
+    /**
+     * Drop the rows whose IDs are stored, asking SQLite only about the filter's hits
+     */
+    private List<Crime> withoutStored(List<Crime> crimes) {
+        List<String> maybeStored = new ArrayList<>();
+        for (Crime crime : crimes) {
+            if (idFilter.mightContain(crime.getCrimeId())) {
+                maybeStored.add(crime.getCrimeId());
+            }
+        }
+        if (maybeStored.isEmpty()) {
+            return crimes;
+        }
+        Set<String> stored = new HashSet<>(crimeDao.getStoredCrimeIds(maybeStored));
+        if (stored.isEmpty()) {
+            return crimes;
+        }
+        List<Crime> remaining = new ArrayList<>(crimes.size() - stored.size());
+        for (Crime crime : crimes) {
+            if (stored.contains(crime.getCrimeId())) {
+                skippedCount++;
+            } else {
+                remaining.add(crime);
+            }
+        }
+        return remaining;
+    }
+
+    private void insertIgnoringDuplicates(List<Crime> crimes) {
+        if (crimes.isEmpty()) {
+            return;
+        }
+        // -1 means the statement changed no rows, i.e. the crimeId already existed
+        long[] rowIds = crimeDao.insertAllCrimesIgnoringDuplicates(crimes);
+        for (int i = 0; i < rowIds.length; i++) {
+            if (rowIds[i] == -1) {
+                skippedCount++;
+            } else {
+                insertedCount++;
+                insertedSinceCommit.add(crimes.get(i).getCrimeId());
+            }
+        }
+    }
+
+    /**
+     * Sort the batch into new, changed and unchanged rows and write only the first two
+     * Stored hashes are looked up in one query, and only for IDs the filter may hold
+     */
+    private void writeDelta() {
+        List<String> maybeStored = new ArrayList<>();
+        for (Crime crime : batch) {
+            if (idFilter.mightContain(crime.getCrimeId())) {
+                maybeStored.add(crime.getCrimeId());
+            }
+        }
+        Map<String, Long> storedHashes = storedHashes(maybeStored);
+
+        List<Crime> added = new ArrayList<>();
+        List<Crime> changed = new ArrayList<>();
+        for (Crime crime : batch) {
+            Long storedHash = storedHashes.get(crime.getCrimeId());
+            if (storedHash == null) {
+                added.add(crime);
+            } else if (storedHash != crime.getContentHash()) {
+                changed.add(crime);
+            } else {
+                unchangedCount++;
+            }
+        }
+
+        if (!added.isEmpty()) {
+            // Rows stored behind the filter's back (single inserts, sync) come back as -1
+            // and are compared like any other stored row
+            long[] rowIds = crimeDao.insertAllCrimesIgnoringDuplicates(added);
+            List<String> newIds = new ArrayList<>();
+            List<Crime> alreadyStored = new ArrayList<>();
+            for (int i = 0; i < rowIds.length; i++) {
+                if (rowIds[i] == -1) {
+                    alreadyStored.add(added.get(i));
+                } else {
+                    newIds.add(added.get(i).getCrimeId());
+                }
+            }
+            insertedCount += newIds.size();
+            insertedSinceCommit.addAll(newIds);
+            if (!newIds.isEmpty()) {
+                crimeDao.deleteTombstones(newIds);
+            }
+            if (!alreadyStored.isEmpty()) {
+                changed.addAll(changedOnly(alreadyStored));
+            }
+        }
+        if (!changed.isEmpty()) {
+            changedCount += crimeDao.updateAllCrimes(changed);
+        }
+    }
+
+    /**
+     * Rows whose stored hash differs; counts the others as unchanged
+     */
+    private List<Crime> changedOnly(List<Crime> storedCrimes) {
+        List<String> ids = new ArrayList<>(storedCrimes.size());
+        for (Crime crime : storedCrimes) {
+            ids.add(crime.getCrimeId());
+        }
+        Map<String, Long> storedHashes = storedHashes(ids);
+        List<Crime> changed = new ArrayList<>();
+        for (Crime crime : storedCrimes) {
+            Long storedHash = storedHashes.get(crime.getCrimeId());
+            if (storedHash != null && storedHash == crime.getContentHash()) {
+                unchangedCount++;
+            } else {
+                changed.add(crime);
+            }
+        }
+        return changed;
+    }
+
+    private Map<String, Long> storedHashes(List<String> crimeIds) {
+        Map<String, Long> storedHashes = new HashMap<>();
+        if (!crimeIds.isEmpty()) {
+            for (CrimeContentHash row : crimeDao.getContentHashes(crimeIds)) {
+                storedHashes.put(row.getCrimeId(), row.getContentHash());
+            }
+        }
+        return storedHashes;
+    }
+
+    /**
+     * Delete the stored crimes of the imported months that this import did not see,
+     * leaving a tombstone for each
+     */
+    private void removeMissing() {
+        if (seenMonths.isEmpty()) {
+            return;
+        }
+        if (!inTransaction) {
+            database.beginTransaction();
+            inTransaction = true;
+        }
+
+        List<String> missingIds = new ArrayList<>();
+        List<CrimeTombstone> tombstones = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        try (Cursor cursor = crimeDao.getCrimeIdsForMonthsCursor(new ArrayList<>(seenMonths))) {
+            while (cursor.moveToNext()) {
+                String crimeId = cursor.getString(0);
+                if (!seenIds.contains(crimeId)) {
+                    missingIds.add(crimeId);
+                    tombstones.add(new CrimeTombstone(crimeId, cursor.getString(1), now));
+                }
+            }
+        }
+
+        for (int start = 0; start < missingIds.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, missingIds.size());
+            removedCount += crimeDao.deleteCrimesByIds(missingIds.subList(start, end));
+            crimeDao.insertTombstones(tombstones.subList(start, end));
+        }
+    }
+
+    private void commit() {
+        if (!inTransaction) {
+            return;
+        }
+        if (commitListener != null) {
+            commitListener.onCommit(this);
+        }
+        long commitStart = System.nanoTime();
+        database.setTransactionSuccessful();
+        database.endTransaction();
+        if (metrics != null) {
+            metrics.recordCommit(System.nanoTime() - commitStart);
+        }
+        inTransaction = false;
+        rowsSinceCommit = 0;
+        idFilter.addAll(insertedSinceCommit);
+        insertedSinceCommit.clear();
+    }
+}
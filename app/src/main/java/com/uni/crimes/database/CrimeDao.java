@@ -1,14 +1,33 @@
 package com.uni.crimes.database;
 
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeContentHash;
+import com.uni.crimes.model.CrimeListRow;
+import com.uni.crimes.model.CrimeSearchHit;
+import com.uni.crimes.model.CrimeTombstone;
+import com.uni.crimes.model.CategoryCount;
+import com.uni.crimes.model.CrimeType;
+import com.uni.crimes.model.CrimeTypeMonthCount;
+import com.uni.crimes.model.ImportJob;
+import com.uni.crimes.model.ImportReport;
+import com.uni.crimes.model.LsoaMonthCount;
+import com.uni.crimes.model.OutcomeCount;
+import com.uni.crimes.utils.FtsQueryBuilder;
+import com.uni.crimes.utils.FtsRanker;
 
 import java.util.List;
 
@@ -35,6 +54,15 @@ public interface CrimeDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAllCrimes(List<Crime> crimes);
     
+    /**
+     * Insert crimes, leaving existing rows with the same crimeId untouched
+     * Used by CrimeBulkWriter inside its own transaction
+     * @param crimes List of Crime objects to insert
+     * @return Row id per crime, -1 where the crime already existed
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertAllCrimesIgnoringDuplicates(List<Crime> crimes);
+    
     /**
      * Get all crimes from database
      * @return LiveData list of all crimes (for MVVM pattern)
@@ -49,6 +77,22 @@ public interface CrimeDao {
     @Query("SELECT * FROM crimes ORDER BY crimeId DESC")
     List<Crime> getAllCrimesSync();
     
+    /**
+     * Get the columns shown in the crime list one page at a time
+     * @return PagingSource that Room invalidates whenever the crimes table changes
+     */
+    @Query("SELECT crimeId, crimeType, lsoaName, outcomeCategory FROM crimes ORDER BY crimeId DESC")
+    PagingSource<Integer, CrimeListRow> getCrimeListRowsPaged();
+    
+    /**
+     * Get every crime's coordinates and crime type id for the map
+     * Read with {@link CrimePointBuffer#fromCursor} into primitive arrays
+     * Rowid order is what a full scan returns anyway, and lets the buffer look up rowids
+     * @return Cursor over rowid, latitude, longitude, crime type id (caller must close)
+     */
+    @Query("SELECT " + CrimePointBuffer.PROJECTION + " FROM crimes ORDER BY crimes.rowid")
+    Cursor getCrimePointsCursor();
+    
     /**
      * Search crimes by any field using LIKE query
      * @param searchTerm The term to search for
@@ -75,6 +119,57 @@ public interface CrimeDao {
            "crimeId LIKE '%' || :searchTerm || '%'")
     List<Crime> searchCrimesByAnyFieldSync(String searchTerm);
     
+    /**
+     * Search crimes through the crimes_fts full-text index synchronously
+     * Rows come back in rowid order with their matchinfo, see {@link #searchCrimesFtsSync}
+     * @param matchQuery FTS MATCH expression, see {@link FtsQueryBuilder}
+     * @return List of matching crimes with their matchinfo blobs
+     */
+    @Query("SELECT crimes.*, matchinfo(crimes_fts, 'pcx') AS matchinfo FROM crimes " +
+           "JOIN crimes_fts ON crimes.rowid = crimes_fts.rowid " +
+           "WHERE crimes_fts MATCH :matchQuery " +
+           "ORDER BY crimes.rowid")
+    List<CrimeSearchHit> searchCrimeHitsFtsSync(String matchQuery);
+    
+    /**
+     * Search crimes through the crimes_fts full-text index synchronously
+     * Results are ranked by how often the query terms hit each row; ties keep rowid order
+     * @param matchQuery FTS MATCH expression, see {@link FtsQueryBuilder}
+     * @return List of matching crimes, best matches first
+     */
+    default List<Crime> searchCrimesFtsSync(String matchQuery) {
+        return FtsRanker.rank(searchCrimeHitsFtsSync(matchQuery));
+    }
+    
+    /**
+     * Ranked token/prefix search across all text fields
+     * Uses the FTS index and only falls back to the LIKE scan when the term has no tokens
+     * @param searchTerm Raw text typed by the user
+     * @return List of matching crimes
+     */
+    default List<Crime> searchCrimesRankedSync(String searchTerm) {
+        String matchQuery = FtsQueryBuilder.toMatchQuery(searchTerm);
+        if (matchQuery == null) {
+            return searchCrimesByAnyFieldSync(searchTerm);
+        }
+        return searchCrimesFtsSync(matchQuery);
+    }
+    
+    /**
+     * Ranked token/prefix search restricted to a single field
+     * Falls back to a LIKE scan of that field when the term has no tokens
+     * @param field Column name (crimeType, lsoaName, outcomeCategory or reportedBy)
+     * @param searchTerm Raw text typed by the user
+     * @return List of matching crimes
+     */
+    default List<Crime> searchFieldRankedSync(String field, String searchTerm) {
+        String matchQuery = FtsQueryBuilder.toMatchQuery(searchTerm, field);
+        if (matchQuery == null) {
+            return searchByFieldSync(field, searchTerm);
+        }
+        return searchCrimesFtsSync(matchQuery);
+    }
+    
     /**
      * Search crimes by specific field
      * @param field The field name to search in
@@ -90,6 +185,47 @@ public interface CrimeDao {
            "ELSE crimeType LIKE '%' || :value || '%' END")
     LiveData<List<Crime>> searchByField(String field, String value);
     
+    /**
+     * Search crimes by specific field synchronously
+     * @param field The field name to search in
+     * @param value The value to search for
+     * @return List of matching crimes
+     */
+    @Query("SELECT * FROM crimes WHERE " +
+           "CASE :field " +
+           "WHEN 'crimeType' THEN crimeType LIKE '%' || :value || '%' " +
+           "WHEN 'lsoaName' THEN lsoaName LIKE '%' || :value || '%' " +
+           "WHEN 'outcomeCategory' THEN outcomeCategory LIKE '%' || :value || '%' " +
+           "WHEN 'reportedBy' THEN reportedBy LIKE '%' || :value || '%' " +
+           "ELSE crimeType LIKE '%' || :value || '%' END")
+    List<Crime> searchByFieldSync(String field, String value);
+    
+    /**
+     * Run a query built at runtime (e.g. against tables Room does not manage)
+     * @param query Query selecting crimes.* columns
+     * @return List of matching crimes
+     */
+    @RawQuery
+    List<Crime> getCrimesRaw(SupportSQLiteQuery query);
+    
+    /**
+     * Get crimes inside a bounding box using the crimes_rtree spatial index
+     * @param crimeType Optional exact crime type filter
+     * @param month Optional exact month filter (yyyy-MM)
+     * @return List of crimes inside the box
+     */
+    default List<Crime> getCrimesInBounds(double north, double south, double east, double west,
+                                          @Nullable String crimeType, @Nullable String month) {
+        return getCrimesRaw(CrimeSpatialIndex.boundsQuery(north, south, east, west, crimeType, month));
+    }
+    
+    /**
+     * Get the crime type dictionary with ids (for compact encodings)
+     * @return List of crime types ordered by id
+     */
+    @Query("SELECT * FROM crime_types ORDER BY id")
+    List<CrimeType> getCrimeTypesSync();
+    
     /**
      * Update an existing crime record
      * @param crime Crime object with updated data
@@ -149,4 +285,169 @@ public interface CrimeDao {
      */
     @Query("SELECT EXISTS(SELECT 1 FROM crimes WHERE crimeId = :crimeId)")
     boolean crimeExists(String crimeId);
-}
\ No newline at end of file
+    
+    /**
+     * Which of the given IDs are stored, to confirm a batch of CrimeIdFilter hits at once
+     * @param crimeIds At most CrimeBulkWriter's batch size, well under SQLite's variable limit
+     */
+    @Query("SELECT crimeId FROM crimes WHERE crimeId IN (:crimeIds)")
+    List<String> getStoredCrimeIds(List<String> crimeIds);
+    
+    /**
+     * Stream every crime ID, for loading CrimeIdFilter
+     * @return Cursor over crimeId (caller must close)
+     */
+    @Query("SELECT crimeId FROM crimes")
+    Cursor getCrimeIdsCursor();
+    
+    /**
+     * One page of crimes' imported fields in rowid order, for writing a snapshot
+     * Keyed on rowid rather than OFFSET, so each page is a seek, not a rescan
+     * @return Cursor over rowid, crimeId, crimeType, reportedBy, lsoaName, latitude,
+     *         longitude, outcomeCategory, month, contentHash (caller must close)
+     */
+    @Query("SELECT rowid, crimeId, crimeType, reportedBy, lsoaName, latitude, longitude, " +
+           "outcomeCategory, month, contentHash FROM crimes WHERE rowid > :afterRowId " +
+           "ORDER BY rowid LIMIT :limit")
+    Cursor getCrimesForSnapshotPage(long afterRowId, int limit);
+    
+    // Aggregates - read the trigger-maintained count tables, one row per group
+    
+    /**
+     * Crime counts per crime type and month
+     * @return LiveData list ordered by month then type
+     */
+    @Query("SELECT * FROM crime_counts_type_month ORDER BY month, crimeType")
+    LiveData<List<CrimeTypeMonthCount>> getTypeMonthCounts();
+    
+    /**
+     * Total crimes per crime type across all months
+     * @return LiveData list, largest first
+     */
+    @Query("SELECT crimeType AS name, SUM(crimeCount) AS crimeCount FROM crime_counts_type_month " +
+           "GROUP BY crimeType ORDER BY crimeCount DESC")
+    LiveData<List<CategoryCount>> getCrimeTypeTotals();
+    
+    /**
+     * Total crimes per month across all crime types
+     * @return LiveData list ordered by month
+     */
+    @Query("SELECT month AS name, SUM(crimeCount) AS crimeCount FROM crime_counts_type_month " +
+           "GROUP BY month ORDER BY month")
+    LiveData<List<CategoryCount>> getMonthTotals();
+    
+    /**
+     * Crime counts per LSOA for one month
+     * @param month Month in the CSV format (e.g. 2023-01)
+     * @return LiveData list, largest first
+     */
+    @Query("SELECT * FROM crime_counts_lsoa_month WHERE month = :month ORDER BY crimeCount DESC")
+    LiveData<List<LsoaMonthCount>> getLsoaMonthCounts(String month);
+    
+    /**
+     * Crime counts per outcome category
+     * @return LiveData list, largest first
+     */
+    @Query("SELECT * FROM crime_counts_outcome ORDER BY crimeCount DESC")
+    LiveData<List<OutcomeCount>> getOutcomeCounts();
+    
+    /**
+     * Record a new file import
+     * @return Row ID of the job
+     */
+    @Insert
+    long insertImportJob(ImportJob job);
+    
+    /**
+     * Save an import checkpoint; called inside the batch transaction by CrimeBulkWriter
+     */
+    @Update
+    void updateImportJob(ImportJob job);
+    
+    /**
+     * Unfinished import of the same file, if one was interrupted
+     * @param sourceUri Content URI of the file
+     * @param fingerprint File fingerprint computed by CSVImporter
+     * @return The job to resume, or null to start over
+     */
+    @Nullable
+    @Query("SELECT * FROM import_jobs WHERE sourceUri = :sourceUri AND fingerprint = :fingerprint " +
+           "AND status = '" + ImportJob.STATUS_RUNNING + "' ORDER BY updatedAt DESC LIMIT 1")
+    ImportJob findResumableImportJob(String sourceUri, String fingerprint);
+    
+    /**
+     * Most recent import that was interrupted before finishing
+     * @return The job, or null if none
+     */
+    @Nullable
+    @Query("SELECT * FROM import_jobs WHERE status = '" + ImportJob.STATUS_RUNNING + "' " +
+           "ORDER BY updatedAt DESC LIMIT 1")
+    ImportJob getInterruptedImportJob();
+    
+    /**
+     * Give up on every other unfinished import, so only one job is ever resumed
+     * @param jobId Job being started or resumed
+     */
+    @Query("UPDATE import_jobs SET status = '" + ImportJob.STATUS_ABANDONED + "' " +
+           "WHERE status = '" + ImportJob.STATUS_RUNNING + "' AND id != :jobId")
+    void abandonOtherImportJobs(long jobId);
+    
+    /**
+     * Stored content hashes for a batch of IDs (delta import)
+     * @param crimeIds At most CrimeBulkWriter's batch size, well under SQLite's variable limit
+     */
+    @Query("SELECT crimeId, contentHash FROM crimes WHERE crimeId IN (:crimeIds)")
+    List<CrimeContentHash> getContentHashes(List<String> crimeIds);
+    
+    /**
+     * Rewrite changed rows in one statement per row; triggers keep the side tables current
+     * @return Number of rows updated
+     */
+    @Update
+    int updateAllCrimes(List<Crime> crimes);
+    
+    /**
+     * IDs and months of every crime in the given months, for tombstoning rows a
+     * delta import did not see
+     */
+    @Query("SELECT crimeId, month FROM crimes WHERE month IN (:months)")
+    Cursor getCrimeIdsForMonthsCursor(List<String> months);
+    
+    @Query("DELETE FROM crimes WHERE crimeId IN (:crimeIds)")
+    int deleteCrimesByIds(List<String> crimeIds);
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTombstones(List<CrimeTombstone> tombstones);
+    
+    /**
+     * Forget tombstones of crimes that have been imported again
+     */
+    @Query("DELETE FROM crime_tombstones WHERE crimeId IN (:crimeIds)")
+    void deleteTombstones(List<String> crimeIds);
+    
+    // Import reports
+    
+    @Insert
+    long insertImportReport(ImportReport report);
+    
+    /**
+     * Delete all but the newest reports
+     * @param keep Number of reports to keep
+     */
+    @Query("DELETE FROM import_reports WHERE id NOT IN " +
+           "(SELECT id FROM import_reports ORDER BY id DESC LIMIT :keep)")
+    void trimImportReports(int keep);
+    
+    /**
+     * Report of the last finished import, for the import screen
+     * @return LiveData report, null until an import has finished
+     */
+    @Query("SELECT * FROM import_reports ORDER BY id DESC LIMIT 1")
+    LiveData<ImportReport> getLatestImportReportLive();
+    
+    /**
+     * Newest reports first, for comparing imports across app versions
+     */
+    @Query("SELECT * FROM import_reports ORDER BY id DESC")
+    List<ImportReport> getImportReports();
+}
@@ -1,32 +1,185 @@
 package com.uni.crimes.database;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
+import android.database.Cursor;
 import android.util.Log;
 
 import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeFts;
+import com.uni.crimes.model.CrimeTombstone;
+import com.uni.crimes.model.CrimeType;
+import com.uni.crimes.model.CrimeTypeMonthCount;
+import com.uni.crimes.model.ImportJob;
+import com.uni.crimes.model.ImportReport;
+import com.uni.crimes.model.LsoaMonthCount;
+import com.uni.crimes.model.OutcomeCount;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Room Database for Crime data storage
  * Handles database creation and provides DAO access
  */
-@Database(entities = {Crime.class}, version = 2, exportSchema = false)
+@Database(entities = {Crime.class, CrimeFts.class, CrimeType.class, CrimeTypeMonthCount.class,
+        LsoaMonthCount.class, OutcomeCount.class, ImportJob.class, CrimeTombstone.class,
+        ImportReport.class},
+        version = 10, exportSchema = true)
 public abstract class CrimeDatabase extends RoomDatabase {
     
     private static final String TAG = "CrimeDatabase";
     private static CrimeDatabase INSTANCE;
     
+    private static final String PREPACKAGED_ASSET = "databases/crime_database.db";
+    
+    private static final int READ_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    // With WAL, readers see the last committed snapshot while a write is in progress,
+    // so reads get one thread per core. SQLite only ever has one writer, so writes
+    // queue on a single thread instead of contending for the lock.
+    private static final ExecutorService READ_EXECUTOR =
+            Executors.newFixedThreadPool(READ_THREADS, namedThreads("crime-db-read"));
+    private static final ExecutorService WRITE_EXECUTOR =
+            Executors.newSingleThreadExecutor(namedThreads("crime-db-write"));
+    // Room runs paging loads and refreshes in transactions on its transaction executor.
+    // Keeping them off WRITE_EXECUTOR means the crime list never waits behind a queued write.
+    private static final ExecutorService TRANSACTION_EXECUTOR =
+            Executors.newSingleThreadExecutor(namedThreads("crime-db-transaction"));
+    
     public abstract CrimeDao crimeDao();
     
+    private final Object crimeIdFilterLock = new Object();
+    private volatile CrimeIdFilter crimeIdFilter;
+    
+    /**
+     * Shared dedup filter of stored crime IDs, loaded on first use
+     * Must not be called on the main thread the first time
+     */
+    public CrimeIdFilter getCrimeIdFilter() {
+        CrimeIdFilter filter = crimeIdFilter;
+        if (filter == null) {
+            synchronized (crimeIdFilterLock) {
+                filter = crimeIdFilter;
+                if (filter == null) {
+                    filter = CrimeIdFilter.load(crimeDao());
+                    crimeIdFilter = filter;
+                }
+            }
+        }
+        return filter;
+    }
+    
+    /**
+     * Drop the dedup filter so the next getCrimeIdFilter() reloads it
+     * For bulk replacements of the crimes table, after which the old hashes mean nothing
+     */
+    public void invalidateCrimeIdFilter() {
+        synchronized (crimeIdFilterLock) {
+            crimeIdFilter = null;
+        }
+    }
+    
+    /**
+     * Installs the parts of the schema Room cannot describe with entities
+     */
+    public static final RoomDatabase.Callback SCHEMA_CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            CrimeSpatialIndex.install(db);
+            CrimeDictionary.install(db);
+            CrimeAggregates.install(db);
+        }
+        
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            // INSERT OR REPLACE must fire the delete triggers of the row it replaces,
+            // otherwise the FTS, rtree and count tables keep entries for the old row
+            db.execSQL("PRAGMA recursive_triggers = ON");
+            CrimeSpatialIndex.checkAvailable(db);
+        }
+    };
+    
+    /**
+     * Runs once when the prepackaged database is copied out of assets
+     * generate<Variant>CrimeDatabase builds every side table at build time, so this only
+     * checks that the asset is complete; a broken asset is a build bug and fails loudly
+     * instead of being rebuilt on every first launch
+     */
+    public static final RoomDatabase.PrepackagedDatabaseCallback PREPACKAGED_CALLBACK =
+            new RoomDatabase.PrepackagedDatabaseCallback() {
+        @Override
+        public void onOpenPrepackagedDatabase(@NonNull SupportSQLiteDatabase db) {
+            List<String> problems = findPrepackagedProblems(db);
+            if (!problems.isEmpty()) {
+                throw new IllegalStateException("Prepackaged database is incomplete: " + problems);
+            }
+            Log.d(TAG, "Prepackaged database verified");
+        }
+    };
+    
+    /**
+     * Cheap completeness checks for a prepackaged file: every side-table trigger exists and
+     * the count tables and dictionary add up to the crimes table. O(groups) plus one
+     * index scan, unlike the full findMismatches diff
+     */
+    static List<String> findPrepackagedProblems(SupportSQLiteDatabase db) {
+        List<String> problems = new ArrayList<>();
+        Set<String> triggers = new HashSet<>();
+        try (Cursor cursor = db.query("SELECT name FROM sqlite_master WHERE type = 'trigger'")) {
+            while (cursor.moveToNext()) {
+                triggers.add(cursor.getString(0));
+            }
+        }
+        for (String trigger : CrimeSideTables.triggerNames()) {
+            if (!triggers.contains(trigger)) {
+                problems.add("missing trigger " + trigger);
+            }
+        }
+
+        long crimes = count(db, "SELECT COUNT(*) FROM crimes");
+        for (CrimeSideTables.Aggregate aggregate : CrimeSideTables.aggregates()) {
+            long total = count(db, "SELECT IFNULL(SUM(crimeCount), 0) FROM `" + aggregate.getTable() + "`");
+            if (total != crimes) {
+                problems.add(aggregate.getTable() + " counts " + total + " of " + crimes + " crimes");
+            }
+        }
+        long types = count(db, "SELECT COUNT(DISTINCT crimeType) FROM crimes");
+        long dictionary = count(db, "SELECT COUNT(*) FROM crime_types");
+        if (dictionary != types) {
+            problems.add("crime_types has " + dictionary + " of " + types + " types");
+        }
+        return problems;
+    }
+    
+    private static long count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+    
     public static synchronized CrimeDatabase getInstance(Context context) {
         if (INSTANCE == null) {
             try {
                 Log.d(TAG, "Creating database instance");
                 INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                         CrimeDatabase.class, "crime_database")
-                        .fallbackToDestructiveMigration() // Handle schema changes
+                        .createFromAsset(PREPACKAGED_ASSET, PREPACKAGED_CALLBACK) // Generated by generate<Variant>CrimeDatabase
+                        .addMigrations(CrimeMigrations.ALL) // Keep imported data across schema changes
+                        .addCallback(SCHEMA_CALLBACK)
+                        .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                        .setQueryExecutor(READ_EXECUTOR)
+                        .setTransactionExecutor(TRANSACTION_EXECUTOR)
                         .build();
                 Log.d(TAG, "Database instance created successfully");
             } catch (Exception e) {
@@ -36,4 +189,31 @@ public abstract class CrimeDatabase extends RoomDatabase {
         }
         return INSTANCE;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Executor for database reads (queries, searches, map loads)
+     * Same pool Room uses for LiveData and paging queries
+     */
+    public static ExecutorService getReadExecutor() {
+        return READ_EXECUTOR;
+    }
+    
+    /**
+     * Executor for short database writes (insert, update, delete, caching a few rows)
+     * Single thread, so writes never wait on each other for the SQLite write lock.
+     * Long jobs such as file imports and snapshots run on their own thread instead,
+     * otherwise every save and delete queues behind them
+     */
+    public static ExecutorService getWriteExecutor() {
+        return WRITE_EXECUTOR;
+    }
+    
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
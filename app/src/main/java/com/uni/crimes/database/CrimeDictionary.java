@@ -0,0 +1,35 @@
+package com.uni.crimes.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Keeps the crime_types lookup table in sync with the crimes table
+ * Entries are only ever added, so dictionary ids stay stable for compact encodings
+ * such as the type ids in CrimePointBuffer
+ * The SQL itself lives in CrimeSideTables, shared with the prepackaged database build
+ */
+public class CrimeDictionary {
+
+    private CrimeDictionary() {}
+
+    /**
+     * Create the lookup table exactly as Room does for the CrimeType entity
+     * Only needed by migrations; fresh databases get it from Room
+     */
+    public static void createTables(SupportSQLiteDatabase db) {
+        for (String sql : CrimeSideTables.dictionaryTables()) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Create the sync triggers and add any values already present in crimes
+     * Safe to call more than once
+     */
+    public static void install(SupportSQLiteDatabase db) {
+        for (String sql : CrimeSideTables.dictionaryTriggers()) {
+            db.execSQL(sql);
+        }
+        db.execSQL(CrimeSideTables.dictionaryBackfill());
+    }
+}
@@ -0,0 +1,73 @@
+package com.uni.crimes.database;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.util.Log;
+
+import com.uni.crimes.utils.LongHashSet;
+
+import java.util.Collection;
+
+/**
+ * In-memory set of the crime IDs already stored, shared by every import and sync path
+ * Loaded once from the crimes table as 64-bit hashes; an ID whose hash is absent is new
+ * without asking SQLite. A hash hit only means "maybe stored", because the set keeps
+ * hashes of deleted rows and two IDs could in principle share a hash, so callers confirm
+ * hits in bulk (CrimeBulkWriter checks a whole batch with one IN query)
+ * Writers add IDs only after the transaction that inserted them has committed
+ */
+public class CrimeIdFilter {
+
+    private static final String TAG = "CrimeIdFilter";
+
+    private final LongHashSet hashes;
+
+    private CrimeIdFilter(LongHashSet hashes) {
+        this.hashes = hashes;
+    }
+
+    /**
+     * Scan every stored crimeId into a new filter
+     * Strings are copied into one reused buffer, so loading allocates no String per row
+     * Must not run on the main thread
+     */
+    static CrimeIdFilter load(CrimeDao crimeDao) {
+        long start = System.currentTimeMillis();
+        LongHashSet hashes;
+        try (Cursor cursor = crimeDao.getCrimeIdsCursor()) {
+            hashes = new LongHashSet(cursor.getCount());
+            CharArrayBuffer buffer = new CharArrayBuffer(32);
+            while (cursor.moveToNext()) {
+                cursor.copyStringToBuffer(0, buffer);
+                hashes.add(LongHashSet.hash(buffer.data, 0, buffer.sizeCopied));
+            }
+        }
+        Log.d(TAG, "Loaded " + hashes.size() + " crime IDs in " + (System.currentTimeMillis() - start) +
+                " ms, " + hashes.footprintBytes() / 1024 + " KB");
+        return new CrimeIdFilter(hashes);
+    }
+
+    /**
+     * @return False only if the ID is definitely not stored
+     */
+    public synchronized boolean mightContain(String crimeId) {
+        return hashes.contains(LongHashSet.hash(crimeId));
+    }
+
+    /**
+     * Record IDs whose rows have been committed
+     */
+    public synchronized void addAll(Collection<String> crimeIds) {
+        for (String crimeId : crimeIds) {
+            hashes.add(LongHashSet.hash(crimeId));
+        }
+    }
+
+    public synchronized void add(String crimeId) {
+        hashes.add(LongHashSet.hash(crimeId));
+    }
+
+    public synchronized int size() {
+        return hashes.size();
+    }
+}
@@ -0,0 +1,155 @@
+package com.uni.crimes.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Explicit schema migrations for CrimeDatabase
+ * Keeps the imported dataset across schema changes instead of wiping it
+ */
+public class CrimeMigrations {
+
+    private CrimeMigrations() {}
+
+    /**
+     * Version 2 -> 3: crimes_fts full-text index over the searchable text columns
+     * Must match the DDL Room generates for the CrimeFts entity
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `crimes_fts` USING FTS4(" +
+                    "`crimeId` TEXT, `crimeType` TEXT, `lsoaName` TEXT, " +
+                    "`outcomeCategory` TEXT, `reportedBy` TEXT, content=`crimes`)");
+
+            String columns = "`crimeId`, `crimeType`, `lsoaName`, `outcomeCategory`, `reportedBy`";
+            String newValues = "NEW.`crimeId`, NEW.`crimeType`, NEW.`lsoaName`, " +
+                    "NEW.`outcomeCategory`, NEW.`reportedBy`";
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_crimes_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `crimes` BEGIN DELETE FROM `crimes_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_crimes_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `crimes` BEGIN DELETE FROM `crimes_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_crimes_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `crimes` BEGIN INSERT INTO `crimes_fts`(`docid`, " + columns + ") " +
+                    "VALUES (NEW.`rowid`, " + newValues + "); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_crimes_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `crimes` BEGIN INSERT INTO `crimes_fts`(`docid`, " + columns + ") " +
+                    "VALUES (NEW.`rowid`, " + newValues + "); END");
+
+            // Index the rows that were imported before the FTS table existed
+            db.execSQL("INSERT INTO `crimes_fts`(`crimes_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Version 3 -> 4: secondary indexes on the filter columns
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_crimes_lsoaName` ON `crimes` (`lsoaName`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_crimes_outcomeCategory` ON `crimes` (`outcomeCategory`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_crimes_month` ON `crimes` (`month`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_crimes_crimeType_month` ON `crimes` (`crimeType`, `month`)");
+        }
+    };
+
+    /**
+     * Version 4 -> 5: R*Tree spatial index for bounding box queries
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            CrimeSpatialIndex.install(db);
+        }
+    };
+
+    /**
+     * Version 5 -> 6: crime_types dictionary, giving each crime type a small stable id
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            CrimeDictionary.createTables(db);
+            CrimeDictionary.install(db);
+        }
+    };
+
+    /**
+     * Version 6 -> 7: trigger-maintained count tables for dashboards
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            CrimeAggregates.createTables(db);
+            CrimeAggregates.install(db);
+            CrimeAggregates.rebuild(db);
+        }
+    };
+
+    /**
+     * Version 7 -> 8: import_jobs checkpoints for resumable file imports
+     * Must match the DDL Room generates for the ImportJob entity
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `import_jobs` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `sourceUri` TEXT NOT NULL, " +
+                    "`displayName` TEXT, `fingerprint` TEXT NOT NULL, " +
+                    "`recordsCommitted` INTEGER NOT NULL, `insertedCount` INTEGER NOT NULL, " +
+                    "`skippedCount` INTEGER NOT NULL, `status` TEXT NOT NULL, " +
+                    "`startedAt` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL)");
+        }
+    };
+
+    /**
+     * Version 8 -> 9: per-crime content hash and tombstones for delta imports
+     * Existing rows keep hash 0, so the first delta import rewrites them once
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `crimes` ADD COLUMN `contentHash` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `crime_tombstones` (`crimeId` TEXT NOT NULL, " +
+                    "`month` TEXT, `removedAt` INTEGER NOT NULL, PRIMARY KEY(`crimeId`))");
+        }
+    };
+
+    /**
+     * Version 9 -> 10: metrics of recent imports
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `import_reports` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `source` TEXT NOT NULL, " +
+                    "`appVersion` TEXT, `status` TEXT NOT NULL, `error` TEXT, " +
+                    "`startedAt` INTEGER NOT NULL, `elapsedMs` INTEGER NOT NULL, " +
+                    "`bytesRead` INTEGER NOT NULL, `rowsParsed` INTEGER NOT NULL, " +
+                    "`rowsRejected` INTEGER NOT NULL, `rejections` TEXT NOT NULL, " +
+                    "`skippedEntries` INTEGER NOT NULL, `dedupHits` INTEGER NOT NULL, " +
+                    "`insertedCount` INTEGER NOT NULL, `changedCount` INTEGER NOT NULL, " +
+                    "`rowsPerSecond` INTEGER NOT NULL, `readerUtilization` REAL NOT NULL, " +
+                    "`parserUtilization` REAL NOT NULL, `writerUtilization` REAL NOT NULL, " +
+                    "`commitCount` INTEGER NOT NULL, `maxCommitMs` INTEGER NOT NULL, " +
+                    "`commitHistogram` TEXT NOT NULL, `throughputIntervalMs` INTEGER NOT NULL, " +
+                    "`throughput` TEXT NOT NULL)");
+        }
+    };
+
+    /**
+     * All migrations in version order, for the database builder and tests
+     */
+    public static final Migration[] ALL = {
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10
+    };
+}
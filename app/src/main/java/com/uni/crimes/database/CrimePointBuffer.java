@@ -0,0 +1,187 @@
+package com.uni.crimes.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+
+import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented crime coordinates for the map
+ * Points are read straight from the cursor into primitive arrays, so loading
+ * N points allocates a handful of arrays instead of N Crime objects
+ */
+public class CrimePointBuffer {
+
+    /**
+     * Columns read by {@link #fromCursor(Cursor, String[])}: rowid, latitude, longitude, crime type id
+     */
+    public static final String PROJECTION = "crimes.rowid, crimes.latitude, crimes.longitude, " +
+            "(SELECT id FROM crime_types WHERE name = crimes.crimeType)";
+
+    private final int size;
+    private final long[] rowIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] typeIds;
+    private final String[] typeNames;
+
+    private CrimePointBuffer(int size, long[] rowIds, double[] latitudes, double[] longitudes,
+                             int[] typeIds, String[] typeNames) {
+        this.size = size;
+        this.rowIds = rowIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.typeIds = typeIds;
+        this.typeNames = typeNames;
+    }
+
+    public static CrimePointBuffer empty() {
+        return new CrimePointBuffer(0, new long[0], new double[0], new double[0], new int[0], new String[0]);
+    }
+
+    /**
+     * Load every crime point in the database
+     */
+    public static CrimePointBuffer loadAll(CrimeDatabase database) {
+        String[] typeNames = loadTypeNames(database);
+        try (Cursor cursor = database.crimeDao().getCrimePointsCursor()) {
+            return fromCursor(cursor, typeNames);
+        }
+    }
+
+    /**
+     * Load the crime points inside a bounding box (uses the rtree index)
+     */
+    public static CrimePointBuffer loadInBounds(CrimeDatabase database,
+                                                double north, double south, double east, double west,
+                                                @Nullable String crimeType, @Nullable String month) {
+        String[] typeNames = loadTypeNames(database);
+        try (Cursor cursor = database.query(CrimeSpatialIndex.boundsQuery(
+                PROJECTION, north, south, east, west, crimeType, month))) {
+            return fromCursor(cursor, typeNames);
+        }
+    }
+
+    /**
+     * Read a cursor over {@link #PROJECTION} into primitive arrays
+     * @param typeNames Crime type names indexed by crime_types id
+     */
+    public static CrimePointBuffer fromCursor(Cursor cursor, String[] typeNames) {
+        int count = cursor.getCount();
+        long[] rowIds = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int[] typeIds = new int[count];
+
+        int i = 0;
+        while (i < count && cursor.moveToNext()) {
+            rowIds[i] = cursor.getLong(0);
+            latitudes[i] = cursor.getDouble(1);
+            longitudes[i] = cursor.getDouble(2);
+            typeIds[i] = cursor.isNull(3) ? 0 : cursor.getInt(3);
+            i++;
+        }
+        return new CrimePointBuffer(i, rowIds, latitudes, longitudes, typeIds, typeNames);
+    }
+
+    /**
+     * Build a buffer from crimes already in memory (e.g. search results)
+     * Row ids are unknown here and set to -1
+     */
+    public static CrimePointBuffer fromCrimes(List<Crime> crimes) {
+        int count = crimes.size();
+        long[] rowIds = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int[] typeIds = new int[count];
+        Map<String, Integer> dictionary = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            Crime crime = crimes.get(i);
+            rowIds[i] = -1;
+            latitudes[i] = crime.getLatitude();
+            longitudes[i] = crime.getLongitude();
+            String type = crime.getCrimeType();
+            if (type != null) {
+                Integer id = dictionary.get(type);
+                if (id == null) {
+                    // Id 0 is reserved for "no type", matching the crime_types ids
+                    id = dictionary.size() + 1;
+                    dictionary.put(type, id);
+                }
+                typeIds[i] = id;
+            }
+        }
+
+        String[] typeNames = new String[dictionary.size() + 1];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            typeNames[entry.getValue()] = entry.getKey();
+        }
+        return new CrimePointBuffer(count, rowIds, latitudes, longitudes, typeIds, typeNames);
+    }
+
+    private static String[] loadTypeNames(CrimeDatabase database) {
+        List<CrimeType> types = database.crimeDao().getCrimeTypesSync();
+        int maxId = 0;
+        for (CrimeType type : types) {
+            maxId = Math.max(maxId, type.getId());
+        }
+        String[] names = new String[maxId + 1];
+        for (CrimeType type : types) {
+            names[type.getId()] = type.getName();
+        }
+        return names;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public long getRowId(int index) { return rowIds[index]; }
+
+    public double getLatitude(int index) { return latitudes[index]; }
+
+    public double getLongitude(int index) { return longitudes[index]; }
+
+    public int getTypeId(int index) { return typeIds[index]; }
+
+    /**
+     * Position of a rowid in a buffer read in rowid order (e.g. {@link #loadAll})
+     * @return Index of the point, or -1 if it is not in the buffer
+     */
+    public int indexOfRowId(long rowId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (rowIds[mid] < rowId) {
+                low = mid + 1;
+            } else if (rowIds[mid] > rowId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Crime type of the point at index, or null if it has none
+     */
+    @Nullable
+    public String getTypeName(int index) {
+        int id = typeIds[index];
+        return id > 0 && id < typeNames.length ? typeNames[id] : null;
+    }
+
+    /**
+     * @return Crime type names indexed by type id (index 0 is unused)
+     */
+    public String[] getTypeNames() { return typeNames; }
+}
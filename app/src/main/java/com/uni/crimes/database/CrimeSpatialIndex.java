@@ -0,0 +1,128 @@
+package com.uni.crimes.database;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite R*Tree spatial index over crime coordinates
+ * Room has no entity support for rtree virtual tables, so the table and the
+ * triggers that keep it in sync with the crimes table are managed here; the
+ * statements come from CrimeSideTables
+ */
+public class CrimeSpatialIndex {
+
+    private static final String TAG = "CrimeSpatialIndex";
+    public static final String TABLE_NAME = CrimeSideTables.SPATIAL_INDEX_TABLE;
+
+    // Not every SQLite build ships the rtree module; fall back to a range scan without it
+    private static volatile boolean available = false;
+
+    private CrimeSpatialIndex() {}
+
+    /**
+     * Create the rtree table and sync triggers, and index any existing rows
+     * Safe to call more than once
+     */
+    public static void install(SupportSQLiteDatabase db) {
+        try {
+            for (String sql : CrimeSideTables.spatialIndex()) {
+                db.execSQL(sql);
+            }
+            db.execSQL(CrimeSideTables.spatialIndexBackfill());
+            available = true;
+            Log.d(TAG, "Spatial index installed");
+        } catch (SQLException e) {
+            available = false;
+            Log.w(TAG, "rtree module not available, bounding box queries will scan", e);
+        }
+    }
+
+    /**
+     * Check whether the rtree table exists in an opened database and this SQLite build can read it
+     * A prepackaged file always contains the table, but a device SQLite without the rtree
+     * module cannot use it; its triggers are dropped then, or every write to crimes would fail
+     */
+    public static void checkAvailable(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT 1 FROM sqlite_master WHERE name = ?",
+                new Object[]{TABLE_NAME})) {
+            available = cursor.moveToFirst();
+        }
+        if (!available) {
+            return;
+        }
+        try (Cursor cursor = db.query("SELECT 1 FROM `" + TABLE_NAME + "` LIMIT 1")) {
+            cursor.moveToFirst();
+        } catch (SQLException e) {
+            available = false;
+            Log.w(TAG, "rtree module not available, dropping spatial index triggers", e);
+            db.execSQL("DROP TRIGGER IF EXISTS crimes_rtree_AFTER_INSERT");
+            db.execSQL("DROP TRIGGER IF EXISTS crimes_rtree_AFTER_UPDATE");
+            db.execSQL("DROP TRIGGER IF EXISTS crimes_rtree_AFTER_DELETE");
+        }
+    }
+
+    public static boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Build a query for all crimes inside a bounding box, in rowid order
+     * The rtree stores 32-bit floats and rounds boxes outward, so exact coordinates are re-checked
+     * @param crimeType Optional exact crime type filter
+     * @param month Optional exact month filter (yyyy-MM)
+     */
+    public static SupportSQLiteQuery boundsQuery(double north, double south, double east, double west,
+                                                 @Nullable String crimeType, @Nullable String month) {
+        return boundsQuery("crimes.*", north, south, east, west, crimeType, month);
+    }
+
+    /**
+     * Same as {@link #boundsQuery(double, double, double, double, String, String)} with a custom projection
+     * @param projection Column list selected from the crimes table
+     */
+    public static SupportSQLiteQuery boundsQuery(String projection,
+                                                 double north, double south, double east, double west,
+                                                 @Nullable String crimeType, @Nullable String month) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection).append(" FROM crimes");
+        List<Object> args = new ArrayList<>();
+
+        if (available) {
+            sql.append(" JOIN " + TABLE_NAME + " r ON r.id = crimes.rowid" +
+                    " WHERE r.minLat <= ? AND r.maxLat >= ? AND r.minLng <= ? AND r.maxLng >= ? AND");
+            args.add(north);
+            args.add(south);
+            args.add(east);
+            args.add(west);
+        } else {
+            sql.append(" WHERE");
+        }
+
+        sql.append(" crimes.latitude BETWEEN ? AND ? AND crimes.longitude BETWEEN ? AND ?");
+        args.add(south);
+        args.add(north);
+        args.add(west);
+        args.add(east);
+
+        if (crimeType != null) {
+            sql.append(" AND crimes.crimeType = ?");
+            args.add(crimeType);
+        }
+        if (month != null) {
+            sql.append(" AND crimes.month = ?");
+            args.add(month);
+        }
+
+        // Rowid order, so a CrimePointBuffer read from it can look rows up by rowid
+        sql.append(" ORDER BY crimes.rowid");
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+}
@@ -0,0 +1,537 @@
+package com.uni.crimes.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zoom-aware point clustering for the crime map (the supercluster approach)
+ *
+ * Points are projected to Web Mercator in [0, 1] and kept in one level per zoom from
+ * maxZoom + 1 (the points themselves) down to minZoom. Each level is built from the
+ * one below it: every entry absorbs the unclaimed neighbours found through that
+ * level's KD-tree within radius pixels at that zoom, and the cluster sits at their
+ * weighted centroid. A viewport query is then one KD-tree range search on the
+ * level of the current zoom, so the map draws hundreds of entries instead of every crime
+ *
+ * Inserts and removals update the levels in place: a removal walks up the parent
+ * links decrementing counts, an insert joins the nearest entry in range at each zoom
+ * or becomes a new entry at that zoom. New entries are scanned linearly until enough
+ * of them pile up to justify rebuilding the KD-trees
+ * Not thread safe: build, update and query from one thread (or synchronize)
+ */
+public class ClusterIndex {
+
+    public static final int DEFAULT_MIN_ZOOM = 0;
+    public static final int DEFAULT_MAX_ZOOM = 16;
+    // Cluster radius in screen pixels, relative to a tile of DEFAULT_EXTENT pixels
+    public static final double DEFAULT_RADIUS = 60;
+    public static final double DEFAULT_EXTENT = 512;
+
+    private static final int NODE_SIZE = 64;
+    // Rebuild once this many entries (or 1/8 of the points, if more) sit outside the trees
+    private static final int MIN_PENDING_FOR_REBUILD = 1024;
+    private static final long NO_POINT = -1;
+    // Key bit of entries made by Cluster.single, outside the level | entry keys of getClusters
+    private static final long SINGLE_KEY = 1L << 62;
+
+    /**
+     * One entry to draw: a single crime or a cluster of several
+     */
+    public static class Cluster {
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+        private final int count;
+        private final long pointId;
+
+        Cluster(long id, double latitude, double longitude, int count, long pointId) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.pointId = pointId;
+        }
+
+        /**
+         * Stable key of the entry within its zoom level, e.g. for diffing what is drawn
+         * An entry keeps its key while its count and position change
+         */
+        public long getId() { return id; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public int getCount() { return count; }
+
+        /**
+         * @return Id passed in for the crime, or -1 for a cluster
+         */
+        public long getPointId() { return pointId; }
+
+        public boolean isCluster() { return count > 1; }
+
+        /**
+         * A single crime found outside the index, e.g. read from the database at street
+         * zoom; keyed by its point id so it keeps its key across queries
+         */
+        public static Cluster single(long pointId, double latitude, double longitude) {
+            return new Cluster(SINGLE_KEY | pointId, latitude, longitude, 1, pointId);
+        }
+    }
+
+    /**
+     * Entries of one zoom level; positions are weighted sums so counts can change
+     */
+    private static final class Level {
+        int size = 0;
+        double[] sumX;
+        double[] sumY;
+        int[] count;
+        // Entry of the next coarser level that contains this one, -1 on the coarsest
+        int[] parent;
+        // Wrapping sum of the crime ids inside, so it is the crime id whenever the
+        // entry holds a single crime, including after removals shrink a cluster to one
+        long[] idSum;
+        KdTree tree;
+
+        Level(int capacity) {
+            capacity = Math.max(16, capacity);
+            sumX = new double[capacity];
+            sumY = new double[capacity];
+            count = new int[capacity];
+            parent = new int[capacity];
+            idSum = new long[capacity];
+        }
+
+        int add(double sumX, double sumY, int count, long idSum) {
+            if (size == this.count.length) {
+                int capacity = size * 2;
+                this.sumX = Arrays.copyOf(this.sumX, capacity);
+                this.sumY = Arrays.copyOf(this.sumY, capacity);
+                this.count = Arrays.copyOf(this.count, capacity);
+                this.parent = Arrays.copyOf(this.parent, capacity);
+                this.idSum = Arrays.copyOf(this.idSum, capacity);
+            }
+            this.sumX[size] = sumX;
+            this.sumY[size] = sumY;
+            this.count[size] = count;
+            this.parent[size] = -1;
+            this.idSum[size] = idSum;
+            return size++;
+        }
+
+        long pointId(int i) { return count[i] == 1 ? idSum[i] : NO_POINT; }
+
+        double x(int i) { return sumX[i] / count[i]; }
+        double y(int i) { return sumY[i] / count[i]; }
+
+        void index() {
+            double[] x = new double[size];
+            double[] y = new double[size];
+            for (int i = 0; i < size; i++) {
+                x[i] = count[i] > 0 ? x(i) : sumX[i];
+                y[i] = count[i] > 0 ? y(i) : sumY[i];
+            }
+            tree = new KdTree(x, y, size, NODE_SIZE);
+        }
+
+        int pending() {
+            return size - tree.size();
+        }
+
+        void range(double minX, double minY, double maxX, double maxY, KdTree.IntList out) {
+            tree.range(minX, minY, maxX, maxY, out);
+            for (int i = tree.size(); i < size; i++) {
+                if (count[i] > 0) {
+                    double x = x(i);
+                    double y = y(i);
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        out.add(i);
+                    }
+                }
+            }
+        }
+
+        void within(double qx, double qy, double radius, KdTree.IntList out) {
+            tree.within(qx, qy, radius, out);
+            double r2 = radius * radius;
+            for (int i = tree.size(); i < size; i++) {
+                if (count[i] > 0) {
+                    double dx = x(i) - qx;
+                    double dy = y(i) - qy;
+                    if (dx * dx + dy * dy <= r2) {
+                        out.add(i);
+                    }
+                }
+            }
+        }
+    }
+
+    private final int minZoom;
+    private final int maxZoom;
+    private final double radius;
+    private final double extent;
+
+    // levels[z - minZoom] for z in minZoom..maxZoom + 1; the last one holds the points
+    private Level[] levels;
+    // Point ids sorted, with the point entry of each, for removal by id
+    private long[] sortedIds;
+    private int[] sortedEntries;
+    // Points inserted since the last build
+    private final Map<Long, Integer> insertedEntries = new HashMap<>();
+    private int liveCount = 0;
+    private final KdTree.IntList scratch = new KdTree.IntList();
+
+    public ClusterIndex() {
+        this(DEFAULT_MIN_ZOOM, DEFAULT_MAX_ZOOM, DEFAULT_RADIUS, DEFAULT_EXTENT);
+    }
+
+    public ClusterIndex(int minZoom, int maxZoom, double radius, double extent) {
+        if (minZoom < 0 || maxZoom < minZoom || radius <= 0 || extent <= 0) {
+            throw new IllegalArgumentException("Invalid cluster options " + minZoom + ".." + maxZoom +
+                    ", radius " + radius + ", extent " + extent);
+        }
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.radius = radius;
+        this.extent = extent;
+        build(new double[0], new double[0], new long[0], 0);
+    }
+
+    /**
+     * Replace the index contents with the given points
+     * @param ids Caller's id per point (e.g. crimes rowid), returned by Cluster.getPointId()
+     *            and used by remove(); should be unique
+     */
+    public void load(double[] latitudes, double[] longitudes, long[] ids, int size) {
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = lngX(longitudes[i]);
+            y[i] = latY(latitudes[i]);
+        }
+        build(x, y, ids, size);
+    }
+
+    /**
+     * Number of points currently indexed
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Zoom level whose clusters are shown at a (fractional) map zoom
+     */
+    int levelZoom(double zoom) {
+        return Math.max(minZoom, Math.min((int) Math.floor(zoom), maxZoom + 1));
+    }
+
+    /**
+     * Clusters and single points of the given zoom inside the bounding box
+     * Boxes crossing the antimeridian (west > east) are split in two
+     */
+    public List<Cluster> getClusters(double west, double south, double east, double north, double zoom) {
+        int z = levelZoom(zoom);
+        Level level = levels[z - minZoom];
+        scratch.clear();
+
+        double minY = latY(north);
+        double maxY = latY(south);
+        if (east - west >= 360) {
+            level.range(0, minY, 1, maxY, scratch);
+        } else {
+            double w = wrapLng(west);
+            double e = east == 180 ? 180 : wrapLng(east);
+            if (w > e) {
+                level.range(lngX(w), minY, 1, maxY, scratch);
+                level.range(0, minY, lngX(e), maxY, scratch);
+            } else {
+                level.range(lngX(w), minY, lngX(e), maxY, scratch);
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<>(scratch.size());
+        long levelKey = (long) (z - minZoom) << 32;
+        for (int i = 0; i < scratch.size(); i++) {
+            int entry = scratch.get(i);
+            int count = level.count[entry];
+            if (count > 0) {
+                clusters.add(new Cluster(levelKey | entry, yLat(level.y(entry)), xLng(level.x(entry)),
+                        count, level.pointId(entry)));
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Add one point without rebuilding
+     */
+    public void insert(long id, double latitude, double longitude) {
+        double x = lngX(longitude);
+        double y = latY(latitude);
+        Level points = levels[levels.length - 1];
+        int child = points.add(x, y, 1, id);
+        insertedEntries.put(id, child);
+        liveCount++;
+
+        for (int z = maxZoom; z >= minZoom; z--) {
+            Level level = levels[z - minZoom];
+            Level below = levels[z + 1 - minZoom];
+            int nearest = nearest(level, x, y, zoomRadius(z));
+            if (nearest < 0) {
+                // Nothing in range at this zoom either; the point stands alone here
+                child = below.parent[child] = level.add(x, y, 1, id);
+                continue;
+            }
+            below.parent[child] = nearest;
+            // Join the entry and every coarser entry that contains it
+            for (int e = nearest, lz = z; e >= 0; lz--) {
+                Level l = levels[lz - minZoom];
+                l.count[e]++;
+                l.sumX[e] += x;
+                l.sumY[e] += y;
+                l.idSum[e] += id;
+                e = l.parent[e];
+            }
+            break;
+        }
+
+        if (pendingEntries() > Math.max(MIN_PENDING_FOR_REBUILD, liveCount / 8)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Remove the point with this id
+     * @return False if no such point is indexed
+     */
+    public boolean remove(long id) {
+        Level points = levels[levels.length - 1];
+        Integer inserted = insertedEntries.remove(id);
+        int entry = inserted != null ? inserted : builtEntry(id);
+        if (entry < 0 || points.count[entry] == 0) {
+            return false;
+        }
+        double x = points.sumX[entry];
+        double y = points.sumY[entry];
+        points.count[entry] = 0;
+        liveCount--;
+
+        int e = points.parent[entry];
+        for (int lz = maxZoom; e >= 0; lz--) {
+            Level l = levels[lz - minZoom];
+            l.count[e]--;
+            l.sumX[e] -= x;
+            l.sumY[e] -= y;
+            l.idSum[e] -= id;
+            e = l.parent[e];
+        }
+        return true;
+    }
+
+    private void build(double[] x, double[] y, long[] ids, int size) {
+        levels = new Level[maxZoom - minZoom + 2];
+        Level points = new Level(size);
+        for (int i = 0; i < size; i++) {
+            points.add(x[i], y[i], 1, ids[i]);
+        }
+        points.index();
+        levels[levels.length - 1] = points;
+        for (int z = maxZoom; z >= minZoom; z--) {
+            Level level = cluster(levels[z + 1 - minZoom], z);
+            level.index();
+            levels[z - minZoom] = level;
+        }
+
+        sortedIds = Arrays.copyOf(ids, size);
+        sortedEntries = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedEntries[i] = i;
+        }
+        sortById(0, size - 1);
+        insertedEntries.clear();
+        liveCount = size;
+    }
+
+    /**
+     * Build the level for zoom z from the finer level below it
+     */
+    private Level cluster(Level below, int z) {
+        double r = zoomRadius(z);
+        Level level = new Level(below.size / 2);
+        boolean[] claimed = new boolean[below.size];
+        KdTree.IntList neighbours = new KdTree.IntList();
+
+        for (int i = 0; i < below.size; i++) {
+            if (claimed[i] || below.count[i] == 0) {
+                continue;
+            }
+            claimed[i] = true;
+            neighbours.clear();
+            below.within(below.x(i), below.y(i), r, neighbours);
+
+            int count = below.count[i];
+            double sumX = below.sumX[i];
+            double sumY = below.sumY[i];
+            long idSum = below.idSum[i];
+            int absorbed = 0;
+            for (int n = 0; n < neighbours.size(); n++) {
+                int b = neighbours.get(n);
+                if (!claimed[b] && below.count[b] > 0) {
+                    claimed[b] = true;
+                    count += below.count[b];
+                    sumX += below.sumX[b];
+                    sumY += below.sumY[b];
+                    idSum += below.idSum[b];
+                    neighbours.set(absorbed++, b);
+                }
+            }
+
+            int entry = level.add(sumX, sumY, count, idSum);
+            below.parent[i] = entry;
+            for (int n = 0; n < absorbed; n++) {
+                below.parent[neighbours.get(n)] = entry;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Rebuild every level from the live points, folding in pending inserts
+     */
+    private void rebuild() {
+        Level points = levels[levels.length - 1];
+        double[] x = new double[liveCount];
+        double[] y = new double[liveCount];
+        long[] ids = new long[liveCount];
+        int n = 0;
+        for (int i = 0; i < points.size; i++) {
+            if (points.count[i] > 0) {
+                x[n] = points.sumX[i];
+                y[n] = points.sumY[i];
+                ids[n] = points.idSum[i];
+                n++;
+            }
+        }
+        build(x, y, ids, n);
+    }
+
+    private int pendingEntries() {
+        int pending = 0;
+        for (Level level : levels) {
+            pending += level.pending();
+        }
+        return pending;
+    }
+
+    private int nearest(Level level, double x, double y, double r) {
+        scratch.clear();
+        level.within(x, y, r, scratch);
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < scratch.size(); i++) {
+            int e = scratch.get(i);
+            if (level.count[e] == 0) {
+                continue;
+            }
+            double dx = level.x(e) - x;
+            double dy = level.y(e) - y;
+            double d = dx * dx + dy * dy;
+            if (d < best) {
+                best = d;
+                nearest = e;
+            }
+        }
+        return nearest;
+    }
+
+    private double zoomRadius(int z) {
+        return radius / (extent * Math.pow(2, z));
+    }
+
+    private int builtEntry(long id) {
+        int low = 0;
+        int high = sortedIds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (sortedIds[mid] < id) {
+                low = mid + 1;
+            } else if (sortedIds[mid] > id) {
+                high = mid - 1;
+            } else {
+                return sortedEntries[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sort sortedIds with sortedEntries alongside; ids from a rowid scan are usually
+     * already in order, which the first check catches
+     */
+    private void sortById(int left, int right) {
+        boolean sorted = true;
+        for (int i = left; i < right && sorted; i++) {
+            sorted = sortedIds[i] <= sortedIds[i + 1];
+        }
+        if (sorted) {
+            return;
+        }
+        while (left < right) {
+            long pivot = sortedIds[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (sortedIds[i] < pivot) i++;
+                while (sortedIds[j] > pivot) j--;
+                if (i <= j) {
+                    long id = sortedIds[i];
+                    sortedIds[i] = sortedIds[j];
+                    sortedIds[j] = id;
+                    int entry = sortedEntries[i];
+                    sortedEntries[i] = sortedEntries[j];
+                    sortedEntries[j] = entry;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller side, loop on the larger one
+            if (j - left < right - i) {
+                sortById(left, j);
+                left = i;
+            } else {
+                sortById(i, right);
+                right = j;
+            }
+        }
+    }
+
+    static double wrapLng(double lng) {
+        return ((lng + 180) % 360 + 360) % 360 - 180;
+    }
+
+    static double lngX(double lng) {
+        return lng / 360 + 0.5;
+    }
+
+    static double latY(double lat) {
+        double sin = Math.sin(lat * Math.PI / 180);
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return y < 0 ? 0 : y > 1 ? 1 : y;
+    }
+
+    static double xLng(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    static double yLat(double y) {
+        double y2 = (180 - y * 360) * Math.PI / 180;
+        return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+    }
+}
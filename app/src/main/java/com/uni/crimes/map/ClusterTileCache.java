@@ -0,0 +1,111 @@
+package com.uni.crimes.map;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LRU cache of cluster queries per map tile
+ * A viewport is answered tile by tile on the grid of its zoom level, so panning back
+ * to a recently visited area, or nudging the camera within the same tiles, reuses
+ * earlier results instead of querying the index again
+ * Must be invalidated whenever the index changes; not thread safe (use it on the
+ * thread that owns the index)
+ */
+public class ClusterTileCache {
+
+    public static final int DEFAULT_MAX_TILES = 64;
+
+    private final ClusterIndex index;
+    private final Map<Long, List<ClusterIndex.Cluster>> tiles;
+    private int hits = 0;
+    private int misses = 0;
+
+    public ClusterTileCache(ClusterIndex index) {
+        this(index, DEFAULT_MAX_TILES);
+    }
+
+    public ClusterTileCache(ClusterIndex index, int maxTiles) {
+        this.index = index;
+        // Access order, so the eldest entry is the least recently used tile
+        this.tiles = new LinkedHashMap<Long, List<ClusterIndex.Cluster>>(maxTiles * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<ClusterIndex.Cluster>> eldest) {
+                return size() > maxTiles;
+            }
+        };
+    }
+
+    /**
+     * Clusters of every tile the bounding box touches, each cluster once
+     * The result can extend past the box up to the edges of those tiles
+     */
+    public List<ClusterIndex.Cluster> getClusters(double west, double south, double east, double north, double zoom) {
+        int z = index.levelZoom(zoom);
+        int n = 1 << z;
+        double minX = 0;
+        double maxX = 1;
+        if (east - west < 360) {
+            double w = ClusterIndex.wrapLng(west);
+            double e = east == 180 ? 180 : ClusterIndex.wrapLng(east);
+            minX = ClusterIndex.lngX(w);
+            maxX = ClusterIndex.lngX(e);
+            if (w > e) {
+                // Across the antimeridian: keep going east and wrap the tile column
+                maxX += 1;
+            }
+        }
+        int minTileX = (int) Math.floor(minX * n);
+        int maxTileX = Math.min((int) Math.floor(maxX * n), minTileX + n - 1);
+        int minTileY = clamp((int) Math.floor(ClusterIndex.latY(north) * n), n);
+        int maxTileY = clamp((int) Math.floor(ClusterIndex.latY(south) * n), n);
+
+        List<ClusterIndex.Cluster> clusters = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int tx = minTileX; tx <= maxTileX; tx++) {
+            int x = ((tx % n) + n) % n;
+            for (int y = minTileY; y <= maxTileY; y++) {
+                for (ClusterIndex.Cluster cluster : tile(z, x, y)) {
+                    // Entries on a shared tile edge come back from both tiles
+                    if (seen.add(cluster.getId())) {
+                        clusters.add(cluster);
+                    }
+                }
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Drop every cached tile; call after loading, inserting into or removing from the index
+     */
+    public void invalidate() {
+        tiles.clear();
+    }
+
+    public int getHits() { return hits; }
+
+    public int getMisses() { return misses; }
+
+    private List<ClusterIndex.Cluster> tile(int z, int x, int y) {
+        long key = ((long) z << 58) | ((long) x << 29) | y;
+        List<ClusterIndex.Cluster> clusters = tiles.get(key);
+        if (clusters != null) {
+            hits++;
+            return clusters;
+        }
+        misses++;
+        double n = 1 << z;
+        clusters = index.getClusters(ClusterIndex.xLng(x / n), ClusterIndex.yLat((y + 1) / n),
+                ClusterIndex.xLng((x + 1) / n), ClusterIndex.yLat(y / n), z);
+        tiles.put(key, clusters);
+        return clusters;
+    }
+
+    private static int clamp(int tile, int n) {
+        return tile < 0 ? 0 : tile >= n ? n - 1 : tile;
+    }
+}
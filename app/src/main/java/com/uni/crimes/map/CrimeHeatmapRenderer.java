@@ -0,0 +1,83 @@
+package com.uni.crimes.map;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.maps.Style;
+import com.mapbox.maps.extension.style.expressions.generated.Expression;
+import com.mapbox.maps.extension.style.layers.LayerUtils;
+import com.mapbox.maps.extension.style.layers.generated.HeatmapLayer;
+import com.mapbox.maps.extension.style.sources.SourceUtils;
+import com.mapbox.maps.extension.style.sources.generated.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws a DensityGrid as a heatmap layer
+ * Each non-empty cell becomes one weighted point, so the heatmap costs one feature per
+ * cell on screen however many crimes the cells hold
+ */
+public class CrimeHeatmapRenderer {
+
+    private static final String SOURCE_ID = "crime-density-source";
+    private static final String HEATMAP_LAYER_ID = "crime-density-heatmap";
+    // Cell count relative to the busiest cell of the whole grid at this resolution, 0-1
+    private static final String PROPERTY_WEIGHT = "weight";
+
+    private final GeoJsonSource source;
+
+    /**
+     * Add the source and heatmap layer to a loaded style
+     */
+    public CrimeHeatmapRenderer(Style style) {
+        source = new GeoJsonSource.Builder(SOURCE_ID)
+                .featureCollection(emptyFeatures())
+                .build();
+        SourceUtils.addSource(style, source);
+
+        HeatmapLayer heatmap = new HeatmapLayer(HEATMAP_LAYER_ID, SOURCE_ID)
+                .heatmapWeight(Expression.get(PROPERTY_WEIGHT))
+                .heatmapIntensity(Expression.interpolate(
+                        Expression.linear(), Expression.zoom(),
+                        Expression.literal(6.0), Expression.literal(1.0),
+                        Expression.literal(14.0), Expression.literal(3.0)))
+                .heatmapRadius(30.0)
+                .heatmapOpacity(0.8);
+        LayerUtils.addLayer(style, heatmap);
+    }
+
+    /**
+     * Build the features for the cells of one grid resolution inside a bounding box;
+     * safe to call on any thread that may read the grid
+     * Weights are scaled by the grid-wide maximum, so panning does not change a cell's
+     * colour and a quiet area does not look as hot as the city centre
+     * @param typeId Crime type id to show, or DensityGrid.ALL_TYPES
+     */
+    public static FeatureCollection toFeatures(DensityGrid grid, int level, int typeId,
+                                               double west, double south, double east, double north) {
+        double maxCount = Math.max(1, grid.getMaxCount(level, typeId));
+        List<Feature> features = new ArrayList<>();
+        grid.forEachCell(level, typeId, west, south, east, north, (latitude, longitude, count) -> {
+            Feature feature = Feature.fromGeometry(Point.fromLngLat(longitude, latitude));
+            feature.addNumberProperty(PROPERTY_WEIGHT, count / maxCount);
+            features.add(feature);
+        });
+        return FeatureCollection.fromFeatures(features);
+    }
+
+    /**
+     * Replace the heatmap with these features
+     */
+    public void show(FeatureCollection features) {
+        source.featureCollection(features);
+    }
+
+    public void clear() {
+        show(emptyFeatures());
+    }
+
+    private static FeatureCollection emptyFeatures() {
+        return FeatureCollection.fromFeatures(new ArrayList<>());
+    }
+}
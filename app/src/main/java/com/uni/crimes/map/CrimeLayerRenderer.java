@@ -0,0 +1,142 @@
+package com.uni.crimes.map;
+
+import android.graphics.Color;
+
+import androidx.annotation.Nullable;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.maps.Style;
+import com.mapbox.maps.extension.style.expressions.generated.Expression;
+import com.mapbox.maps.extension.style.layers.LayerUtils;
+import com.mapbox.maps.extension.style.layers.generated.CircleLayer;
+import com.mapbox.maps.extension.style.layers.generated.SymbolLayer;
+import com.mapbox.maps.extension.style.sources.SourceUtils;
+import com.mapbox.maps.extension.style.sources.generated.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws clusters through one GeoJSON source and two style layers instead of annotations
+ * Every update replaces the source's whole FeatureCollection in one call, so the map
+ * swaps from one set of markers to the next atomically; the collection itself is
+ * built off the main thread with {@link #toFeatures}
+ */
+public class CrimeLayerRenderer {
+
+    private static final String SOURCE_ID = "crimes-source";
+    private static final String CIRCLE_LAYER_ID = "crimes-circles";
+    private static final String LABEL_LAYER_ID = "crimes-labels";
+
+    private static final String PROPERTY_COUNT = "count";
+    private static final String PROPERTY_CRIME_TYPE = "crimeType";
+    // Only clusters have a label, so it also tells clusters from single crimes
+    private static final String PROPERTY_LABEL = "label";
+
+    private static final int CLUSTER_COLOR = 0xFF3949AB;
+    private static final int OTHER_COLOR = 0xFF757575;
+
+    // police.uk crime categories and their colours on the map
+    private static final String[] CRIME_TYPES = {
+            "Anti-social behaviour", "Bicycle theft", "Burglary", "Criminal damage and arson",
+            "Drugs", "Other crime", "Other theft", "Possession of weapons", "Public order",
+            "Robbery", "Shoplifting", "Theft from the person", "Vehicle crime",
+            "Violence and sexual offences"
+    };
+    private static final int[] CRIME_TYPE_COLORS = {
+            0xFFFFB300, 0xFF00ACC1, 0xFF8E24AA, 0xFFF4511E,
+            0xFF43A047, 0xFF6D4C41, 0xFF7CB342, 0xFF212121, 0xFFFB8C00,
+            0xFFD81B60, 0xFF039BE5, 0xFF5E35B1, 0xFF00897B,
+            0xFFE53935
+    };
+
+    /**
+     * Crime type of an indexed point, looked up by its ClusterIndex point id
+     */
+    public interface CrimeTypeLookup {
+        @Nullable
+        String crimeTypeOf(long pointId);
+    }
+
+    private final GeoJsonSource source;
+
+    /**
+     * Add the source and layers to a loaded style
+     */
+    public CrimeLayerRenderer(Style style) {
+        source = new GeoJsonSource.Builder(SOURCE_ID)
+                .featureCollection(emptyFeatures())
+                .build();
+        SourceUtils.addSource(style, source);
+
+        CircleLayer circles = new CircleLayer(CIRCLE_LAYER_ID, SOURCE_ID)
+                .circleColor(Expression.switchCase(
+                        Expression.has(PROPERTY_LABEL), Expression.color(CLUSTER_COLOR),
+                        crimeTypeColor()))
+                .circleRadius(Expression.interpolate(
+                        Expression.linear(), Expression.get(PROPERTY_COUNT),
+                        Expression.literal(1.0), Expression.literal(6.0),
+                        Expression.literal(100.0), Expression.literal(14.0),
+                        Expression.literal(10000.0), Expression.literal(24.0)))
+                .circleOpacity(0.85)
+                .circleStrokeColor(Color.WHITE)
+                .circleStrokeWidth(1.0);
+        LayerUtils.addLayer(style, circles);
+
+        SymbolLayer labels = new SymbolLayer(LABEL_LAYER_ID, SOURCE_ID)
+                .filter(Expression.has(PROPERTY_LABEL))
+                .textField(Expression.get(PROPERTY_LABEL))
+                .textSize(11.0)
+                .textColor(Color.WHITE)
+                .textAllowOverlap(true)
+                .textIgnorePlacement(true);
+        LayerUtils.addLayer(style, labels);
+    }
+
+    /**
+     * Build the features for a set of clusters; safe to call on any thread
+     */
+    public static FeatureCollection toFeatures(List<ClusterIndex.Cluster> clusters, CrimeTypeLookup lookup) {
+        List<Feature> features = new ArrayList<>(clusters.size());
+        for (ClusterIndex.Cluster cluster : clusters) {
+            Feature feature = Feature.fromGeometry(Point.fromLngLat(cluster.getLongitude(), cluster.getLatitude()));
+            feature.addNumberProperty(PROPERTY_COUNT, cluster.getCount());
+            if (cluster.isCluster()) {
+                feature.addStringProperty(PROPERTY_LABEL, String.valueOf(cluster.getCount()));
+            } else {
+                String crimeType = cluster.getPointId() >= 0 ? lookup.crimeTypeOf(cluster.getPointId()) : null;
+                feature.addStringProperty(PROPERTY_CRIME_TYPE, crimeType != null ? crimeType : "");
+            }
+            features.add(feature);
+        }
+        return FeatureCollection.fromFeatures(features);
+    }
+
+    /**
+     * Replace everything drawn with these features
+     */
+    public void show(FeatureCollection features) {
+        source.featureCollection(features);
+    }
+
+    public void clear() {
+        show(emptyFeatures());
+    }
+
+    private static Expression crimeTypeColor() {
+        Expression[] match = new Expression[CRIME_TYPES.length * 2 + 2];
+        match[0] = Expression.get(PROPERTY_CRIME_TYPE);
+        for (int i = 0; i < CRIME_TYPES.length; i++) {
+            match[2 * i + 1] = Expression.literal(CRIME_TYPES[i]);
+            match[2 * i + 2] = Expression.color(CRIME_TYPE_COLORS[i]);
+        }
+        match[match.length - 1] = Expression.color(OTHER_COLOR);
+        return Expression.match(match);
+    }
+
+    private static FeatureCollection emptyFeatures() {
+        return FeatureCollection.fromFeatures(new ArrayList<>());
+    }
+}
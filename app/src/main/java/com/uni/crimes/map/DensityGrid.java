@@ -0,0 +1,311 @@
+package com.uni.crimes.map;
+
+import com.uni.crimes.config.MapboxConfig;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Crime counts per grid cell and crime type over a fixed bounding box, for the heatmap
+ *
+ * The box is cut into fixed-size cells at several resolutions, each with cells twice as
+ * wide and tall as the next finer one. Every resolution keeps one count array per crime
+ * type plus one for all types, so switching the crime type filter only picks another
+ * array. The finest resolution is counted in parallel with fork/join and the coarser
+ * ones are summed from it; after that, add() and remove() keep every resolution current
+ * Not thread safe once built: update and read from one thread (or synchronize)
+ */
+public class DensityGrid {
+
+    public static final int ALL_TYPES = -1;
+
+    // Columns of the finest resolution; cells are about 1 km wide over Yorkshire
+    static final int FINEST_COLUMNS = 128;
+    static final int RESOLUTIONS = 4;
+    // Use the finest resolution whose cells are at least this many pixels wide on screen
+    private static final double MIN_CELL_PIXELS = 16;
+    // Smallest share of points one fork/join task counts on its own
+    private static final int MIN_POINTS_PER_TASK = 65536;
+
+    /**
+     * Receives the non-empty cells of a query
+     */
+    public interface CellVisitor {
+        void visit(double latitude, double longitude, int count);
+    }
+
+    private static final class Level {
+        final int columns;
+        final int rows;
+        final double cellWidth;
+        final double cellHeight;
+        // byType[typeId][row * columns + column]
+        final int[][] byType;
+        final int[] total;
+
+        Level(int columns, int rows, double cellWidth, double cellHeight, int typeCount) {
+            this.columns = columns;
+            this.rows = rows;
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+            this.byType = new int[typeCount][columns * rows];
+            this.total = new int[columns * rows];
+        }
+
+        int column(double longitude, double west) {
+            return Math.min(columns - 1, (int) ((longitude - west) / cellWidth));
+        }
+
+        int row(double latitude, double south) {
+            return Math.min(rows - 1, (int) ((latitude - south) / cellHeight));
+        }
+    }
+
+    private final double west;
+    private final double south;
+    private final double east;
+    private final double north;
+    private final int typeCount;
+    // levels[0] is the coarsest
+    private final Level[] levels = new Level[RESOLUTIONS];
+    private int outside = 0;
+
+    /**
+     * @param typeCount Number of crime type ids, as in CrimePointBuffer.getTypeNames()
+     */
+    public DensityGrid(double west, double south, double east, double north, int typeCount) {
+        if (west >= east || south >= north || typeCount < 1) {
+            throw new IllegalArgumentException("Invalid density grid " + west + "," + south + "," +
+                    east + "," + north + " with " + typeCount + " types");
+        }
+        this.west = west;
+        this.south = south;
+        this.east = east;
+        this.north = north;
+        this.typeCount = typeCount;
+
+        // Square cells on the ground at the box's middle latitude
+        double cellWidth = (east - west) / FINEST_COLUMNS;
+        double cellHeight = cellWidth * Math.cos(Math.toRadians((south + north) / 2));
+        int columns = FINEST_COLUMNS;
+        int rows = (int) Math.ceil((north - south) / cellHeight);
+        for (int i = RESOLUTIONS - 1; i >= 0; i--) {
+            levels[i] = new Level(columns, rows, cellWidth, cellHeight, typeCount);
+            columns = (columns + 1) / 2;
+            rows = (rows + 1) / 2;
+            cellWidth *= 2;
+            cellHeight *= 2;
+        }
+    }
+
+    /**
+     * Grid over MapboxConfig's Yorkshire bounds
+     */
+    public static DensityGrid forYorkshire(int typeCount) {
+        return new DensityGrid(MapboxConfig.YORKSHIRE_WEST, MapboxConfig.YORKSHIRE_SOUTH,
+                MapboxConfig.YORKSHIRE_EAST, MapboxConfig.YORKSHIRE_NORTH, typeCount);
+    }
+
+    /**
+     * Count a batch of points into an empty grid, splitting the work across the pool
+     * @param typeIds Crime type id per point, each below typeCount
+     */
+    public void addAll(double[] latitudes, double[] longitudes, int[] typeIds, int size, ForkJoinPool pool) {
+        int perTask = Math.max(MIN_POINTS_PER_TASK, (size + pool.getParallelism() - 1) / pool.getParallelism());
+        Counts counts = pool.invoke(new CountTask(latitudes, longitudes, typeIds, 0, size, perTask));
+        outside += counts.outside;
+
+        Level finest = levels[RESOLUTIONS - 1];
+        for (int type = 0; type < typeCount; type++) {
+            int[] from = counts.byType[type];
+            int[] to = finest.byType[type];
+            for (int cell = 0; cell < to.length; cell++) {
+                to[cell] += from[cell];
+                finest.total[cell] += from[cell];
+            }
+        }
+        for (int i = RESOLUTIONS - 2; i >= 0; i--) {
+            sumInto(levels[i + 1], levels[i]);
+        }
+    }
+
+    public void add(double latitude, double longitude, int typeId) {
+        update(latitude, longitude, typeId, 1);
+    }
+
+    public void remove(double latitude, double longitude, int typeId) {
+        update(latitude, longitude, typeId, -1);
+    }
+
+    public int getTypeCount() { return typeCount; }
+
+    /**
+     * Points that fell outside the grid's box and were not counted
+     */
+    public int getOutside() { return outside; }
+
+    /**
+     * Resolution to draw at a map zoom: the finest whose cells are still MIN_CELL_PIXELS wide
+     */
+    public int levelForZoom(double zoom) {
+        double pixelsPerDegree = 512 * Math.pow(2, zoom) / 360;
+        for (int i = RESOLUTIONS - 1; i > 0; i--) {
+            if (levels[i].cellWidth * pixelsPerDegree >= MIN_CELL_PIXELS) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Counts per cell of one resolution, row by row from the south-west corner
+     * This is the grid's own array: read it, don't change it
+     * @param typeId Crime type id, or ALL_TYPES
+     */
+    public int[] getCounts(int level, int typeId) {
+        return typeId == ALL_TYPES ? levels[level].total : levels[level].byType[typeId];
+    }
+
+    /**
+     * Largest cell count of one resolution over the whole grid, not just a visible part
+     * @param typeId Crime type id, or ALL_TYPES
+     */
+    public int getMaxCount(int level, int typeId) {
+        int max = 0;
+        for (int count : getCounts(level, typeId)) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    public int getColumns(int level) { return levels[level].columns; }
+
+    public int getRows(int level) { return levels[level].rows; }
+
+    /**
+     * Visit the non-empty cells of one resolution that overlap a bounding box
+     */
+    public void forEachCell(int level, int typeId, double west, double south, double east, double north,
+                            CellVisitor visitor) {
+        Level grid = levels[level];
+        int[] counts = getCounts(level, typeId);
+        int minColumn = Math.max(0, (int) Math.floor((west - this.west) / grid.cellWidth));
+        int maxColumn = Math.min(grid.columns - 1, (int) Math.floor((east - this.west) / grid.cellWidth));
+        int minRow = Math.max(0, (int) Math.floor((south - this.south) / grid.cellHeight));
+        int maxRow = Math.min(grid.rows - 1, (int) Math.floor((north - this.south) / grid.cellHeight));
+        for (int row = minRow; row <= maxRow; row++) {
+            double latitude = this.south + (row + 0.5) * grid.cellHeight;
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int count = counts[row * grid.columns + column];
+                if (count > 0) {
+                    visitor.visit(latitude, this.west + (column + 0.5) * grid.cellWidth, count);
+                }
+            }
+        }
+    }
+
+    private void update(double latitude, double longitude, int typeId, int delta) {
+        if (typeId < 0 || typeId >= typeCount) {
+            throw new IllegalArgumentException("Crime type id " + typeId + " outside 0.." + (typeCount - 1));
+        }
+        if (!contains(latitude, longitude)) {
+            outside += delta;
+            return;
+        }
+        // Coarser cells come from the finest one, exactly as sumInto() groups them
+        Level finest = levels[RESOLUTIONS - 1];
+        int row = finest.row(latitude, south);
+        int column = finest.column(longitude, west);
+        for (int i = RESOLUTIONS - 1; i >= 0; i--) {
+            Level level = levels[i];
+            int shift = RESOLUTIONS - 1 - i;
+            int cell = (row >> shift) * level.columns + (column >> shift);
+            level.byType[typeId][cell] += delta;
+            level.total[cell] += delta;
+        }
+    }
+
+    private boolean contains(double latitude, double longitude) {
+        return latitude >= south && latitude <= north && longitude >= west && longitude <= east;
+    }
+
+    private static void sumInto(Level fine, Level coarse) {
+        for (int row = 0; row < fine.rows; row++) {
+            int coarseRow = (row / 2) * coarse.columns;
+            for (int column = 0; column < fine.columns; column++) {
+                int from = row * fine.columns + column;
+                int to = coarseRow + column / 2;
+                coarse.total[to] += fine.total[from];
+                for (int type = 0; type < fine.byType.length; type++) {
+                    coarse.byType[type][to] += fine.byType[type][from];
+                }
+            }
+        }
+    }
+
+    /**
+     * Finest-resolution counts of a range of points
+     */
+    private static final class Counts {
+        final int[][] byType;
+        int outside = 0;
+
+        Counts(int typeCount, int cells) {
+            byType = new int[typeCount][cells];
+        }
+    }
+
+    private final class CountTask extends RecursiveTask<Counts> {
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final int[] typeIds;
+        private final int from;
+        private final int to;
+        private final int perTask;
+
+        CountTask(double[] latitudes, double[] longitudes, int[] typeIds, int from, int to, int perTask) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.typeIds = typeIds;
+            this.from = from;
+            this.to = to;
+            this.perTask = perTask;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from > perTask) {
+                int middle = (from + to) >>> 1;
+                CountTask left = new CountTask(latitudes, longitudes, typeIds, from, middle, perTask);
+                left.fork();
+                Counts right = new CountTask(latitudes, longitudes, typeIds, middle, to, perTask).compute();
+                Counts counts = left.join();
+                for (int type = 0; type < counts.byType.length; type++) {
+                    int[] sum = counts.byType[type];
+                    int[] add = right.byType[type];
+                    for (int cell = 0; cell < sum.length; cell++) {
+                        sum[cell] += add[cell];
+                    }
+                }
+                counts.outside += right.outside;
+                return counts;
+            }
+
+            Level finest = levels[RESOLUTIONS - 1];
+            Counts counts = new Counts(typeCount, finest.columns * finest.rows);
+            for (int i = from; i < to; i++) {
+                int typeId = typeIds[i];
+                if (typeId < 0 || typeId >= typeCount) {
+                    throw new IllegalArgumentException("Crime type id " + typeId + " outside 0.." + (typeCount - 1));
+                }
+                if (contains(latitudes[i], longitudes[i])) {
+                    int cell = finest.row(latitudes[i], south) * finest.columns + finest.column(longitudes[i], west);
+                    counts.byType[typeId][cell]++;
+                } else {
+                    counts.outside++;
+                }
+            }
+            return counts;
+        }
+    }
+}
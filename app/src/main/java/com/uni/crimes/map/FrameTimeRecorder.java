@@ -0,0 +1,51 @@
+package com.uni.crimes.map;
+
+import android.view.Choreographer;
+
+/**
+ * Records main-thread frame intervals into a FrameTimeStats for a while
+ * Each call to record() extends the window, so recording runs for as long as the map
+ * keeps moving or redrawing and stops by itself once it has been quiet
+ */
+public class FrameTimeRecorder implements Choreographer.FrameCallback {
+
+    private FrameTimeStats stats;
+    private long lastFrameNanos = 0;
+    private long stopAtNanos = 0;
+    private boolean running = false;
+
+    /**
+     * Record frames into stats for at least the next durationMs
+     */
+    public void record(FrameTimeStats stats, long durationMs) {
+        if (running && stats != this.stats) {
+            // Switching modes: don't count the frame that spans the switch
+            lastFrameNanos = 0;
+        }
+        this.stats = stats;
+        stopAtNanos = System.nanoTime() + durationMs * 1_000_000;
+        if (!running) {
+            running = true;
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    public void stop() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        running = false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (lastFrameNanos > 0) {
+            stats.addFrame(frameTimeNanos - lastFrameNanos);
+        }
+        lastFrameNanos = frameTimeNanos;
+        if (frameTimeNanos < stopAtNanos) {
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            running = false;
+        }
+    }
+}
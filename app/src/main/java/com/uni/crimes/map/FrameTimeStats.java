@@ -0,0 +1,68 @@
+package com.uni.crimes.map;
+
+import java.util.Locale;
+
+/**
+ * Frame durations of one map rendering mode, as a fixed histogram
+ * Fed from a Choreographer callback, so recording is allocation-free and memory stays
+ * bounded however long the map is open
+ */
+public class FrameTimeStats {
+
+    // 60 Hz frame budget; slower frames are counted as janky
+    static final double FRAME_BUDGET_MS = 1000.0 / 60;
+    private static final double BUCKET_MS = 0.5;
+    // Buckets cover 0-250 ms; anything slower lands in the last one
+    private static final int BUCKETS = 500;
+
+    private final long[] histogram = new long[BUCKETS];
+    private long frameCount = 0;
+    private long jankyFrames = 0;
+    private double totalMs = 0;
+    private double maxMs = 0;
+
+    public void addFrame(long frameNanos) {
+        double ms = frameNanos / 1_000_000.0;
+        histogram[Math.min(BUCKETS - 1, (int) (ms / BUCKET_MS))]++;
+        frameCount++;
+        totalMs += ms;
+        maxMs = Math.max(maxMs, ms);
+        if (ms > FRAME_BUDGET_MS) {
+            jankyFrames++;
+        }
+    }
+
+    public long getFrameCount() { return frameCount; }
+
+    public long getJankyFrames() { return jankyFrames; }
+
+    public double getMeanMs() {
+        return frameCount > 0 ? totalMs / frameCount : 0;
+    }
+
+    public double getMaxMs() { return maxMs; }
+
+    /**
+     * @param percentile 0-100
+     * @return Upper edge of the bucket holding that percentile, 0 with no frames
+     */
+    public double getPercentileMs(double percentile) {
+        if (frameCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(frameCount * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= Math.max(1, rank)) {
+                return (i + 1) * BUCKET_MS;
+            }
+        }
+        return BUCKETS * BUCKET_MS;
+    }
+
+    public String describe() {
+        return String.format(Locale.US, "%d frames, mean %.1f ms, p50 %.1f ms, p95 %.1f ms, max %.1f ms, janky %d",
+                frameCount, getMeanMs(), getPercentileMs(50), getPercentileMs(95), maxMs, jankyFrames);
+    }
+}
@@ -0,0 +1,235 @@
+package com.uni.crimes.map;
+
+import java.util.Arrays;
+
+/**
+ * Static 2D KD-tree over points in projected map coordinates
+ * Flat arrays only: point indices and their coordinates are sorted in place into
+ * nodes of at most nodeSize points, so a million points cost three arrays and
+ * queries allocate nothing but the result list
+ */
+final class KdTree {
+
+    private final int nodeSize;
+    private final int size;
+    private final int[] ids;
+    private final double[] coords;
+
+    /**
+     * @param x Projected x of each point; only the first size entries are used
+     * @param y Projected y of each point
+     */
+    KdTree(double[] x, double[] y, int size, int nodeSize) {
+        this.nodeSize = nodeSize;
+        this.size = size;
+        this.ids = new int[size];
+        this.coords = new double[size * 2];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+            coords[2 * i] = x[i];
+            coords[2 * i + 1] = y[i];
+        }
+        sort(0, size - 1, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add the index of every point inside the box to out
+     */
+    void range(double minX, double minY, double maxX, double maxY, IntList out) {
+        if (size == 0) {
+            return;
+        }
+        int[] stack = new int[64 * 3];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int axis = stack[--top];
+            int right = stack[--top];
+            int left = stack[--top];
+
+            if (right - left <= nodeSize) {
+                for (int i = left; i <= right; i++) {
+                    double px = coords[2 * i];
+                    double py = coords[2 * i + 1];
+                    if (px >= minX && px <= maxX && py >= minY && py <= maxY) {
+                        out.add(ids[i]);
+                    }
+                }
+                continue;
+            }
+
+            int m = (left + right) >>> 1;
+            double px = coords[2 * m];
+            double py = coords[2 * m + 1];
+            if (px >= minX && px <= maxX && py >= minY && py <= maxY) {
+                out.add(ids[m]);
+            }
+            if (axis == 0 ? minX <= px : minY <= py) {
+                stack[top++] = left;
+                stack[top++] = m - 1;
+                stack[top++] = 1 - axis;
+            }
+            if (axis == 0 ? maxX >= px : maxY >= py) {
+                stack[top++] = m + 1;
+                stack[top++] = right;
+                stack[top++] = 1 - axis;
+            }
+        }
+    }
+
+    /**
+     * Add the index of every point within radius of (qx, qy) to out
+     */
+    void within(double qx, double qy, double radius, IntList out) {
+        if (size == 0) {
+            return;
+        }
+        double r2 = radius * radius;
+        int[] stack = new int[64 * 3];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int axis = stack[--top];
+            int right = stack[--top];
+            int left = stack[--top];
+
+            if (right - left <= nodeSize) {
+                for (int i = left; i <= right; i++) {
+                    if (distanceSquared(coords[2 * i], coords[2 * i + 1], qx, qy) <= r2) {
+                        out.add(ids[i]);
+                    }
+                }
+                continue;
+            }
+
+            int m = (left + right) >>> 1;
+            double px = coords[2 * m];
+            double py = coords[2 * m + 1];
+            if (distanceSquared(px, py, qx, qy) <= r2) {
+                out.add(ids[m]);
+            }
+            if (axis == 0 ? qx - radius <= px : qy - radius <= py) {
+                stack[top++] = left;
+                stack[top++] = m - 1;
+                stack[top++] = 1 - axis;
+            }
+            if (axis == 0 ? qx + radius >= px : qy + radius >= py) {
+                stack[top++] = m + 1;
+                stack[top++] = right;
+                stack[top++] = 1 - axis;
+            }
+        }
+    }
+
+    private void sort(int left, int right, int axis) {
+        if (right - left <= nodeSize) {
+            return;
+        }
+        int m = (left + right) >>> 1;
+        // Median on this axis, then each half on the other one
+        select(m, left, right, axis);
+        sort(left, m - 1, 1 - axis);
+        sort(m + 1, right, 1 - axis);
+    }
+
+    /**
+     * Floyd-Rivest selection: afterwards index k holds the value it would hold if the
+     * range were sorted on axis, with smaller values before it and larger ones after
+     */
+    private void select(int k, int left, int right, int axis) {
+        while (right > left) {
+            if (right - left > 600) {
+                int n = right - left + 1;
+                int m = k - left + 1;
+                double z = Math.log(n);
+                double s = 0.5 * Math.exp(2 * z / 3);
+                double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * (m - n / 2.0 < 0 ? -1 : 1);
+                int newLeft = (int) Math.max(left, Math.floor(k - m * s / n + sd));
+                int newRight = (int) Math.min(right, Math.floor(k + (n - m) * s / n + sd));
+                select(k, newLeft, newRight, axis);
+            }
+
+            double t = coords[2 * k + axis];
+            int i = left;
+            int j = right;
+            swap(left, k);
+            if (coords[2 * right + axis] > t) {
+                swap(left, right);
+            }
+            while (i < j) {
+                swap(i, j);
+                i++;
+                j--;
+                while (coords[2 * i + axis] < t) i++;
+                while (coords[2 * j + axis] > t) j--;
+            }
+            if (coords[2 * left + axis] == t) {
+                swap(left, j);
+            } else {
+                j++;
+                swap(j, right);
+            }
+            if (j <= k) left = j + 1;
+            if (k <= j) right = j - 1;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double x = coords[2 * i];
+        coords[2 * i] = coords[2 * j];
+        coords[2 * j] = x;
+        double y = coords[2 * i + 1];
+        coords[2 * i + 1] = coords[2 * j + 1];
+        coords[2 * j + 1] = y;
+    }
+
+    private static double distanceSquared(double ax, double ay, double bx, double by) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Growable int array for query results
+     */
+    static final class IntList {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.uni.crimes.model;
+
+/**
+ * Query result: a category name with its number of crimes
+ */
+public class CategoryCount {
+    private String name;
+    private int crimeCount;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getCrimeCount() { return crimeCount; }
+    public void setCrimeCount(int crimeCount) { this.crimeCount = crimeCount; }
+}
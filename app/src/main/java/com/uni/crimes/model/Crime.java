@@ -1,16 +1,28 @@
 package com.uni.crimes.model;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.uni.crimes.utils.StringPool;
+
 /**
  * Crime Entity representing a crime record from the Yorkshire crimes dataset
  * Matches the CSV structure: crimeId, crimeType, reportedBy, lsoaName, latitude, longitude, outcomeCategory
+ * Repeated text values are interned through StringPool so rows share String instances
  */
-@Entity(tableName = "crimes")
-public class Crime {
+@Entity(tableName = "crimes",
+        indices = {
+                // (crimeType, month) also serves crimeType-only lookups as a prefix
+                @Index(value = {"crimeType", "month"}),
+                @Index(value = {"lsoaName"}),
+                @Index(value = {"outcomeCategory"}),
+                @Index(value = {"month"})
+        })
+public class Crime implements CrimeRow {
     @PrimaryKey
     @NonNull
     private String crimeId;
@@ -21,6 +33,9 @@ public class Crime {
     private double longitude;
     private String outcomeCategory; // Changed from 'outcome' to match CSV
     private String month; // Additional field for temporal data
+    // 64-bit hash of the imported field values (see CrimeCsvParser.contentHash); 0 if unknown
+    @ColumnInfo(defaultValue = "0")
+    private long contentHash;
 
     // Default constructor required by Room
     public Crime() {}
@@ -30,13 +45,13 @@ public class Crime {
     public Crime(@NonNull String crimeId, String crimeType, String reportedBy, String lsoaName, 
                  double latitude, double longitude, String outcomeCategory, String month) {
         this.crimeId = crimeId;
-        this.crimeType = crimeType;
-        this.reportedBy = reportedBy;
-        this.lsoaName = lsoaName;
+        this.crimeType = StringPool.intern(crimeType);
+        this.reportedBy = StringPool.intern(reportedBy);
+        this.lsoaName = StringPool.intern(lsoaName);
         this.latitude = latitude;
         this.longitude = longitude;
-        this.outcomeCategory = outcomeCategory;
-        this.month = month;
+        this.outcomeCategory = StringPool.intern(outcomeCategory);
+        this.month = StringPool.intern(month);
     }
 
     // Getters and Setters
@@ -45,13 +60,13 @@ public class Crime {
     public void setCrimeId(@NonNull String crimeId) { this.crimeId = crimeId; }
 
     public String getCrimeType() { return crimeType; }
-    public void setCrimeType(String crimeType) { this.crimeType = crimeType; }
+    public void setCrimeType(String crimeType) { this.crimeType = StringPool.intern(crimeType); }
 
     public String getReportedBy() { return reportedBy; }
-    public void setReportedBy(String reportedBy) { this.reportedBy = reportedBy; }
+    public void setReportedBy(String reportedBy) { this.reportedBy = StringPool.intern(reportedBy); }
 
     public String getLsoaName() { return lsoaName; }
-    public void setLsoaName(String lsoaName) { this.lsoaName = lsoaName; }
+    public void setLsoaName(String lsoaName) { this.lsoaName = StringPool.intern(lsoaName); }
 
     public double getLatitude() { return latitude; }
     public void setLatitude(double latitude) { this.latitude = latitude; }
@@ -60,14 +75,17 @@ public class Crime {
     public void setLongitude(double longitude) { this.longitude = longitude; }
 
     public String getOutcomeCategory() { return outcomeCategory; }
-    public void setOutcomeCategory(String outcomeCategory) { this.outcomeCategory = outcomeCategory; }
+    public void setOutcomeCategory(String outcomeCategory) { this.outcomeCategory = StringPool.intern(outcomeCategory); }
 
     public String getMonth() { return month; }
-    public void setMonth(String month) { this.month = month; }
+    public void setMonth(String month) { this.month = StringPool.intern(month); }
+
+    public long getContentHash() { return contentHash; }
+    public void setContentHash(long contentHash) { this.contentHash = contentHash; }
 
     // Backward compatibility - keep getOutcome() for existing code
     public String getOutcome() { return outcomeCategory; }
-    public void setOutcome(String outcome) { this.outcomeCategory = outcome; }
+    public void setOutcome(String outcome) { this.outcomeCategory = StringPool.intern(outcome); }
 
     @Override
     public String toString() {
@@ -0,0 +1,19 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Query result: a stored crime's ID with its content hash, for delta imports
+ */
+public class CrimeContentHash {
+    @NonNull
+    private String crimeId = "";
+    private long contentHash;
+
+    @NonNull
+    public String getCrimeId() { return crimeId; }
+    public void setCrimeId(@NonNull String crimeId) { this.crimeId = crimeId; }
+
+    public long getContentHash() { return contentHash; }
+    public void setContentHash(long contentHash) { this.contentHash = contentHash; }
+}
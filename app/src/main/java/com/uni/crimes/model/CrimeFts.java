@@ -0,0 +1,34 @@
+package com.uni.crimes.model;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * Full-text search shadow table over the searchable text columns of {@link Crime}
+ * Uses an external content table so the text is not stored twice;
+ * Room generates the triggers that keep it in sync with the crimes table
+ */
+@Fts4(contentEntity = Crime.class)
+@Entity(tableName = "crimes_fts")
+public class CrimeFts {
+    private String crimeId;
+    private String crimeType;
+    private String lsoaName;
+    private String outcomeCategory;
+    private String reportedBy;
+
+    public String getCrimeId() { return crimeId; }
+    public void setCrimeId(String crimeId) { this.crimeId = crimeId; }
+
+    public String getCrimeType() { return crimeType; }
+    public void setCrimeType(String crimeType) { this.crimeType = crimeType; }
+
+    public String getLsoaName() { return lsoaName; }
+    public void setLsoaName(String lsoaName) { this.lsoaName = lsoaName; }
+
+    public String getOutcomeCategory() { return outcomeCategory; }
+    public void setOutcomeCategory(String outcomeCategory) { this.outcomeCategory = outcomeCategory; }
+
+    public String getReportedBy() { return reportedBy; }
+    public void setReportedBy(String reportedBy) { this.reportedBy = reportedBy; }
+}
@@ -0,0 +1,30 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+
+import com.uni.crimes.utils.StringPool;
+
+/**
+ * Projection of the crimes table with only the columns shown in a crime card
+ * Used by the paged crime list so rows do not carry unused columns
+ */
+public class CrimeListRow {
+    @NonNull
+    private String crimeId = "";
+    private String crimeType;
+    private String lsoaName;
+    private String outcomeCategory;
+
+    @NonNull
+    public String getCrimeId() { return crimeId; }
+    public void setCrimeId(@NonNull String crimeId) { this.crimeId = crimeId; }
+
+    public String getCrimeType() { return crimeType; }
+    public void setCrimeType(String crimeType) { this.crimeType = StringPool.intern(crimeType); }
+
+    public String getLsoaName() { return lsoaName; }
+    public void setLsoaName(String lsoaName) { this.lsoaName = StringPool.intern(lsoaName); }
+
+    public String getOutcomeCategory() { return outcomeCategory; }
+    public void setOutcomeCategory(String outcomeCategory) { this.outcomeCategory = StringPool.intern(outcomeCategory); }
+}
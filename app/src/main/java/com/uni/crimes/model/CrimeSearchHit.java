@@ -0,0 +1,19 @@
+package com.uni.crimes.model;
+
+import androidx.room.Embedded;
+
+/**
+ * Query result: a crime matched by the crimes_fts index with its matchinfo(crimes_fts, 'pcx')
+ * blob, which {@link com.uni.crimes.utils.FtsRanker} turns into a hit count
+ */
+public class CrimeSearchHit {
+    @Embedded
+    private Crime crime;
+    private byte[] matchinfo;
+
+    public Crime getCrime() { return crime; }
+    public void setCrime(Crime crime) { this.crime = crime; }
+
+    public byte[] getMatchinfo() { return matchinfo; }
+    public void setMatchinfo(byte[] matchinfo) { this.matchinfo = matchinfo; }
+}
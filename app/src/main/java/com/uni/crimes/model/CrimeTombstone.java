@@ -0,0 +1,38 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Record of a crime removed by a delta import because it was missing from the new file
+ * Lets sync and reports tell "removed upstream" apart from "never existed"
+ */
+@Entity(tableName = "crime_tombstones")
+public class CrimeTombstone {
+    @PrimaryKey
+    @NonNull
+    private String crimeId = "";
+    private String month;
+    private long removedAt;
+
+    public CrimeTombstone() {}
+
+    @Ignore
+    public CrimeTombstone(@NonNull String crimeId, String month, long removedAt) {
+        this.crimeId = crimeId;
+        this.month = month;
+        this.removedAt = removedAt;
+    }
+
+    @NonNull
+    public String getCrimeId() { return crimeId; }
+    public void setCrimeId(@NonNull String crimeId) { this.crimeId = crimeId; }
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+
+    public long getRemovedAt() { return removedAt; }
+    public void setRemovedAt(long removedAt) { this.removedAt = removedAt; }
+}
@@ -0,0 +1,25 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Dictionary entry in the crime_types lookup table
+ * Distinct crime type (e.g. Burglary) with a small stable integer id; kept up to date by triggers on the crimes table
+ */
+@Entity(tableName = "crime_types", indices = {@Index(value = {"name"}, unique = true)})
+public class CrimeType {
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+    @NonNull
+    private String name = "";
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    @NonNull
+    public String getName() { return name; }
+    public void setName(@NonNull String name) { this.name = name; }
+}
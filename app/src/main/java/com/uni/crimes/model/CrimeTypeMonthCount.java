@@ -0,0 +1,28 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Summary row: number of crimes per crime type and month
+ * Maintained incrementally by triggers on the crimes table (see CrimeAggregates)
+ */
+@Entity(tableName = "crime_counts_type_month", primaryKeys = {"crimeType", "month"})
+public class CrimeTypeMonthCount {
+    @NonNull
+    private String crimeType = "";
+    @NonNull
+    private String month = "";
+    private int crimeCount;
+
+    @NonNull
+    public String getCrimeType() { return crimeType; }
+    public void setCrimeType(@NonNull String crimeType) { this.crimeType = crimeType; }
+
+    @NonNull
+    public String getMonth() { return month; }
+    public void setMonth(@NonNull String month) { this.month = month; }
+
+    public int getCrimeCount() { return crimeCount; }
+    public void setCrimeCount(int crimeCount) { this.crimeCount = crimeCount; }
+}
@@ -0,0 +1,72 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Checkpoint of a CSV import from a user-selected file
+ * Updated in the same transaction as each committed batch, so after a crash or process
+ * death recordsCommitted is exactly the number of file records already in the database
+ */
+@Entity(tableName = "import_jobs")
+public class ImportJob {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_ABANDONED = "ABANDONED";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    @NonNull
+    private String sourceUri = "";
+    @Nullable
+    private String displayName;
+    // File size plus a digest of the first bytes; a changed file starts over
+    @NonNull
+    private String fingerprint = "";
+    // Valid crime records of the file, in file order, covered by committed batches
+    private long recordsCommitted;
+    private int insertedCount;
+    private int skippedCount;
+    @NonNull
+    private String status = STATUS_RUNNING;
+    private long startedAt;
+    private long updatedAt;
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getSourceUri() { return sourceUri; }
+    public void setSourceUri(@NonNull String sourceUri) { this.sourceUri = sourceUri; }
+
+    @Nullable
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(@Nullable String displayName) { this.displayName = displayName; }
+
+    @NonNull
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(@NonNull String fingerprint) { this.fingerprint = fingerprint; }
+
+    public long getRecordsCommitted() { return recordsCommitted; }
+    public void setRecordsCommitted(long recordsCommitted) { this.recordsCommitted = recordsCommitted; }
+
+    public int getInsertedCount() { return insertedCount; }
+    public void setInsertedCount(int insertedCount) { this.insertedCount = insertedCount; }
+
+    public int getSkippedCount() { return skippedCount; }
+    public void setSkippedCount(int skippedCount) { this.skippedCount = skippedCount; }
+
+    @NonNull
+    public String getStatus() { return status; }
+    public void setStatus(@NonNull String status) { this.status = status; }
+
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,137 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Metrics of one finished (or failed) CSV import, kept so slow or lossy imports can be
+ * compared across app versions
+ * Filled from ImportMetrics; only the most recent reports are kept
+ */
+@Entity(tableName = "import_reports")
+public class ImportReport {
+
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    // Asset name or file display name
+    @NonNull
+    private String source = "";
+    @Nullable
+    private String appVersion;
+    @NonNull
+    private String status = STATUS_SUCCEEDED;
+    @Nullable
+    private String error;
+    private long startedAt;
+    private long elapsedMs;
+    // Bytes read from the source; compressed bytes for archives
+    private long bytesRead;
+    // Valid plus rejected records
+    private long rowsParsed;
+    private long rowsRejected;
+    // e.g. "too few fields: 3, missing crime type: 1"
+    @NonNull
+    private String rejections = "";
+    // Archive entries skipped because their header was not a crime layout
+    private int skippedEntries;
+    private int dedupHits;
+    private int insertedCount;
+    private int changedCount;
+    private int rowsPerSecond;
+    private double readerUtilization;
+    private double parserUtilization;
+    private double writerUtilization;
+    private int commitCount;
+    private long maxCommitMs;
+    // e.g. "<=10ms: 2, <=50ms: 5"
+    @NonNull
+    private String commitHistogram = "";
+    private long throughputIntervalMs;
+    // Rows/s of each interval, comma separated
+    @NonNull
+    private String throughput = "";
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getSource() { return source; }
+    public void setSource(@NonNull String source) { this.source = source; }
+
+    @Nullable
+    public String getAppVersion() { return appVersion; }
+    public void setAppVersion(@Nullable String appVersion) { this.appVersion = appVersion; }
+
+    @NonNull
+    public String getStatus() { return status; }
+    public void setStatus(@NonNull String status) { this.status = status; }
+
+    @Nullable
+    public String getError() { return error; }
+    public void setError(@Nullable String error) { this.error = error; }
+
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public long getBytesRead() { return bytesRead; }
+    public void setBytesRead(long bytesRead) { this.bytesRead = bytesRead; }
+
+    public long getRowsParsed() { return rowsParsed; }
+    public void setRowsParsed(long rowsParsed) { this.rowsParsed = rowsParsed; }
+
+    public long getRowsRejected() { return rowsRejected; }
+    public void setRowsRejected(long rowsRejected) { this.rowsRejected = rowsRejected; }
+
+    @NonNull
+    public String getRejections() { return rejections; }
+    public void setRejections(@NonNull String rejections) { this.rejections = rejections; }
+
+    public int getSkippedEntries() { return skippedEntries; }
+    public void setSkippedEntries(int skippedEntries) { this.skippedEntries = skippedEntries; }
+
+    public int getDedupHits() { return dedupHits; }
+    public void setDedupHits(int dedupHits) { this.dedupHits = dedupHits; }
+
+    public int getInsertedCount() { return insertedCount; }
+    public void setInsertedCount(int insertedCount) { this.insertedCount = insertedCount; }
+
+    public int getChangedCount() { return changedCount; }
+    public void setChangedCount(int changedCount) { this.changedCount = changedCount; }
+
+    public int getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(int rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+
+    public double getReaderUtilization() { return readerUtilization; }
+    public void setReaderUtilization(double readerUtilization) { this.readerUtilization = readerUtilization; }
+
+    public double getParserUtilization() { return parserUtilization; }
+    public void setParserUtilization(double parserUtilization) { this.parserUtilization = parserUtilization; }
+
+    public double getWriterUtilization() { return writerUtilization; }
+    public void setWriterUtilization(double writerUtilization) { this.writerUtilization = writerUtilization; }
+
+    public int getCommitCount() { return commitCount; }
+    public void setCommitCount(int commitCount) { this.commitCount = commitCount; }
+
+    public long getMaxCommitMs() { return maxCommitMs; }
+    public void setMaxCommitMs(long maxCommitMs) { this.maxCommitMs = maxCommitMs; }
+
+    @NonNull
+    public String getCommitHistogram() { return commitHistogram; }
+    public void setCommitHistogram(@NonNull String commitHistogram) { this.commitHistogram = commitHistogram; }
+
+    public long getThroughputIntervalMs() { return throughputIntervalMs; }
+    public void setThroughputIntervalMs(long throughputIntervalMs) { this.throughputIntervalMs = throughputIntervalMs; }
+
+    @NonNull
+    public String getThroughput() { return throughput; }
+    public void setThroughput(@NonNull String throughput) { this.throughput = throughput; }
+}
@@ -0,0 +1,28 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Summary row: number of crimes per LSOA and month
+ * Maintained incrementally by triggers on the crimes table (see CrimeAggregates)
+ */
+@Entity(tableName = "crime_counts_lsoa_month", primaryKeys = {"lsoaName", "month"})
+public class LsoaMonthCount {
+    @NonNull
+    private String lsoaName = "";
+    @NonNull
+    private String month = "";
+    private int crimeCount;
+
+    @NonNull
+    public String getLsoaName() { return lsoaName; }
+    public void setLsoaName(@NonNull String lsoaName) { this.lsoaName = lsoaName; }
+
+    @NonNull
+    public String getMonth() { return month; }
+    public void setMonth(@NonNull String month) { this.month = month; }
+
+    public int getCrimeCount() { return crimeCount; }
+    public void setCrimeCount(int crimeCount) { this.crimeCount = crimeCount; }
+}
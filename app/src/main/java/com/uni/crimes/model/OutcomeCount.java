@@ -0,0 +1,24 @@
+package com.uni.crimes.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Summary row: number of crimes per outcome category
+ * Maintained incrementally by triggers on the crimes table (see CrimeAggregates)
+ */
+@Entity(tableName = "crime_counts_outcome")
+public class OutcomeCount {
+    @PrimaryKey
+    @NonNull
+    private String outcomeCategory = "";
+    private int crimeCount;
+
+    @NonNull
+    public String getOutcomeCategory() { return outcomeCategory; }
+    public void setOutcomeCategory(@NonNull String outcomeCategory) { this.outcomeCategory = outcomeCategory; }
+
+    public int getCrimeCount() { return crimeCount; }
+    public void setCrimeCount(int crimeCount) { this.crimeCount = crimeCount; }
+}
@@ -4,15 +4,17 @@ import android.app.Application;
 import android.content.Context;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 
 import com.uni.crimes.database.CrimeDatabase;
 import com.uni.crimes.database.CrimeDao;
+import com.uni.crimes.database.CrimePointBuffer;
 import com.uni.crimes.model.Crime;
-import com.uni.crimes.utils.CSVImporter;
+import com.uni.crimes.model.CrimeListRow;
+import com.uni.crimes.model.ImportReport;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Repository class for Crime data operations
@@ -22,10 +24,14 @@ import java.util.concurrent.Executors;
 public class CrimeRepository {
     
     private static final String TAG = "CrimeRepository";
+    // Search field that matches any column
+    public static final String ALL_FIELDS = "All Fields";
     
+    private CrimeDatabase database;
     private CrimeDao crimeDao;
     private LiveData<List<Crime>> allCrimes;
-    private ExecutorService executor;
+    private ExecutorService readExecutor;
+    private ExecutorService writeExecutor;
     private Context context;
     
     public interface SearchCallback {
@@ -33,17 +39,17 @@ public class CrimeRepository {
         void onError(String error);
     }
     
-    public interface ImportCallback {
-        void onSuccess(int importedCount);
+    public interface PointsCallback {
+        void onSuccess(CrimePointBuffer points);
         void onError(String error);
-        void onProgress(int progress);
     }
     
     public CrimeRepository(Application application) {
-        CrimeDatabase database = CrimeDatabase.getInstance(application);
+        database = CrimeDatabase.getInstance(application);
         crimeDao = database.crimeDao();
         allCrimes = crimeDao.getAllCrimes();
-        executor = Executors.newFixedThreadPool(4);
+        readExecutor = CrimeDatabase.getReadExecutor();
+        writeExecutor = CrimeDatabase.getWriteExecutor();
         context = application.getApplicationContext();
     }
     
@@ -52,6 +58,10 @@ public class CrimeRepository {
         return allCrimes;
     }
     
+    public PagingSource<Integer, CrimeListRow> getCrimeListRowsPagingSource() {
+        return crimeDao.getCrimeListRowsPaged();
+    }
+    
     public LiveData<Crime> getCrimeById(String crimeId) {
         return crimeDao.getCrimeByIdLive(crimeId);
     }
@@ -60,9 +70,13 @@ public class CrimeRepository {
         return crimeDao.getCrimeCountLive();
     }
     
+    public LiveData<ImportReport> getLatestImportReport() {
+        return crimeDao.getLatestImportReportLive();
+    }
+    
     // CRUD operations
     public void insertCrime(Crime crime) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
                 crimeDao.insertCrime(crime);
                 Log.d(TAG, "Crime inserted: " + crime.getCrimeId());
@@ -74,7 +88,7 @@ public class CrimeRepository {
     }
 
     public void insertCrimes(List<Crime> crimes) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
                 crimeDao.insertAllCrimes(crimes);
                 Log.d(TAG, "Crimes inserted: " + crimes.size());
@@ -85,7 +99,7 @@ public class CrimeRepository {
     }
     
     public void updateCrime(Crime crime) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
                 crimeDao.updateCrime(crime);
                 Log.d(TAG, "Crime updated: " + crime.getCrimeId());
@@ -96,7 +110,7 @@ public class CrimeRepository {
     }
     
     public void deleteCrime(Crime crime) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
                 crimeDao.deleteCrime(crime);
                 Log.d(TAG, "Crime deleted: " + crime.getCrimeId());
@@ -108,9 +122,9 @@ public class CrimeRepository {
     
     // Search operations
     public void searchCrimesByAnyField(String searchTerm, SearchCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             try {
-                List<Crime> results = crimeDao.searchCrimesByAnyFieldSync(searchTerm);
+                List<Crime> results = crimeDao.searchCrimesRankedSync(searchTerm);
                 callback.onSuccess(results);
                 Log.d(TAG, "Search completed. Found " + results.size() + " results for: " + searchTerm);
             } catch (Exception e) {
@@ -121,25 +135,11 @@ public class CrimeRepository {
     }
     
     public void searchByField(String field, String value, SearchCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             try {
-                // Convert field name for query
+                // Convert field name for query; the FTS index can restrict matches to one column
                 String queryField = convertFieldName(field);
-                List<Crime> results;
-                
-                switch (queryField) {
-                    case "crimeType":
-                        results = crimeDao.searchCrimesByAnyFieldSync(value); // Use any field search for simplicity
-                        break;
-                    case "lsoaName":
-                        results = crimeDao.searchCrimesByAnyFieldSync(value);
-                        break;
-                    case "outcomeCategory":
-                        results = crimeDao.searchCrimesByAnyFieldSync(value);
-                        break;
-                    default:
-                        results = crimeDao.searchCrimesByAnyFieldSync(value);
-                }
+                List<Crime> results = crimeDao.searchFieldRankedSync(queryField, value);
                 
                 callback.onSuccess(results);
                 Log.d(TAG, "Field search completed. Found " + results.size() + " results");
@@ -150,40 +150,6 @@ public class CrimeRepository {
         });
     }
     
-    // CSV Import operation (Admin only)
-    public void importCrimesFromCSV(ImportCallback callback) {
-        executor.execute(() -> {
-            try {
-                Log.d(TAG, "Starting CSV import...");
-                
-                // Use CSVImporter utility class
-                CSVImporter importer = new CSVImporter(context, crimeDao);
-                importer.importFromAssets("crimeyorkshire.csv", new CSVImporter.ImportListener() {
-                    @Override
-                    public void onProgress(int progress) {
-                        callback.onProgress(progress);
-                    }
-                    
-                    @Override
-                    public void onSuccess(int importedCount) {
-                        Log.d(TAG, "CSV import completed. Imported " + importedCount + " records");
-                        callback.onSuccess(importedCount);
-                    }
-                    
-                    @Override
-                    public void onError(String error) {
-                        Log.e(TAG, "CSV import failed: " + error);
-                        callback.onError(error);
-                    }
-                });
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error during CSV import", e);
-                callback.onError("Import failed: " + e.getMessage());
-            }
-        });
-    }
-    
     // Utility methods
     private String convertFieldName(String displayName) {
         switch (displayName) {
@@ -195,9 +161,40 @@ public class CrimeRepository {
         }
     }
     
+    // Map points are read into primitive arrays rather than Crime objects
+    public void loadCrimePoints(PointsCallback callback) {
+        readExecutor.execute(() -> {
+            try {
+                CrimePointBuffer points = CrimePointBuffer.loadAll(database);
+                callback.onSuccess(points);
+                Log.d(TAG, "Loaded " + points.size() + " crime points");
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading crime points", e);
+                callback.onError("Failed to load crime points: " + e.getMessage());
+            }
+        });
+    }
+    
+    // Re-run a search for the map when its registered result set is gone
+    public void loadSearchPoints(String field, String searchTerm, PointsCallback callback) {
+        readExecutor.execute(() -> {
+            try {
+                List<Crime> results = ALL_FIELDS.equals(field)
+                        ? crimeDao.searchCrimesRankedSync(searchTerm)
+                        : crimeDao.searchFieldRankedSync(convertFieldName(field), searchTerm);
+                CrimePointBuffer points = CrimePointBuffer.fromCrimes(results);
+                callback.onSuccess(points);
+                Log.d(TAG, "Loaded " + points.size() + " search result points for: " + searchTerm);
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading search result points", e);
+                callback.onError("Failed to load search results: " + e.getMessage());
+            }
+        });
+    }
+    
     // Get synchronous data (for non-UI operations)
     public void getAllCrimesSync(SearchCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             try {
                 List<Crime> crimes = crimeDao.getAllCrimesSync();
                 callback.onSuccess(crimes);
@@ -6,11 +6,11 @@ import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.uni.crimes.database.CrimeBulkWriter;
 import com.uni.crimes.database.CrimeDatabase;
 import com.uni.crimes.database.CrimeDao;
 import com.uni.crimes.model.Crime;
 import com.uni.crimes.network.NetworkRepository;
-import com.uni.crimes.utils.CSVImporter;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -41,12 +41,6 @@ public class HybridCrimeRepository {
         void onError(String error);
     }
     
-    public interface ImportCallback {
-        void onSuccess(int importedCount);
-        void onError(String error);
-        void onProgress(int progress);
-    }
-    
     public interface SyncCallback {
         void onSyncComplete(int syncedCount);
         void onSyncError(String error);
@@ -158,7 +152,7 @@ public class HybridCrimeRepository {
         executor.execute(() -> {
             try {
                 // First search locally in SQLite
-                List<Crime> localResults = crimeDao.searchCrimesByAnyFieldSync(searchTerm);
+                List<Crime> localResults = crimeDao.searchCrimesRankedSync(searchTerm);
                 
                 if (!localResults.isEmpty()) {
                     // Return local results immediately
@@ -204,13 +198,16 @@ public class HybridCrimeRepository {
         networkRepository.searchCrimes(searchTerm, new NetworkRepository.NetworkCallback<List<Crime>>() {
             @Override
             public void onSuccess(List<Crime> crimes) {
-                // Cache remote results locally for offline access
-                executor.execute(() -> {
-                    try {
+                // Cache remote results locally for offline access; crimes already stored
+                // are dropped by the shared ID filter instead of a lookup per result
+                CrimeDatabase.getWriteExecutor().execute(() -> {
+                    try (CrimeBulkWriter writer = new CrimeBulkWriter(CrimeDatabase.getInstance(context))) {
                         for (Crime crime : crimes) {
-                            crimeDao.insertCrime(crime);
+                            writer.add(crime);
                         }
-                        Log.d(TAG, "Cached " + crimes.size() + " remote search results locally");
+                        CrimeBulkWriter.Result result = writer.finish();
+                        Log.d(TAG, "Cached " + result.getInsertedCount() + " of " + crimes.size() +
+                                " remote search results locally");
                     } catch (Exception e) {
                         Log.w(TAG, "Error caching remote results", e);
                     }
@@ -304,13 +301,18 @@ public class HybridCrimeRepository {
         networkRepository.getAllCrimes(new NetworkRepository.NetworkCallback<List<Crime>>() {
             @Override
             public void onSuccess(List<Crime> remoteCrimes) {
+                // A full sync is a long write, so it runs on its own thread rather than the
+                // write executor; the bulk writer commits in chunks and checks stored IDs
+                // through the shared filter. Delta mode also updates rows the server changed
+                // and leaves unchanged rows alone
                 executor.execute(() -> {
-                    try {
-                        int syncedCount = 0;
+                    try (CrimeBulkWriter writer = new CrimeBulkWriter(CrimeDatabase.getInstance(context))) {
+                        writer.enableDelta(false);
                         for (Crime crime : remoteCrimes) {
-                            crimeDao.insertCrime(crime);
-                            syncedCount++;
+                            writer.add(crime);
                         }
+                        CrimeBulkWriter.Result result = writer.finish();
+                        int syncedCount = result.getInsertedCount() + result.getChangedCount();
                         
                         syncStatus.postValue("Sync completed: " + syncedCount + " crimes");
                         callback.onSyncComplete(syncedCount);
@@ -363,77 +365,6 @@ public class HybridCrimeRepository {
         });
     }
     
-    // ========== CSV IMPORT OPERATIONS ==========
-    
-    /**
-     * Import crimes from CSV (local first, then sync to remote if online)
-     */
-    public void importCrimesFromCSV(ImportCallback callback) {
-        executor.execute(() -> {
-            try {
-                Log.d(TAG, "Starting CSV import...");
-                
-                // Use local CSV importer first
-                CSVImporter importer = new CSVImporter(context, crimeDao);
-                importer.importFromAssets("crimeyorkshire.csv", new CSVImporter.ImportListener() {
-                    @Override
-                    public void onProgress(int progress) {
-                        callback.onProgress(progress);
-                    }
-                    
-                    @Override
-                    public void onSuccess(int importedCount) {
-                        Log.d(TAG, "CSV import completed locally. Imported " + importedCount + " records");
-                        
-                        // If online, also sync to remote MySQL
-                        if (Boolean.TRUE.equals(isOnline.getValue())) {
-                            syncLocalDataToRemote(importedCount, callback);
-                        } else {
-                            callback.onSuccess(importedCount);
-                        }
-                    }
-                    
-                    @Override
-                    public void onError(String error) {
-                        Log.e(TAG, "CSV import failed: " + error);
-                        callback.onError(error);
-                    }
-                });
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error during CSV import", e);
-                callback.onError("Import failed: " + e.getMessage());
-            }
-        });
-    }
-    
-    /**
-     * Sync locally imported data to remote MySQL
-     */
-    private void syncLocalDataToRemote(int localImportCount, ImportCallback callback) {
-        // Get all local crimes and sync to remote
-        executor.execute(() -> {
-            try {
-                List<Crime> allLocalCrimes = crimeDao.getAllCrimesSync();
-                
-                // This is a simplified sync - in production, you'd want to batch this
-                // and handle it more efficiently
-                String authToken = getAuthToken();
-                if (authToken != null) {
-                    // For now, just report success - actual remote sync would be implemented here
-                    Log.d(TAG, "Would sync " + allLocalCrimes.size() + " crimes to remote MySQL");
-                    callback.onSuccess(localImportCount);
-                } else {
-                    callback.onSuccess(localImportCount);
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error syncing to remote after import", e);
-                callback.onSuccess(localImportCount); // Still report local success
-            }
-        });
-    }
-    
     // ========== UTILITY METHODS ==========
     
     /**
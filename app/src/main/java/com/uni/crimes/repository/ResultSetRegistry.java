@@ -0,0 +1,75 @@
+package com.uni.crimes.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.uni.crimes.database.CrimePointBuffer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-process store for result sets handed from one screen to another
+ * Screens put only the opaque token into their arguments, so a large result never goes
+ * through a Bundle. Result sets are CrimePointBuffers, which are immutable primitive arrays
+ * and can be shared without copying. The registry lives as long as the process: whoever
+ * holds a token must be able to rebuild its result set when get() returns null
+ */
+public class ResultSetRegistry {
+
+    private static final String TAG = "ResultSetRegistry";
+
+    // Result sets kept at once; the least recently used is dropped first
+    static final int MAX_RESULT_SETS = 4;
+
+    private static final ResultSetRegistry INSTANCE = new ResultSetRegistry(MAX_RESULT_SETS);
+
+    private final Map<String, CrimePointBuffer> resultSets;
+
+    ResultSetRegistry(int maxResultSets) {
+        resultSets = new LinkedHashMap<String, CrimePointBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CrimePointBuffer> eldest) {
+                if (size() > maxResultSets) {
+                    Log.d(TAG, "Dropping result set " + eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static ResultSetRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a result set under a new token
+     */
+    public synchronized String register(CrimePointBuffer points) {
+        String token = UUID.randomUUID().toString();
+        resultSets.put(token, points);
+        return token;
+    }
+
+    /**
+     * Put a rebuilt result set back under the token it had before the process died
+     */
+    public synchronized void restore(String token, CrimePointBuffer points) {
+        resultSets.put(token, points);
+    }
+
+    /**
+     * @return The result set, or null if it was dropped or the process has restarted since
+     */
+    @Nullable
+    public synchronized CrimePointBuffer get(String token) {
+        return resultSets.get(token);
+    }
+
+    public synchronized void release(String token) {
+        resultSets.remove(token);
+    }
+}
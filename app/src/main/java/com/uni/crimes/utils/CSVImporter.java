@@ -1,17 +1,30 @@
 package com.uni.crimes.utils;
 
 import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
 import android.util.Log;
 
+import com.uni.crimes.database.CrimeBulkWriter;
 import com.uni.crimes.database.CrimeDao;
+import com.uni.crimes.database.CrimeDatabase;
 import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.ImportJob;
+import com.uni.crimes.model.ImportReport;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
 
 /**
  * Utility class for importing crime data from CSV files
@@ -21,173 +34,357 @@ import java.util.List;
 public class CSVImporter {
     
     private static final String TAG = "CSVImporter";
+    private static final int FINGERPRINT_BYTES = 64 * 1024;
+    // Import reports kept for comparing imports across app versions
+    private static final int REPORTS_KEPT = 20;
     
     private Context context;
+    private CrimeDatabase database;
     private CrimeDao crimeDao;
     
     public interface ImportListener {
         void onProgress(int progress);
         void onSuccess(int importedCount);
         void onError(String error);
+        
+        /**
+         * Throughput and per-stage utilization, reported with each progress update
+         * and once more when the import finishes
+         */
+        default void onStats(CrimeImportPipeline.Stats stats) {}
+        
+        /**
+         * Polled for every record; returning true ends the import, rolling back the
+         * rows written since the last commit. A file import's checkpoint is kept, so
+         * the next attempt resumes from it
+         */
+        default boolean isCancelled() {
+            return false;
+        }
     }
     
-    public CSVImporter(Context context, CrimeDao crimeDao) {
+    public CSVImporter(Context context, CrimeDatabase database) {
         this.context = context;
-        this.crimeDao = crimeDao;
+        this.database = database;
+        this.crimeDao = database.crimeDao();
     }
     
     /**
      * Import crimes from CSV file in assets folder
-     * Expected CSV format: crimeId,crimeType,reportedBy,lsoaName,latitude,longitude,outcomeCategory
+     * Columns are matched by header name (see CrimeCsvSchema)
+     * @return Inserted and skipped counts, or null if the import failed
+     */
+    public CrimeBulkWriter.Result importFromAssets(String fileName, ImportListener listener) {
+        Log.d(TAG, "Starting CSV import from: " + fileName);
+        try (InputStream inputStream = context.getAssets().open(fileName)) {
+            return importFromStream(inputStream, fileName, listener);
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading CSV file", e);
+            listener.onError("Failed to read CSV file: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Import crimes from any CSV stream (assets or a user-selected file)
+     * Parsing runs on CrimeImportPipeline's worker threads; duplicates are skipped by
+     * INSERT OR IGNORE on the crimeId primary key, all inside CrimeBulkWriter's
+     * periodically committed transaction on the calling thread
+     * Must not run on the main thread; long imports belong on their own thread rather
+     * than the write executor, so short writes interleave at each commit
+     * @return Inserted and skipped counts, or null if the import failed
      */
-    public void importFromAssets(String fileName, ImportListener listener) {
+    public CrimeBulkWriter.Result importFromStream(InputStream inputStream, ImportListener listener) {
+        return importFromStream(inputStream, "stream", listener);
+    }
+    
+    private CrimeBulkWriter.Result importFromStream(InputStream inputStream, String source, ImportListener listener) {
+        ImportMetrics metrics = new ImportMetrics();
         try {
-            Log.d(TAG, "Starting CSV import from: " + fileName);
-            
-            InputStream inputStream = context.getAssets().open(fileName);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            
-            List<Crime> crimesToImport = new ArrayList<>();
-            String line;
-            int lineNumber = 0;
-            int importedCount = 0;
-            int skippedCount = 0;
-            
-            // Skip header line
-            String header = reader.readLine();
-            Log.d(TAG, "CSV Header: " + header);
-            
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                
-                try {
-                    Crime crime = parseCrimeLine(line, lineNumber);
-                    if (crime != null) {
-                        // Check for duplicates
-                        if (!crimeDao.crimeExists(crime.getCrimeId())) {
-                            crimesToImport.add(crime);
-                            importedCount++;
-                            
-                            // Batch insert every 100 records for performance
-                            if (crimesToImport.size() >= 100) {
-                                crimeDao.insertAllCrimes(crimesToImport);
-                                crimesToImport.clear();
-                                
-                                // Report progress
-                                listener.onProgress(importedCount);
-                            }
-                        } else {
-                            skippedCount++;
-                            Log.d(TAG, "Skipping duplicate crime: " + crime.getCrimeId());
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Error parsing line " + lineNumber + ": " + line, e);
-                    // Continue with next line
-                }
+            CrimeBulkWriter.Result result = runImport(inputStream, null, null, false, metrics, listener);
+            saveReport(metrics, source, null);
+            listener.onSuccess(result.getInsertedCount());
+            return result;
+        } catch (CancellationException e) {
+            Log.d(TAG, "CSV import stopped");
+            saveReport(metrics, source, "Import stopped");
+            listener.onError("Import stopped");
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading CSV file", e);
+            saveReport(metrics, source, "Failed to read CSV file: " + e.getMessage());
+            listener.onError("Failed to read CSV file: " + e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, "Error during CSV import", e);
+            saveReport(metrics, source, "Import failed: " + e.getMessage());
+            listener.onError("Import failed: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Import a user-selected file with an ImportJob checkpoint committed alongside every
+     * batch. If an earlier import of the same file (same URI and fingerprint) was
+     * interrupted, records up to its checkpoint are skipped without touching the database
+     * The file may be a CSV, a .csv.gz or a data.police.uk .zip; archives are streamed
+     * without extracting anything to disk
+     * Must not run on the main thread or the write executor (see importFromStream)
+     * Rows are compared with the stored ones by content hash (CrimeBulkWriter delta mode),
+     * so re-importing a month with updated outcomes rewrites only the rows that changed
+     * @param forceFilter Force whose zip entries to import (e.g. "West Yorkshire"), or null for all
+     * @param tombstoneMissing Remove stored crimes of the file's months that the file no
+     *                         longer contains; ignored when resuming part way through
+     * @return Added/changed/unchanged/removed counts for this run, or null if the import failed
+     */
+    public CrimeBulkWriter.Result importFromUri(Uri uri, String forceFilter, boolean tombstoneMissing,
+                                               ImportListener listener) {
+        ImportJob job = null;
+        ImportMetrics metrics = new ImportMetrics();
+        String source = uri.toString();
+        try {
+            // A different filter selects different records, so it cannot resume the same job
+            String fingerprint = fingerprint(uri) + (forceFilter != null ? "|" + forceFilter : "");
+            job = crimeDao.findResumableImportJob(uri.toString(), fingerprint);
+            if (job == null) {
+                job = new ImportJob();
+                job.setSourceUri(uri.toString());
+                job.setDisplayName(displayName(uri));
+                job.setFingerprint(fingerprint);
+                job.setStartedAt(System.currentTimeMillis());
+                job.setUpdatedAt(job.getStartedAt());
+                job.setId(crimeDao.insertImportJob(job));
+            } else {
+                Log.d(TAG, "Resuming import job " + job.getId() + " after " +
+                        job.getRecordsCommitted() + " records");
             }
-            
-            // Insert remaining crimes
-            if (!crimesToImport.isEmpty()) {
-                crimeDao.insertAllCrimes(crimesToImport);
+            crimeDao.abandonOtherImportJobs(job.getId());
+            if (job.getDisplayName() != null) {
+                source = job.getDisplayName();
             }
             
-            reader.close();
-            inputStream.close();
+            CrimeBulkWriter.Result result;
+            try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+                if (inputStream == null) {
+                    throw new IOException("Unable to open " + uri);
+                }
+                result = runImport(inputStream, job, forceFilter, tombstoneMissing, metrics, listener);
+            }
             
-            Log.d(TAG, "CSV import completed. Imported: " + importedCount + ", Skipped: " + skippedCount);
-            listener.onSuccess(importedCount);
+            job.setStatus(ImportJob.STATUS_COMPLETED);
+            job.setUpdatedAt(System.currentTimeMillis());
+            crimeDao.updateImportJob(job);
+            saveReport(metrics, source, null);
+            listener.onSuccess(job.getInsertedCount());
+            return result;
             
+        } catch (CancellationException e) {
+            // Left RUNNING, like a read error, so the rerun resumes from the checkpoint
+            Log.d(TAG, "Import of " + uri + " stopped");
+            saveReport(metrics, source, "Import stopped");
+            listener.onError("Import stopped");
+        } catch (SecurityException e) {
+            Log.e(TAG, "Permission denied reading file", e);
+            markFailed(job);
+            saveReport(metrics, source, "Permission denied reading file");
+            listener.onError("Permission denied reading file");
         } catch (IOException e) {
+            // Left RUNNING: the next attempt on the same file resumes from the checkpoint
             Log.e(TAG, "Error reading CSV file", e);
+            saveReport(metrics, source, "Failed to read CSV file: " + e.getMessage());
             listener.onError("Failed to read CSV file: " + e.getMessage());
         } catch (Exception e) {
             Log.e(TAG, "Error during CSV import", e);
+            markFailed(job);
+            saveReport(metrics, source, "Import failed: " + e.getMessage());
             listener.onError("Import failed: " + e.getMessage());
         }
+        return null;
     }
     
     /**
-     * Parse a single CSV line into a Crime object
-     * Expected format: crimeId,crimeType,reportedBy,lsoaName,latitude,longitude,outcomeCategory
+     * Parse the stream (a CSV, .csv.gz or .zip of CSVs) through the pipeline into a bulk writer
+     * @param job Checkpoint to resume from and keep up to date, or null for a one-off import
+     * @param forceFilter Force whose zip entries to import, or null for all
+     * @param tombstoneMissing Delete stored rows of the imported months missing from the file
+     * @param metrics Filled with byte, row, rejection, commit and throughput figures
      */
-    private Crime parseCrimeLine(String line, int lineNumber) {
-        try {
-            // Split by comma, handling quoted values
-            String[] parts = parseCSVLine(line);
-            
-            if (parts.length < 7) {
-                Log.w(TAG, "Line " + lineNumber + " has insufficient columns: " + parts.length);
-                return null;
-            }
+    private CrimeBulkWriter.Result runImport(InputStream inputStream, ImportJob job, String forceFilter,
+                                             boolean tombstoneMissing, ImportMetrics metrics,
+                                             ImportListener listener)
+            throws IOException, InterruptedException {
+        long resumeFrom = job != null ? job.getRecordsCommitted() : 0;
+        int previouslyInserted = job != null ? job.getInsertedCount() : 0;
+        int previouslySkipped = job != null ? job.getSkippedCount() : 0;
+        
+        try (CrimeBulkWriter writer = new CrimeBulkWriter(database)) {
+            writer.setMetrics(metrics);
             
-            String crimeId = parts[0].trim();
-            String crimeType = parts[1].trim();
-            String reportedBy = parts[2].trim();
-            String lsoaName = parts[3].trim();
-            String latitudeStr = parts[4].trim();
-            String longitudeStr = parts[5].trim();
-            String outcomeCategory = parts[6].trim();
-            
-            // Validate required fields
-            if (crimeId.isEmpty() || crimeType.isEmpty()) {
-                Log.w(TAG, "Line " + lineNumber + " missing required fields");
-                return null;
+            if (job != null) {
+                // File imports refresh stored rows. A resumed run never sees the start of
+                // the file, so it must not tombstone
+                if (tombstoneMissing && resumeFrom > 0) {
+                    Log.w(TAG, "Not removing missing rows: import resumed after " + resumeFrom + " records");
+                }
+                writer.enableDelta(tombstoneMissing && resumeFrom == 0);
+                writer.setCommitListener(w -> {
+                    job.setRecordsCommitted(resumeFrom + w.getRowsAdded());
+                    job.setInsertedCount(previouslyInserted + w.getInsertedCount());
+                    job.setSkippedCount(previouslySkipped + w.getSkippedCount());
+                    job.setUpdatedAt(System.currentTimeMillis());
+                    crimeDao.updateImportJob(job);
+                });
             }
             
-            // Parse coordinates
-            double latitude = 0.0;
-            double longitude = 0.0;
-            
-            try {
-                if (!latitudeStr.isEmpty()) {
-                    latitude = Double.parseDouble(latitudeStr);
+            // Parsing fans out to worker threads; rows come back here in file order.
+            // Archive entries are inflated one after another, each through the same
+            // pipeline and writer, so the record position runs on across entries
+            CrimeImportPipeline pipeline = new CrimeImportPipeline();
+            long[] position = {0};
+            int[] invalidCount = {0};
+            CrimeCsvParser.CrimeHandler<Crime> handler = crime -> {
+                if (listener.isCancelled()) {
+                    throw new CancellationException("Import stopped");
                 }
-                if (!longitudeStr.isEmpty()) {
-                    longitude = Double.parseDouble(longitudeStr);
+                // Records before the checkpoint are already stored
+                if (position[0]++ < resumeFrom) {
+                    return;
                 }
-            } catch (NumberFormatException e) {
-                Log.w(TAG, "Invalid coordinates on line " + lineNumber + ": " + latitudeStr + ", " + longitudeStr);
-                // Continue with 0,0 coordinates
+                if (writer.add(crime)) {
+                    // Report progress once per written batch
+                    CrimeImportPipeline.Stats stats = pipeline.getStats();
+                    metrics.sample(stats.getRows());
+                    listener.onProgress(previouslyInserted + writer.getInsertedCount());
+                    listener.onStats(stats);
+                }
+            };
+            InputStream countedStream = metrics.countBytes(inputStream);
+            int csvCount = CrimeArchiveStreams.forEachCsv(countedStream, forceFilter, (name, csv) -> {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+                CrimeCsvParser.Columns columns;
+                try {
+                    // Column positions come from the header, so any supported layout imports
+                    columns = CrimeCsvSchema.detect(reader);
+                } catch (CrimeCsvSchema.UnrecognisedHeaderException e) {
+                    if (name == null) {
+                        throw e;
+                    }
+                    // police.uk archives also carry outcomes and stop-and-search files
+                    Log.d(TAG, "Skipping archive entry " + name + ": " + e.getMessage());
+                    metrics.addSkippedEntry();
+                    return;
+                }
+                if (name != null) {
+                    Log.d(TAG, "Importing archive entry " + name);
+                }
+                invalidCount[0] += pipeline.run(reader, columns, handler);
+            });
+            if (invalidCount[0] > 0) {
+                Log.w(TAG, "Skipped " + invalidCount[0] + " invalid CSV rows");
             }
+            Log.d(TAG, "Read " + csvCount + " CSV stream(s)");
             
-            // Generate month if not provided (use current month as default)
-            String month = "2024-01"; // Default month for imported data
-            
-            return new Crime(crimeId, crimeType, reportedBy, lsoaName, 
-                           latitude, longitude, outcomeCategory, month);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing line " + lineNumber + ": " + line, e);
-            return null;
+            CrimeBulkWriter.Result result = writer.finish();
+            CrimeImportPipeline.Stats stats = pipeline.getStats();
+            metrics.setPipelineResults(stats, pipeline.getRejections());
+            metrics.setWriteCounts(result.getInsertedCount(), result.getSkippedCount(), result.getChangedCount());
+            Log.d(TAG, "CSV import completed. Imported: " + result.getInsertedCount() +
+                    ", Skipped: " + result.getSkippedCount() +
+                    (resumeFrom > 0 ? ", Resumed after: " + resumeFrom : "") + ", " + stats);
+            listener.onStats(stats);
+            if (job != null) {
+                job.setRecordsCommitted(resumeFrom + writer.getRowsAdded());
+                job.setInsertedCount(previouslyInserted + result.getInsertedCount());
+                job.setSkippedCount(previouslySkipped + result.getSkippedCount());
+            }
+            return result;
         }
     }
     
     /**
-     * Parse CSV line handling quoted values and commas within quotes
+     * File size plus a SHA-1 of the first 64 KB; cheap, and enough to tell that the
+     * file behind a URI was replaced
      */
-    private String[] parseCSVLine(String line) {
-        List<String> result = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                result.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+    private String fingerprint(Uri uri) throws IOException {
+        long size = -1;
+        try (Cursor cursor = context.getContentResolver().query(uri,
+                new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                size = cursor.getLong(0);
             }
         }
         
-        // Add the last field
-        result.add(currentField.toString());
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+            if (inputStream == null) {
+                throw new IOException("Unable to open " + uri);
+            }
+            byte[] buffer = new byte[FINGERPRINT_BYTES];
+            int total = 0;
+            int read;
+            while (total < buffer.length && (read = inputStream.read(buffer, total, buffer.length - total)) > 0) {
+                total += read;
+            }
+            digest.update(buffer, 0, total);
+        }
         
-        return result.toArray(new String[0]);
+        StringBuilder hex = new StringBuilder(size + ":");
+        for (byte b : digest.digest()) {
+            hex.append(String.format(Locale.US, "%02x", b));
+        }
+        return hex.toString();
+    }
+    
+    /**
+     * Persist the import's metrics, keeping only the most recent reports
+     * @param error Failure message, or null if the import succeeded
+     */
+    private void saveReport(ImportMetrics metrics, String source, String error) {
+        try {
+            ImportReport report = metrics.toReport(source, appVersion(),
+                    error == null ? ImportReport.STATUS_SUCCEEDED : ImportReport.STATUS_FAILED, error);
+            crimeDao.insertImportReport(report);
+            crimeDao.trimImportReports(REPORTS_KEPT);
+            Log.d(TAG, "Import report:\n" + ImportMetrics.describe(report));
+        } catch (Exception e) {
+            Log.w(TAG, "Could not save import report", e);
+        }
+    }
+    
+    private String appVersion() {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+    
+    private String displayName(Uri uri) {
+        try (Cursor cursor = context.getContentResolver().query(uri,
+                new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getString(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read display name for " + uri, e);
+        }
+        return uri.getLastPathSegment();
+    }
+    
+    private void markFailed(ImportJob job) {
+        if (job == null) {
+            return;
+        }
+        try {
+            job.setStatus(ImportJob.STATUS_FAILED);
+            job.setUpdatedAt(System.currentTimeMillis());
+            crimeDao.updateImportJob(job);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not mark import job " + job.getId() + " as failed", e);
+        }
     }
     
     /**
@@ -0,0 +1,104 @@
+package com.uni.crimes.utils;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens the CSV files inside an import stream without extracting anything to disk
+ * The format is sniffed from the first bytes, so a plain .csv, a .csv.gz and a
+ * data.police.uk .zip (one CSV per force per month) are all handled the same way
+ * whatever the file name or MIME type says
+ */
+public class CrimeArchiveStreams {
+
+    private static final int ZIP_MAGIC = 0x504B0304;
+    private static final int GZIP_MAGIC = 0x1F8B;
+
+    public interface CsvEntryHandler {
+        /**
+         * @param name Entry name inside the archive, or null for a single CSV
+         * @param csv Stream of the entry; do not close it
+         */
+        void onCsv(String name, InputStream csv) throws IOException, InterruptedException;
+    }
+
+    private CrimeArchiveStreams() {}
+
+    /**
+     * Hand every CSV in the stream to the handler, in archive order
+     * @param forceFilter Only zip entries whose name contains this force (e.g. "West Yorkshire"
+     *                    matches 2024-01-west-yorkshire-street.csv); null for all entries
+     * @return Number of CSV streams handled
+     */
+    public static int forEachCsv(InputStream input, String forceFilter, CsvEntryHandler handler)
+            throws IOException, InterruptedException {
+        BufferedInputStream buffered = new BufferedInputStream(input);
+        buffered.mark(4);
+        int b0 = buffered.read();
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        int b3 = buffered.read();
+        buffered.reset();
+
+        if (b3 >= 0 && ((b0 << 24) | (b1 << 16) | (b2 << 8) | b3) == ZIP_MAGIC) {
+            return forEachZipEntry(new ZipInputStream(buffered), forceFilter, handler);
+        }
+        if (b1 >= 0 && ((b0 << 8) | b1) == GZIP_MAGIC) {
+            handler.onCsv(null, new GZIPInputStream(buffered, 64 * 1024));
+            return 1;
+        }
+        handler.onCsv(null, buffered);
+        return 1;
+    }
+
+    private static int forEachZipEntry(ZipInputStream zip, String forceFilter, CsvEntryHandler handler)
+            throws IOException, InterruptedException {
+        String forceSlug = forceFilter != null ? slug(forceFilter) : null;
+        InputStream entryStream = new FilterInputStream(zip) {
+            @Override
+            public void close() {
+                // Closing an entry reader must not close the archive
+            }
+        };
+
+        int handled = 0;
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            if (!entry.isDirectory() && lowerName.endsWith(".csv")
+                    && (forceSlug == null || slug(name).contains(forceSlug))) {
+                handler.onCsv(name, entryStream);
+                handled++;
+            }
+            zip.closeEntry();
+        }
+        return handled;
+    }
+
+    /**
+     * "West Yorkshire" and "2024-01/2024-01-west-yorkshire-street.csv" both reduce to
+     * lower-case letters and digits separated by single dashes
+     */
+    static String slug(String value) {
+        StringBuilder slug = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = Character.toLowerCase(value.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                slug.append(c);
+            } else if (slug.length() > 0 && slug.charAt(slug.length() - 1) != '-') {
+                slug.append('-');
+            }
+        }
+        if (slug.length() > 0 && slug.charAt(slug.length() - 1) == '-') {
+            slug.setLength(slug.length() - 1);
+        }
+        return slug.toString();
+    }
+}
@@ -0,0 +1,383 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.Crime;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel CSV import pipeline: reader -> N parsers -> caller thread
+ *
+ * The reader cuts the input into chunks that end on a record boundary (a newline
+ * outside quotes), parser workers turn each chunk into a batch of Crime rows, and the
+ * calling thread hands the rows to the handler strictly in file order. Keeping the
+ * order means INSERT OR IGNORE keeps the same first occurrence of a duplicate ID, so
+ * the database ends up identical to a sequential import
+ *
+ * The reader takes a permit for every chunk and the caller returns it once the chunk's
+ * rows are delivered, so at most parserThreads * IN_FLIGHT_PER_PARSER chunks exist at
+ * any time. A slow writer or one slow parser therefore stalls the reader instead of
+ * buffering the rest of the file in the reorder buffer
+ */
+public class CrimeImportPipeline {
+
+    private static final int DEFAULT_CHUNK_CHARS = 64 * 1024;
+    private static final int QUEUE_SLOTS_PER_PARSER = 2;
+    // Chunks read but not yet delivered, per parser: both queues plus the one being parsed
+    private static final int IN_FLIGHT_PER_PARSER = 2 * QUEUE_SLOTS_PER_PARSER + 1;
+    private static final int TOKENIZER_BUFFER_CHARS = 8 * 1024;
+
+    private final int parserThreads;
+    private final int chunkChars;
+
+    // Stage timings for getStats(), in nanoseconds
+    private final AtomicLong readerBusy = new AtomicLong();
+    private final AtomicLong parserBusy = new AtomicLong();
+    private final AtomicLong writerBusy = new AtomicLong();
+    private final AtomicLong rowsDelivered = new AtomicLong();
+    // Rejected records by CrimeCsvParser.Rejection ordinal; only touched on the caller thread
+    private final long[] rejections = new long[CrimeCsvParser.Rejection.values().length];
+    private volatile long startNanos;
+
+    /**
+     * Throughput and per-stage utilization of a running or finished import
+     * Utilization is busy time over elapsed time, averaged across threads of a stage
+     */
+    public static class Stats {
+        private final long rows;
+        private final long elapsedMillis;
+        private final int parserThreads;
+        private final double readerUtilization;
+        private final double parserUtilization;
+        private final double writerUtilization;
+
+        Stats(long rows, long elapsedMillis, int parserThreads,
+              double readerUtilization, double parserUtilization, double writerUtilization) {
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+            this.parserThreads = parserThreads;
+            this.readerUtilization = readerUtilization;
+            this.parserUtilization = parserUtilization;
+            this.writerUtilization = writerUtilization;
+        }
+
+        public long getRows() { return rows; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public int getParserThreads() { return parserThreads; }
+        public double getReaderUtilization() { return readerUtilization; }
+        public double getParserUtilization() { return parserUtilization; }
+        public double getWriterUtilization() { return writerUtilization; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d rows in %d ms (%.0f rows/s), reader %.0f%%, %d parsers %.0f%%, writer %.0f%%",
+                    rows, elapsedMillis, getRowsPerSecond(), readerUtilization * 100,
+                    parserThreads, parserUtilization * 100, writerUtilization * 100);
+        }
+    }
+
+    private static class Chunk {
+        static final Chunk END = new Chunk(-1, null);
+
+        final int sequence;
+        final char[] chars;
+
+        Chunk(int sequence, char[] chars) {
+            this.sequence = sequence;
+            this.chars = chars;
+        }
+    }
+
+    private static class Batch {
+        static final Batch WORKER_DONE = new Batch(-1, null, 0, null);
+
+        final int sequence;
+        final List<Crime> crimes;
+        final int invalidCount;
+        final int[] rejections;
+
+        Batch(int sequence, List<Crime> crimes, int invalidCount, int[] rejections) {
+            this.sequence = sequence;
+            this.crimes = crimes;
+            this.invalidCount = invalidCount;
+            this.rejections = rejections;
+        }
+    }
+
+    public CrimeImportPipeline() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_CHUNK_CHARS);
+    }
+
+    /**
+     * @param parserThreads Number of parser workers
+     * @param chunkChars Target chunk size; chunks grow if a single record is larger
+     */
+    public CrimeImportPipeline(int parserThreads, int chunkChars) {
+        if (parserThreads <= 0 || chunkChars <= 0) {
+            throw new IllegalArgumentException("Invalid pipeline size " + parserThreads + " x " + chunkChars);
+        }
+        this.parserThreads = parserThreads;
+        this.chunkChars = chunkChars;
+    }
+
+    /**
+     * Parse every record after the header row, delivering crimes to the handler on
+     * the calling thread in file order
+     * May be called again for further inputs (e.g. archive entries); stats accumulate
+     * @return Number of records skipped as invalid
+     */
+    public int run(Reader reader, CrimeCsvParser.Columns columns, CrimeCsvParser.CrimeHandler<Crime> handler)
+            throws IOException, InterruptedException {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(parserThreads * QUEUE_SLOTS_PER_PARSER);
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(parserThreads * QUEUE_SLOTS_PER_PARSER);
+        Semaphore inFlight = new Semaphore(parserThreads * IN_FLIGHT_PER_PARSER);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService stages = Executors.newFixedThreadPool(parserThreads + 1);
+
+        try {
+            stages.execute(() -> {
+                try {
+                    readChunks(reader, chunks, inFlight);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    batches.clear();
+                    batches.offer(Batch.WORKER_DONE); // Wake the caller
+                } finally {
+                    for (int i = 0; i < parserThreads; i++) {
+                        putQuietly(chunks, Chunk.END);
+                    }
+                }
+            });
+            for (int i = 0; i < parserThreads; i++) {
+                stages.execute(() -> {
+                    try {
+                        parseChunks(chunks, batches, columns);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        putQuietly(batches, Batch.WORKER_DONE);
+                    }
+                });
+            }
+            int invalidCount = deliverInOrder(batches, inFlight, CrimeCsvParser.withSyntheticIds(handler), failure);
+            rethrow(failure.get());
+            return invalidCount;
+        } finally {
+            stages.shutdownNow();
+            stages.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Snapshot of throughput and utilization so far; safe to call from the handler
+     */
+    public Stats getStats() {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        return new Stats(rowsDelivered.get(), elapsed / 1_000_000, parserThreads,
+                Math.min(1.0, readerBusy.get() / (double) elapsed),
+                Math.min(1.0, parserBusy.get() / (double) elapsed / parserThreads),
+                Math.min(1.0, writerBusy.get() / (double) elapsed));
+    }
+
+    /**
+     * Records rejected so far, indexed by CrimeCsvParser.Rejection ordinal
+     * Call on the thread that runs run(), e.g. from the handler or after it returns
+     */
+    public long[] getRejections() {
+        return rejections.clone();
+    }
+
+    private void readChunks(Reader reader, BlockingQueue<Chunk> chunks, Semaphore inFlight)
+            throws IOException, InterruptedException {
+        char[] buffer = new char[chunkChars];
+        int length = 0;
+        int sequence = 0;
+        long busyStart = System.nanoTime();
+
+        while (true) {
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read > 0) {
+                length += read;
+                if (length < buffer.length) {
+                    continue;
+                }
+            }
+            boolean endOfInput = read == -1;
+            if (length == 0) {
+                break;
+            }
+
+            int boundary = endOfInput ? length : lastRecordBoundary(buffer, length);
+            if (boundary == 0) {
+                // One record is longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                continue;
+            }
+            Chunk chunk = new Chunk(sequence++, Arrays.copyOf(buffer, boundary));
+            System.arraycopy(buffer, boundary, buffer, 0, length - boundary);
+            length -= boundary;
+
+            readerBusy.addAndGet(System.nanoTime() - busyStart);
+            inFlight.acquire();
+            chunks.put(chunk);
+            busyStart = System.nanoTime();
+        }
+        readerBusy.addAndGet(System.nanoTime() - busyStart);
+    }
+
+    private void parseChunks(BlockingQueue<Chunk> chunks, BlockingQueue<Batch> batches,
+                             CrimeCsvParser.Columns columns) throws IOException, InterruptedException {
+        while (true) {
+            Chunk chunk = chunks.take();
+            if (chunk == Chunk.END) {
+                return;
+            }
+
+            long busyStart = System.nanoTime();
+            CsvTokenizer tokenizer = new CsvTokenizer(new CharArrayReader(chunk.chars),
+                    Math.max(1, Math.min(chunk.chars.length, TOKENIZER_BUFFER_CHARS)));
+            if (chunk.sequence == 0) {
+                // Skip header line
+                tokenizer.nextRecord();
+            }
+            List<Crime> crimes = new ArrayList<>();
+            int invalidCount = 0;
+            int[] chunkRejections = new int[rejections.length];
+            while (tokenizer.nextRecord()) {
+                Crime crime = CrimeCsvParser.toCrime(tokenizer, columns, Crime::new);
+                if (crime != null) {
+                    crimes.add(crime);
+                } else {
+                    invalidCount++;
+                    chunkRejections[CrimeCsvParser.rejection(tokenizer, columns).ordinal()]++;
+                }
+            }
+            parserBusy.addAndGet(System.nanoTime() - busyStart);
+
+            batches.put(new Batch(chunk.sequence, crimes, invalidCount, chunkRejections));
+        }
+    }
+
+    private int deliverInOrder(BlockingQueue<Batch> batches, Semaphore inFlight,
+                               CrimeCsvParser.CrimeHandler<Crime> handler,
+                               AtomicReference<Throwable> failure) throws InterruptedException {
+        // Reorder buffer: every pending sequence is below nextSequence + the permit count,
+        // so each one has its own slot
+        Batch[] pending = new Batch[parserThreads * IN_FLIGHT_PER_PARSER];
+        int nextSequence = 0;
+        int workersDone = 0;
+        int invalidCount = 0;
+
+        while (workersDone < parserThreads && failure.get() == null) {
+            Batch batch = batches.take();
+            if (batch == Batch.WORKER_DONE) {
+                workersDone++;
+                continue;
+            }
+            pending[batch.sequence % pending.length] = batch;
+
+            Batch next;
+            while ((next = pending[nextSequence % pending.length]) != null) {
+                pending[nextSequence % pending.length] = null;
+                long busyStart = System.nanoTime();
+                for (Crime crime : next.crimes) {
+                    handler.onCrime(crime);
+                }
+                invalidCount += next.invalidCount;
+                for (int i = 0; i < rejections.length; i++) {
+                    rejections[i] += next.rejections[i];
+                }
+                rowsDelivered.addAndGet(next.crimes.size());
+                writerBusy.addAndGet(System.nanoTime() - busyStart);
+                nextSequence++;
+                inFlight.release();
+            }
+        }
+        return invalidCount;
+    }
+
+    /**
+     * Offset just past the last line break that is outside quotes, or 0 if there is none
+     * Quote state follows CsvTokenizer: a quote opens a quoted field only at the start of
+     * a field, "" inside quotes is an escaped quote, and any other quote is data (e.g.
+     * 12" TV). Line breaks are LF, CRLF or a bare CR. A CR in the last slot may be the
+     * first half of a CRLF, and a quote in the last slot inside quotes may be the first
+     * half of "", so both wait for the next read
+     */
+    static int lastRecordBoundary(char[] chars, int length) {
+        boolean quoted = false;
+        boolean atFieldStart = true;
+        int boundary = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 == length) {
+                        break;
+                    }
+                    if (chars[i + 1] == '"') {
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (c == '"' && atFieldStart) {
+                quoted = true;
+                atFieldStart = false;
+            } else if (c == ',') {
+                atFieldStart = true;
+            } else if (c == '\n' || (c == '\r' && i + 1 < length && chars[i + 1] != '\n')) {
+                boundary = i + 1;
+                atFieldStart = true;
+            } else if (c != '\r' && !(i == 0 && c == '\uFEFF')) {
+                atFieldStart = false;
+            }
+        }
+        return boundary;
+    }
+
+    private static <T> void putQuietly(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new IOException(failure);
+    }
+}
@@ -0,0 +1,350 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.Crime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of the crimes table
+ * Reloading a snapshot skips CSV tokenizing, number parsing and hashing entirely:
+ * coordinates are stored as raw doubles, months as yyyymm ints and every repeated
+ * text value (crime type, force, LSOA, outcome) as an index into one string dictionary
+ *
+ * Layout (little-endian):
+ *   header   int magic, int version
+ *   blocks   up to BLOCK_ROWS rows each, stored column by column:
+ *            int rows, crime IDs (short length + UTF-8, or -32 + 32 raw bytes for the
+ *            64-char lowercase hex IDs police.uk uses), int[] type, int[] reportedBy,
+ *            int[] lsoa, int[] outcome, int[] month, double[] lat, double[] lng,
+ *            long[] contentHash
+ *   dictionary  int count, then (int length + UTF-8) per string
+ *   footer   long dictionaryOffset, long rowCount, int blockCount, int magic
+ * The dictionary goes last so the writer can stream rows without a first pass; the
+ * fixed-size footer tells the reader where to find it
+ */
+public class CrimeSnapshot {
+
+    public static final int MAGIC = 0x4E535243; // "CRSN"
+    public static final int VERSION = 1;
+
+    static final int BLOCK_ROWS = 16_384;
+    private static final int HEADER_BYTES = 8;
+    private static final int FOOTER_BYTES = 24;
+    private static final int NO_STRING = -1;
+    private static final int HEX_ID_BYTES = 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // Bytes per row of the fixed-width columns: 5 ints, 2 doubles, 1 long
+    private static final int FIXED_ROW_BYTES = 5 * 4 + 2 * 8 + 8;
+
+    private CrimeSnapshot() {}
+
+    /**
+     * Streams crimes into a snapshot file through a FileChannel
+     * Rows are buffered one block at a time, so memory use does not grow with the table
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<Crime> block = new ArrayList<>(BLOCK_ROWS);
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(4 * 1024 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private long rowCount = 0;
+        private int blockCount = 0;
+        private boolean closed = false;
+
+        public Writer(FileChannel channel) throws IOException {
+            this.channel = channel;
+            buffer.putInt(MAGIC).putInt(VERSION);
+            drain();
+        }
+
+        public void add(Crime crime) throws IOException {
+            block.add(crime);
+            if (block.size() == BLOCK_ROWS) {
+                writeBlock();
+            }
+        }
+
+        public long getRowCount() {
+            return rowCount + block.size();
+        }
+
+        /**
+         * Write the last block, the dictionary and the footer
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writeBlock();
+
+            long dictionaryOffset = channel.position();
+            ensureCapacity(4);
+            buffer.putInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(4 + bytes.length);
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            ensureCapacity(FOOTER_BYTES);
+            buffer.putLong(dictionaryOffset).putLong(rowCount).putInt(blockCount).putInt(MAGIC);
+            drain();
+            channel.force(false);
+        }
+
+        private void writeBlock() throws IOException {
+            int rows = block.size();
+            if (rows == 0) {
+                return;
+            }
+            ensureCapacity(4);
+            buffer.putInt(rows);
+            for (Crime crime : block) {
+                if (isHexId(crime.getCrimeId())) {
+                    ensureCapacity(2 + HEX_ID_BYTES);
+                    buffer.putShort((short) -HEX_ID_BYTES);
+                    String hex = crime.getCrimeId();
+                    for (int i = 0; i < HEX_ID_BYTES; i++) {
+                        buffer.put((byte) (Character.digit(hex.charAt(2 * i), 16) << 4
+                                | Character.digit(hex.charAt(2 * i + 1), 16)));
+                    }
+                    continue;
+                }
+                byte[] id = crime.getCrimeId().getBytes(StandardCharsets.UTF_8);
+                if (id.length > Short.MAX_VALUE) {
+                    throw new IOException("Crime ID too long: " + crime.getCrimeId());
+                }
+                ensureCapacity(2 + id.length);
+                buffer.putShort((short) id.length).put(id);
+            }
+
+            ensureCapacity(rows * FIXED_ROW_BYTES);
+            for (Crime crime : block) buffer.putInt(stringId(crime.getCrimeType()));
+            for (Crime crime : block) buffer.putInt(stringId(crime.getReportedBy()));
+            for (Crime crime : block) buffer.putInt(stringId(crime.getLsoaName()));
+            for (Crime crime : block) buffer.putInt(stringId(crime.getOutcomeCategory()));
+            for (Crime crime : block) buffer.putInt(encodeMonth(crime.getMonth()));
+            for (Crime crime : block) buffer.putDouble(crime.getLatitude());
+            for (Crime crime : block) buffer.putDouble(crime.getLongitude());
+            for (Crime crime : block) buffer.putLong(crime.getContentHash());
+
+            rowCount += rows;
+            blockCount++;
+            block.clear();
+            drain();
+        }
+
+        private int stringId(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                id = strings.size();
+                dictionary.put(value, id);
+                strings.add(value);
+            }
+            return id;
+        }
+
+        /**
+         * Months are yyyymm ints; anything not shaped like "2024-01" goes through the
+         * dictionary as -(id + 2), and null is 0
+         */
+        private int encodeMonth(String month) {
+            if (month == null) {
+                return 0;
+            }
+            if (month.length() == 7 && month.charAt(4) == '-') {
+                int year = digits(month, 0, 4);
+                int value = digits(month, 5, 7);
+                if (year >= 0 && value >= 1 && value <= 12) {
+                    return year * 100 + value;
+                }
+            }
+            return -(stringId(month) + 2);
+        }
+
+        private void ensureCapacity(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            drain();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads a snapshot from a (typically memory-mapped) buffer
+     */
+    public static class Reader {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private final long rowCount;
+        private final int blockCount;
+        private final long dictionaryOffset;
+
+        /**
+         * Map the whole file read-only; pages are loaded by the OS as blocks are read
+         */
+        public static Reader map(FileChannel channel) throws IOException {
+            return new Reader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+
+        /**
+         * @throws IOException If the buffer is not a snapshot of a supported version
+         */
+        public Reader(ByteBuffer source) throws IOException {
+            buffer = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int size = buffer.limit();
+            if (size < HEADER_BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(size - 4) != MAGIC) {
+                throw new IOException("Not a crime snapshot");
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int footer = size - FOOTER_BYTES;
+            dictionaryOffset = buffer.getLong(footer);
+            rowCount = buffer.getLong(footer + 8);
+            blockCount = buffer.getInt(footer + 16);
+            if (dictionaryOffset < HEADER_BYTES || dictionaryOffset > footer) {
+                throw new IOException("Corrupt snapshot footer");
+            }
+
+            buffer.position((int) dictionaryOffset);
+            strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = utf8(buffer.getInt());
+            }
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Decode every row in file order
+         */
+        public void forEach(CrimeCsvParser.CrimeHandler<Crime> handler) throws IOException {
+            buffer.position(HEADER_BYTES);
+            String[] ids = new String[BLOCK_ROWS];
+            for (int b = 0; b < blockCount; b++) {
+                int rows = buffer.getInt();
+                if (rows <= 0 || rows > BLOCK_ROWS) {
+                    throw new IOException("Corrupt snapshot block " + b);
+                }
+                for (int i = 0; i < rows; i++) {
+                    int length = buffer.getShort();
+                    ids[i] = length < 0 ? hex(-length) : utf8(length);
+                }
+
+                // Column offsets within the block; values are read with absolute gets
+                int typeAt = buffer.position();
+                int reportedByAt = typeAt + rows * 4;
+                int lsoaAt = reportedByAt + rows * 4;
+                int outcomeAt = lsoaAt + rows * 4;
+                int monthAt = outcomeAt + rows * 4;
+                int latAt = monthAt + rows * 4;
+                int lngAt = latAt + rows * 8;
+                int hashAt = lngAt + rows * 8;
+                int end = hashAt + rows * 8;
+                if (end > dictionaryOffset) {
+                    throw new IOException("Corrupt snapshot block " + b);
+                }
+
+                for (int i = 0; i < rows; i++) {
+                    Crime crime = new Crime(ids[i],
+                            string(buffer.getInt(typeAt + i * 4)),
+                            string(buffer.getInt(reportedByAt + i * 4)),
+                            string(buffer.getInt(lsoaAt + i * 4)),
+                            buffer.getDouble(latAt + i * 8),
+                            buffer.getDouble(lngAt + i * 8),
+                            string(buffer.getInt(outcomeAt + i * 4)),
+                            decodeMonth(buffer.getInt(monthAt + i * 4)));
+                    crime.setContentHash(buffer.getLong(hashAt + i * 8));
+                    handler.onCrime(crime);
+                }
+                buffer.position(end);
+            }
+        }
+
+        private String string(int id) {
+            return id == NO_STRING ? null : strings[id];
+        }
+
+        private String decodeMonth(int month) {
+            if (month == 0) {
+                return null;
+            }
+            if (month < 0) {
+                return strings[-month - 2];
+            }
+            int value = month % 100;
+            return (month / 100) + (value < 10 ? "-0" : "-") + value;
+        }
+
+        private String hex(int length) {
+            char[] chars = new char[length * 2];
+            for (int i = 0; i < length; i++) {
+                int b = buffer.get() & 0xff;
+                chars[2 * i] = HEX_DIGITS[b >>> 4];
+                chars[2 * i + 1] = HEX_DIGITS[b & 0xf];
+            }
+            return new String(chars);
+        }
+
+        private String utf8(int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean isHexId(String id) {
+        if (id.length() != HEX_ID_BYTES * 2) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package com.uni.crimes.utils;
+
+import java.util.Locale;
+
+/**
+ * Utility class for turning free text typed by the user into an FTS MATCH expression
+ * Every token becomes a prefix term so "leeds burg" matches "Leeds 001A" + "Burglary"
+ */
+public class FtsQueryBuilder {
+
+    private FtsQueryBuilder() {}
+
+    /**
+     * Build a MATCH expression over all indexed columns
+     * @param searchTerm Raw text typed by the user
+     * @return MATCH expression, or null if the term has no searchable tokens
+     */
+    public static String toMatchQuery(String searchTerm) {
+        return toMatchQuery(searchTerm, null);
+    }
+
+    /**
+     * Build a MATCH expression restricted to a single indexed column
+     * @param searchTerm Raw text typed by the user
+     * @param column FTS column name to restrict to, or null for all columns
+     * @return MATCH expression, or null if the term has no searchable tokens
+     */
+    public static String toMatchQuery(String searchTerm, String column) {
+        if (searchTerm == null) {
+            return null;
+        }
+
+        StringBuilder query = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        String lower = searchTerm.toLowerCase(Locale.ROOT);
+
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                // Tokens are implicitly AND-ed together by FTS
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                if (column != null) {
+                    query.append(column).append(':');
+                }
+                query.append(token).append('*');
+                token.setLength(0);
+            }
+        }
+
+        return query.length() > 0 ? query.toString() : null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeSearchHit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class for ordering full-text search results by how often the query terms hit
+ * Reads the blob returned by matchinfo(crimes_fts, 'pcx'): the phrase count p, the column
+ * count c, then three 32-bit values per phrase and column, the first being the number of
+ * hits in the current row. Values are in the byte order of the device
+ */
+public class FtsRanker {
+
+    private FtsRanker() {}
+
+    /**
+     * Total hits of all query phrases across all columns of one row
+     * @param matchinfo Blob from matchinfo(..., 'pcx'); null or truncated blobs count as 0
+     */
+    public static int hitCount(byte[] matchinfo) {
+        if (matchinfo == null || matchinfo.length < 8) {
+            return 0;
+        }
+        ByteBuffer values = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = values.getInt(0);
+        int columns = values.getInt(4);
+        int cells = phrases * columns;
+        if (matchinfo.length < (2 + 3 * cells) * 4) {
+            return 0;
+        }
+        int hits = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            hits += values.getInt((2 + 3 * cell) * 4);
+        }
+        return hits;
+    }
+
+    /**
+     * Crimes ordered by hit count, most hits first
+     * The sort is stable, so rows with the same count keep the query's order
+     */
+    public static List<Crime> rank(List<CrimeSearchHit> results) {
+        int size = results.size();
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            // Negated hit count in the high half, original position in the low half
+            keys[i] = ((long) -hitCount(results.get(i).getMatchinfo()) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        List<Crime> ranked = new ArrayList<>(size);
+        for (long key : keys) {
+            ranked.add(results.get((int) key).getCrime());
+        }
+        return ranked;
+    }
+}
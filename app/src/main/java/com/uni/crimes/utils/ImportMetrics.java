@@ -0,0 +1,290 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.ImportReport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timings of one CSV import, turned into an ImportReport at the end
+ * Bytes are counted atomically on the pipeline's reader thread. Everything else is plain
+ * fields, recorded and reported on the thread that created the metrics: the thread
+ * running CSVImporter, i.e. CrimeImportWorker's. Pipeline rows, bulk writer commits and
+ * skipped archive entries all reach CSVImporter on that thread; other threads get an
+ * IllegalStateException rather than a lost update
+ *
+ * Throughput is sampled as rows/s per interval. When the sample list fills up,
+ * neighbouring samples are merged and the interval doubles, so a long import keeps
+ * its whole shape in a bounded report
+ */
+public class ImportMetrics {
+
+    // Upper bounds of the commit latency buckets; one more bucket holds anything slower
+    static final int[] COMMIT_BUCKETS_MS = {10, 50, 100, 250, 500, 1000};
+    static final long SAMPLE_INTERVAL_MS = 1000;
+    static final int MAX_SAMPLES = 60;
+
+    private final long startedAt = System.currentTimeMillis();
+    private final long startNanos;
+    private final Thread owner = Thread.currentThread();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final long[] commitHistogram = new long[COMMIT_BUCKETS_MS.length + 1];
+    private int commitCount = 0;
+    private long maxCommitNanos = 0;
+
+    private final List<Long> throughput = new ArrayList<>();
+    private long sampleIntervalMs = SAMPLE_INTERVAL_MS;
+    private long lastSampleNanos;
+    private long lastSampleRows = 0;
+
+    private long rowsDelivered = 0;
+    private long[] rejections = new long[CrimeCsvParser.Rejection.values().length];
+    private int skippedEntries = 0;
+    private CrimeImportPipeline.Stats stats;
+    private int insertedCount = 0;
+    private int dedupHits = 0;
+    private int changedCount = 0;
+
+    public ImportMetrics() {
+        this(System.nanoTime());
+    }
+
+    ImportMetrics(long startNanos) {
+        this.startNanos = startNanos;
+        this.lastSampleNanos = startNanos;
+    }
+
+    /**
+     * Wrap the source stream so every byte read through it is counted
+     */
+    public InputStream countBytes(InputStream inputStream) {
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead.addAndGet(read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                bytesRead.addAndGet(skipped);
+                return skipped;
+            }
+        };
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Record how long one transaction commit took
+     */
+    public void recordCommit(long nanos) {
+        checkThread();
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < COMMIT_BUCKETS_MS.length && millis > COMMIT_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        commitHistogram[bucket]++;
+        commitCount++;
+        maxCommitNanos = Math.max(maxCommitNanos, nanos);
+    }
+
+    /**
+     * Record the number of rows delivered so far; cheap enough to call per batch
+     */
+    public void sample(long rows) {
+        sample(rows, System.nanoTime());
+    }
+
+    void sample(long rows, long nowNanos) {
+        checkThread();
+        rowsDelivered = rows;
+        long elapsedMs = (nowNanos - lastSampleNanos) / 1_000_000;
+        if (elapsedMs < sampleIntervalMs) {
+            return;
+        }
+        addSample(rows, nowNanos, elapsedMs);
+    }
+
+    public void addSkippedEntry() {
+        checkThread();
+        skippedEntries++;
+    }
+
+    /**
+     * Final pipeline figures: stage utilization and rejected records by reason
+     */
+    public void setPipelineResults(CrimeImportPipeline.Stats stats, long[] rejections) {
+        checkThread();
+        this.stats = stats;
+        this.rejections = rejections.clone();
+        rowsDelivered = stats.getRows();
+    }
+
+    /**
+     * @param dedupHits Rows skipped because their crime ID was already stored or repeated
+     */
+    public void setWriteCounts(int insertedCount, int dedupHits, int changedCount) {
+        checkThread();
+        this.insertedCount = insertedCount;
+        this.dedupHits = dedupHits;
+        this.changedCount = changedCount;
+    }
+
+    public ImportReport toReport(String source, String appVersion, String status, String error) {
+        return toReport(source, appVersion, status, error, System.nanoTime());
+    }
+
+    ImportReport toReport(String source, String appVersion, String status, String error, long nowNanos) {
+        checkThread();
+        // Close the last, partial interval so the tail of the import shows up
+        long tailMs = (nowNanos - lastSampleNanos) / 1_000_000;
+        if (rowsDelivered > lastSampleRows && tailMs > 0) {
+            addSample(rowsDelivered, nowNanos, tailMs);
+        }
+
+        long rejected = 0;
+        StringBuilder reasons = new StringBuilder();
+        for (CrimeCsvParser.Rejection rejection : CrimeCsvParser.Rejection.values()) {
+            long count = rejections[rejection.ordinal()];
+            rejected += count;
+            if (count > 0) {
+                append(reasons, rejection.getLabel() + ": " + count);
+            }
+        }
+
+        StringBuilder histogram = new StringBuilder();
+        for (int i = 0; i < commitHistogram.length; i++) {
+            if (commitHistogram[i] > 0) {
+                append(histogram, (i < COMMIT_BUCKETS_MS.length
+                        ? "<=" + COMMIT_BUCKETS_MS[i]
+                        : ">" + COMMIT_BUCKETS_MS[COMMIT_BUCKETS_MS.length - 1]) + "ms: " + commitHistogram[i]);
+            }
+        }
+
+        StringBuilder samples = new StringBuilder();
+        for (long rate : throughput) {
+            if (samples.length() > 0) {
+                samples.append(',');
+            }
+            samples.append(rate);
+        }
+
+        long elapsedMs = (nowNanos - startNanos) / 1_000_000;
+        ImportReport report = new ImportReport();
+        report.setSource(source);
+        report.setAppVersion(appVersion);
+        report.setStatus(status);
+        report.setError(error);
+        report.setStartedAt(startedAt);
+        report.setElapsedMs(elapsedMs);
+        report.setBytesRead(bytesRead.get());
+        report.setRowsParsed(rowsDelivered + rejected);
+        report.setRowsRejected(rejected);
+        report.setRejections(reasons.toString());
+        report.setSkippedEntries(skippedEntries);
+        report.setDedupHits(dedupHits);
+        report.setInsertedCount(insertedCount);
+        report.setChangedCount(changedCount);
+        report.setRowsPerSecond(elapsedMs > 0 ? (int) (rowsDelivered * 1000 / elapsedMs) : 0);
+        if (stats != null) {
+            report.setReaderUtilization(stats.getReaderUtilization());
+            report.setParserUtilization(stats.getParserUtilization());
+            report.setWriterUtilization(stats.getWriterUtilization());
+        }
+        report.setCommitCount(commitCount);
+        report.setMaxCommitMs(maxCommitNanos / 1_000_000);
+        report.setCommitHistogram(histogram.toString());
+        report.setThroughputIntervalMs(sampleIntervalMs);
+        report.setThroughput(samples.toString());
+        return report;
+    }
+
+    /**
+     * Multi-line summary of a report for the import screen
+     */
+    public static String describe(ImportReport report) {
+        StringBuilder text = new StringBuilder(String.format(Locale.US,
+                "Read %.1f MB, parsed %d rows in %.1f s (%d rows/s)",
+                report.getBytesRead() / (1024.0 * 1024.0), report.getRowsParsed(),
+                report.getElapsedMs() / 1000.0, report.getRowsPerSecond()));
+        text.append("\nRejected ").append(report.getRowsRejected());
+        if (!report.getRejections().isEmpty()) {
+            text.append(" (").append(report.getRejections()).append(')');
+        }
+        if (report.getSkippedEntries() > 0) {
+            text.append(", skipped ").append(report.getSkippedEntries()).append(" non-crime files");
+        }
+        text.append("\nNew ").append(report.getInsertedCount())
+                .append(", updated ").append(report.getChangedCount())
+                .append(", duplicates ").append(report.getDedupHits());
+        text.append(String.format(Locale.US, "\nStage load: reader %.0f%%, parsers %.0f%%, writer %.0f%%",
+                report.getReaderUtilization() * 100, report.getParserUtilization() * 100,
+                report.getWriterUtilization() * 100));
+        text.append("\nCommits ").append(report.getCommitCount());
+        if (report.getCommitCount() > 0) {
+            text.append(" (").append(report.getCommitHistogram())
+                    .append("; max ").append(report.getMaxCommitMs()).append(" ms)");
+        }
+        if (!report.getThroughput().isEmpty()) {
+            text.append(String.format(Locale.US, "\nRows/s every %.0f s: ", report.getThroughputIntervalMs() / 1000.0))
+                    .append(report.getThroughput().replace(",", " "));
+        }
+        return text.toString();
+    }
+
+    private void addSample(long rows, long nowNanos, long elapsedMs) {
+        throughput.add((rows - lastSampleRows) * 1000 / elapsedMs);
+        lastSampleRows = rows;
+        lastSampleNanos = nowNanos;
+        if (throughput.size() > MAX_SAMPLES) {
+            // Merge neighbours and sample half as often from now on
+            List<Long> merged = new ArrayList<>(MAX_SAMPLES / 2 + 1);
+            for (int i = 0; i + 1 < throughput.size(); i += 2) {
+                merged.add((throughput.get(i) + throughput.get(i + 1)) / 2);
+            }
+            if (throughput.size() % 2 == 1) {
+                merged.add(throughput.get(throughput.size() - 1));
+            }
+            throughput.clear();
+            throughput.addAll(merged);
+            sampleIntervalMs *= 2;
+        }
+    }
+
+    private void checkThread() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("ImportMetrics used on " + Thread.currentThread().getName() +
+                    ", created on " + owner.getName());
+        }
+    }
+
+    private static void append(StringBuilder builder, String item) {
+        if (builder.length() > 0) {
+            builder.append(", ");
+        }
+        builder.append(item);
+    }
+}
@@ -5,15 +5,11 @@ import com.uni.crimes.model.Crime;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class SampleDataLoader {
     
     public static void loadSampleData(CrimeDatabase database) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        
-        executor.execute(() -> {
+        CrimeDatabase.getWriteExecutor().execute(() -> {
             // Check if data already exists
             int count = database.crimeDao().getCrimeCount();
             if (count > 0) {
@@ -23,8 +19,6 @@ public class SampleDataLoader {
             List<Crime> sampleCrimes = createSampleCrimes();
             database.crimeDao().insertAllCrimes(sampleCrimes);
         });
-        
-        executor.shutdown();
     }
     
     private static List<Crime> createSampleCrimes() {
@@ -0,0 +1,175 @@
+package com.uni.crimes.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import com.uni.crimes.database.CrimeBulkWriter;
+import com.uni.crimes.database.CrimeDao;
+import com.uni.crimes.database.CrimeDatabase;
+import com.uni.crimes.model.Crime;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Exports the crimes table to a CrimeSnapshot file and restores it from one
+ * An export only reads, in rowid-keyed pages outside any transaction, so it never
+ * holds the write lock
+ * A restore replaces the whole table in one transaction, so a failed, stopped or
+ * interrupted restore leaves the previous data untouched; other writes wait for it
+ * Both run on CrimeSnapshotWorker's thread and stop at the next row once the
+ * listener reports isCancelled()
+ */
+@SuppressWarnings("deprecation") // The restore transaction spans the bulk writer's commits
+public class SnapshotManager {
+
+    private static final String TAG = "SnapshotManager";
+    
+    // Small enough that a page fits one cursor window, so it is read in one query
+    private static final int EXPORT_PAGE_ROWS = 2_000;
+
+    private final Context context;
+    private final CrimeDatabase database;
+    private final CrimeDao crimeDao;
+
+    public SnapshotManager(Context context, CrimeDatabase database) {
+        this.context = context;
+        this.database = database;
+        this.crimeDao = database.crimeDao();
+    }
+
+    /**
+     * Write every stored crime to the document at uri, replacing its contents
+     * Each page is a consistent read, but writes are not blocked in between, so a row
+     * changed during the export may appear in its old or new state. A row inserted
+     * during the export is included if it lands after the page being read
+     * @return Number of crimes written, or -1 if the export failed
+     */
+    public long exportTo(Uri uri, CSVImporter.ImportListener listener) {
+        long start = System.currentTimeMillis();
+        try (ParcelFileDescriptor descriptor = open(uri, "wt");
+             FileOutputStream outputStream = new FileOutputStream(descriptor.getFileDescriptor());
+             FileChannel channel = outputStream.getChannel()) {
+
+            // Not closed on failure: without the footer a partial file is rejected on restore
+            CrimeSnapshot.Writer writer = new CrimeSnapshot.Writer(channel);
+            long lastRowId = 0;
+            int pageRows;
+            do {
+                if (listener.isCancelled()) {
+                    throw new CancellationException("Export stopped");
+                }
+                pageRows = 0;
+                try (Cursor cursor = crimeDao.getCrimesForSnapshotPage(lastRowId, EXPORT_PAGE_ROWS)) {
+                    while (cursor.moveToNext()) {
+                        lastRowId = cursor.getLong(0);
+                        pageRows++;
+                        Crime crime = new Crime(cursor.getString(1), cursor.getString(2), cursor.getString(3),
+                                cursor.getString(4), cursor.getDouble(5), cursor.getDouble(6),
+                                cursor.getString(7), cursor.getString(8));
+                        // Rows stored before content hashes existed get one now, so a
+                        // restored table supports delta imports straight away
+                        crime.setContentHash(cursor.getLong(9) != 0 ? cursor.getLong(9) : CrimeCsvParser.contentHash(crime));
+                        writer.add(crime);
+                        if (writer.getRowCount() % CrimeSnapshot.BLOCK_ROWS == 0) {
+                            listener.onProgress((int) writer.getRowCount());
+                        }
+                    }
+                }
+            } while (pageRows == EXPORT_PAGE_ROWS);
+            writer.close();
+            long count = writer.getRowCount();
+
+            Log.d(TAG, "Exported " + count + " crimes in " + (System.currentTimeMillis() - start) + " ms");
+            listener.onSuccess((int) count);
+            return count;
+        } catch (CancellationException e) {
+            Log.d(TAG, "Snapshot export stopped");
+            listener.onError("Export stopped");
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing snapshot", e);
+            listener.onError("Failed to write snapshot: " + e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, "Error during snapshot export", e);
+            listener.onError("Export failed: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Replace the crimes table with the snapshot at uri
+     * The file is memory-mapped and validated before anything is deleted. Rows go in
+     * through CrimeBulkWriter; its periodic commits nest inside the restore transaction
+     * Interrupted CSV import jobs are abandoned, since their checkpoints describe the
+     * table being replaced
+     * @return Number of crimes restored, or -1 if the restore failed
+     */
+    public long restoreFrom(Uri uri, CSVImporter.ImportListener listener) {
+        long start = System.currentTimeMillis();
+        try (ParcelFileDescriptor descriptor = open(uri, "r");
+             FileInputStream inputStream = new FileInputStream(descriptor.getFileDescriptor());
+             FileChannel channel = inputStream.getChannel()) {
+
+            CrimeSnapshot.Reader reader = CrimeSnapshot.Reader.map(channel);
+            Log.d(TAG, "Restoring " + reader.getRowCount() + " crimes from snapshot");
+
+            CrimeBulkWriter.Result result;
+            database.beginTransaction();
+            try {
+                crimeDao.deleteAllCrimes();
+                crimeDao.abandonOtherImportJobs(0);
+                // The writer below reloads the filter from the now empty table
+                database.invalidateCrimeIdFilter();
+                try (CrimeBulkWriter writer = new CrimeBulkWriter(database)) {
+                    reader.forEach(crime -> {
+                        if (listener.isCancelled()) {
+                            throw new CancellationException("Restore stopped");
+                        }
+                        if (writer.add(crime)) {
+                            listener.onProgress(writer.getInsertedCount());
+                        }
+                    });
+                    result = writer.finish();
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+                // On rollback the filter holds only restored IDs; reload it either way
+                database.invalidateCrimeIdFilter();
+            }
+
+            Log.d(TAG, "Restored " + result.getInsertedCount() + " crimes (" + result.getSkippedCount() +
+                    " duplicates skipped) in " + (System.currentTimeMillis() - start) + " ms");
+            listener.onSuccess(result.getInsertedCount());
+            return result.getInsertedCount();
+        } catch (CancellationException e) {
+            Log.d(TAG, "Snapshot restore stopped; previous data kept");
+            listener.onError("Restore stopped");
+        } catch (SecurityException e) {
+            Log.e(TAG, "Permission denied reading snapshot", e);
+            listener.onError("Permission denied reading file");
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading snapshot", e);
+            listener.onError("Failed to read snapshot: " + e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, "Error during snapshot restore", e);
+            listener.onError("Restore failed: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    private ParcelFileDescriptor open(Uri uri, String mode) throws FileNotFoundException {
+        ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, mode);
+        if (descriptor == null) {
+            throw new FileNotFoundException("Unable to open " + uri);
+        }
+        return descriptor;
+    }
+}
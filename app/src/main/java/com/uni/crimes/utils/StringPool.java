@@ -0,0 +1,45 @@
+package com.uni.crimes.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process interning cache for the low-cardinality text columns of Crime
+ * (crime type, force, outcome, LSOA, month) so that a million Crime objects
+ * share a few thousand String instances instead of holding one copy each
+ */
+public class StringPool {
+
+    // Upper bound so an unexpected high-cardinality column cannot grow the pool forever
+    private static final int MAX_SIZE = 16384;
+
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    private StringPool() {}
+
+    /**
+     * Return the shared instance equal to the given string
+     * @param value String to intern, may be null
+     * @return Pooled instance, or the value itself once the pool is full
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = POOL.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (POOL.size() >= MAX_SIZE) {
+            return value;
+        }
+        pooled = POOL.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * Number of distinct strings currently pooled
+     */
+    public static int size() {
+        return POOL.size();
+    }
+}
@@ -5,10 +5,18 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.uni.crimes.database.CrimeDatabase;
 import com.uni.crimes.database.CrimeDao;
+import com.uni.crimes.database.CrimePointBuffer;
 import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeListRow;
+import com.uni.crimes.model.ImportReport;
 import com.uni.crimes.repository.CrimeRepository;
 
 import java.util.List;
@@ -19,8 +27,13 @@ import java.util.List;
  */
 public class CrimeViewModel extends AndroidViewModel {
     
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 100;
+    
     private CrimeRepository repository;
     private LiveData<List<Crime>> allCrimes;
+    private LiveData<PagingData<CrimeListRow>> pagedCrimeRows;
+    private MutableLiveData<CrimePointBuffer> crimePoints;
     private MutableLiveData<List<Crime>> searchResults;
     private MutableLiveData<String> errorMessage;
     private MutableLiveData<Boolean> isLoading;
@@ -29,6 +42,14 @@ public class CrimeViewModel extends AndroidViewModel {
         super(application);
         repository = new CrimeRepository(application);
         allCrimes = repository.getAllCrimes();
+        
+        // Paged list survives configuration changes through cachedIn(viewModelScope)
+        Pager<Integer, CrimeListRow> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PREFETCH_DISTANCE, false),
+                () -> repository.getCrimeListRowsPagingSource());
+        pagedCrimeRows = PagingLiveData.cachedIn(
+                PagingLiveData.getLiveData(pager), ViewModelKt.getViewModelScope(this));
+        crimePoints = new MutableLiveData<>();
         searchResults = new MutableLiveData<>();
         errorMessage = new MutableLiveData<>();
         isLoading = new MutableLiveData<>(false);
@@ -39,6 +60,14 @@ public class CrimeViewModel extends AndroidViewModel {
         return allCrimes;
     }
     
+    public LiveData<PagingData<CrimeListRow>> getPagedCrimeRows() {
+        return pagedCrimeRows;
+    }
+    
+    public LiveData<CrimePointBuffer> getCrimePoints() {
+        return crimePoints;
+    }
+    
     public LiveData<List<Crime>> getSearchResults() {
         return searchResults;
     }
@@ -72,6 +101,35 @@ public class CrimeViewModel extends AndroidViewModel {
         return repository.getCrimeById(crimeId);
     }
     
+    // Map operations
+    public void loadCrimePoints() {
+        repository.loadCrimePoints(new CrimeRepository.PointsCallback() {
+            @Override
+            public void onSuccess(CrimePointBuffer points) {
+                crimePoints.postValue(points);
+            }
+            
+            @Override
+            public void onError(String error) {
+                errorMessage.postValue(error);
+            }
+        });
+    }
+    
+    public void loadSearchPoints(String field, String searchTerm) {
+        repository.loadSearchPoints(field, searchTerm, new CrimeRepository.PointsCallback() {
+            @Override
+            public void onSuccess(CrimePointBuffer points) {
+                crimePoints.postValue(points);
+            }
+            
+            @Override
+            public void onError(String error) {
+                errorMessage.postValue(error);
+            }
+        });
+    }
+    
     // Search operations
     public void searchCrimes(String searchTerm) {
         isLoading.postValue(true);
@@ -107,16 +165,14 @@ public class CrimeViewModel extends AndroidViewModel {
         });
     }
     
-    // Admin operations
-    public void importCrimesFromCSV(CrimeRepository.ImportCallback callback) {
-        isLoading.postValue(true);
-        repository.importCrimesFromCSV(callback);
-    }
-    
     public LiveData<Integer> getCrimeCount() {
         return repository.getCrimeCount();
     }
     
+    public LiveData<ImportReport> getLatestImportReport() {
+        return repository.getLatestImportReport();
+    }
+    
     // Clear search results
     public void clearSearchResults() {
         searchResults.postValue(null);
@@ -0,0 +1,280 @@
+package com.uni.crimes.work;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.pm.ServiceInfo;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.lifecycle.LiveData;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.uni.crimes.database.CrimeBulkWriter;
+import com.uni.crimes.database.CrimeDatabase;
+import com.uni.crimes.utils.CSVImporter;
+import com.uni.crimes.utils.CrimeImportPipeline;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs CSV imports (bundled asset or user-selected CSV, .csv.gz or .zip) outside the UI lifecycle
+ * Screens enqueue the unique import work and only observe its WorkInfo; progress is
+ * published with setProgressAsync at most every PROGRESS_INTERVAL_MS, however fast
+ * batches are written. Large files run as a dataSync foreground service so the
+ * import survives the app going to the background
+ * If the process dies, WorkManager reruns the work and file imports resume from their
+ * ImportJob checkpoint. Stopped work ends the import at the next row; uncommitted rows
+ * roll back and the checkpoint is kept for the rerun
+ * An import does not start while CrimeSnapshotWorker has work queued or running
+ */
+public class CrimeImportWorker extends Worker {
+
+    private static final String TAG = "CrimeImportWorker";
+
+    public static final String UNIQUE_WORK_NAME = "crime-import";
+
+    // Input
+    public static final String KEY_ASSET_NAME = "asset_name";
+    public static final String KEY_SOURCE_URI = "source_uri";
+    public static final String KEY_FORCE_FILTER = "force_filter";
+    public static final String KEY_TOMBSTONE_MISSING = "tombstone_missing";
+
+    // Progress and output
+    public static final String KEY_PROCESSED = "processed";
+    public static final String KEY_IMPORTED = "imported";
+    public static final String KEY_SKIPPED = "skipped";
+    public static final String KEY_CHANGED = "changed";
+    public static final String KEY_UNCHANGED = "unchanged";
+    public static final String KEY_REMOVED = "removed";
+    public static final String KEY_ROWS_PER_SECOND = "rows_per_second";
+    public static final String KEY_ERROR = "error";
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final long FOREGROUND_THRESHOLD_BYTES = 5L * 1024 * 1024;
+    private static final String CHANNEL_ID = "crime_import";
+    private static final int NOTIFICATION_ID = 1001;
+
+    private long lastProgressAt = 0;
+    private boolean foreground = false;
+
+    public CrimeImportWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Import the bundled dataset; ignored if an import is already queued or running
+     */
+    public static void enqueueAssetImport(Context context, String assetName) {
+        enqueue(context, new Data.Builder()
+                .putString(KEY_ASSET_NAME, assetName)
+                .build());
+    }
+
+    /**
+     * Import a user-selected file; ignored if an import is already queued or running
+     * The caller should hold a persistable read permission on the URI so a rerun after
+     * process death can reopen it
+     * Stored rows are refreshed by content hash; the result carries the diff counts
+     * @param forceFilter Force whose entries to take from a police.uk zip, or null for all
+     * @param tombstoneMissing Remove stored crimes of the file's months that it no longer lists
+     */
+    public static void enqueueFileImport(Context context, Uri uri, String forceFilter, boolean tombstoneMissing) {
+        enqueue(context, new Data.Builder()
+                .putString(KEY_SOURCE_URI, uri.toString())
+                .putString(KEY_FORCE_FILTER, forceFilter)
+                .putBoolean(KEY_TOMBSTONE_MISSING, tombstoneMissing)
+                .build());
+    }
+
+    /**
+     * State, progress and result of the current or last import
+     */
+    public static LiveData<List<WorkInfo>> getWorkInfos(Context context) {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(UNIQUE_WORK_NAME);
+    }
+
+    private static void enqueue(Context context, Data input) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(CrimeImportWorker.class)
+                .setInputData(input)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Data input = getInputData();
+        String assetName = input.getString(KEY_ASSET_NAME);
+        String sourceUri = input.getString(KEY_SOURCE_URI);
+        String forceFilter = input.getString(KEY_FORCE_FILTER);
+        boolean tombstoneMissing = input.getBoolean(KEY_TOMBSTONE_MISSING, false);
+        if (CrimeSnapshotWorker.isActive(getApplicationContext(), CrimeSnapshotWorker.UNIQUE_WORK_NAME)) {
+            Log.w(TAG, "Refusing import while a snapshot export or restore runs");
+            return Result.failure(new Data.Builder()
+                    .putString(KEY_ERROR, "A snapshot export or restore is running; try again when it has finished")
+                    .build());
+        }
+        Log.d(TAG, "Starting import of " + (assetName != null ? assetName : sourceUri));
+
+        Uri uri = sourceUri != null ? Uri.parse(sourceUri) : null;
+        long size = uri != null ? fileSize(uri) : assetSize(assetName);
+        if (size < 0 || size >= FOREGROUND_THRESHOLD_BYTES) {
+            goForeground(0);
+        }
+
+        Context context = getApplicationContext();
+        AtomicReference<String> error = new AtomicReference<>();
+        CSVImporter.ImportListener listener = new CSVImporter.ImportListener() {
+            @Override
+            public void onProgress(int progress) {}
+
+            @Override
+            public void onStats(CrimeImportPipeline.Stats stats) {
+                publishProgress(stats);
+            }
+
+            @Override
+            public void onSuccess(int importedCount) {}
+
+            @Override
+            public void onError(String message) {
+                error.set(message);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return isStopped();
+            }
+        };
+
+        // Runs on the worker's own thread. CrimeBulkWriter commits every commitInterval
+        // rows, so other writes get the SQLite write lock in between instead of queueing
+        // behind the whole import on the write executor
+        CrimeBulkWriter.Result result;
+        try {
+            CSVImporter importer = new CSVImporter(context, CrimeDatabase.getInstance(context));
+            result = uri != null
+                    ? importer.importFromUri(uri, forceFilter, tombstoneMissing, listener)
+                    : importer.importFromAssets(assetName, listener);
+        } catch (Exception e) {
+            Log.e(TAG, "Import task failed", e);
+            error.compareAndSet(null, e.getMessage());
+            result = null;
+        }
+
+        if (result == null) {
+            return Result.failure(new Data.Builder()
+                    .putString(KEY_ERROR, error.get() != null ? error.get() : "Import failed")
+                    .build());
+        }
+        return Result.success(new Data.Builder()
+                .putInt(KEY_IMPORTED, result.getInsertedCount())
+                .putInt(KEY_SKIPPED, result.getSkippedCount())
+                .putInt(KEY_CHANGED, result.getChangedCount())
+                .putInt(KEY_UNCHANGED, result.getUnchangedCount())
+                .putInt(KEY_REMOVED, result.getRemovedCount())
+                .build());
+    }
+
+    /**
+     * Publish progress (and refresh the notification) no more than once per interval
+     */
+    private void publishProgress(CrimeImportPipeline.Stats stats) {
+        long now = System.currentTimeMillis();
+        if (now - lastProgressAt < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        lastProgressAt = now;
+        setProgressAsync(new Data.Builder()
+                .putInt(KEY_PROCESSED, (int) stats.getRows())
+                .putInt(KEY_ROWS_PER_SECOND, (int) stats.getRowsPerSecond())
+                .build());
+        if (foreground) {
+            goForeground(stats.getRows());
+        }
+    }
+
+    /**
+     * Promote the work to a foreground service, or refresh its notification
+     * setForegroundAsync reports failure through its future, so wait for it
+     */
+    private void goForeground(long rows) {
+        try {
+            setForegroundAsync(createForegroundInfo(rows)).get();
+            foreground = true;
+        } catch (ExecutionException | IllegalStateException e) {
+            // Background start restrictions; the import still runs as normal work
+            Log.w(TAG, "Could not promote import to foreground", e);
+            foreground = false;
+        } catch (InterruptedException e) {
+            // Stopped while waiting; the import loop sees isStopped() and ends
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ForegroundInfo createForegroundInfo(long rows) {
+        Context context = getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
+            manager.createNotificationChannel(new NotificationChannel(
+                    CHANNEL_ID, "Crime data import", NotificationManager.IMPORTANCE_LOW));
+        }
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.stat_sys_download)
+                .setContentTitle("Importing crime data")
+                .setContentText(rows > 0 ? rows + " records processed" : "Starting import")
+                .setProgress(0, 0, true)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .build();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new ForegroundInfo(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        }
+        return new ForegroundInfo(NOTIFICATION_ID, notification);
+    }
+
+    /**
+     * @return Size in bytes, or -1 if the provider does not report it
+     */
+    private long fileSize(Uri uri) {
+        try (Cursor cursor = getApplicationContext().getContentResolver().query(uri,
+                new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read size of " + uri, e);
+        }
+        return -1;
+    }
+
+    /**
+     * @return Size in bytes, or -1 if the asset is compressed in the APK
+     */
+    private long assetSize(String assetName) {
+        try (AssetFileDescriptor descriptor = getApplicationContext().getAssets().openFd(assetName)) {
+            return descriptor.getLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.uni.crimes.work;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.uni.crimes.database.CrimeDatabase;
+import com.uni.crimes.utils.CSVImporter;
+import com.uni.crimes.utils.SnapshotManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs snapshot export and restore (see SnapshotManager) outside the UI lifecycle
+ * Both go through one unique work name, so only one snapshot task exists at a time.
+ * A restore replaces the crimes table and an export reads all of it, so neither starts
+ * while CSV import work is queued or running; CrimeImportWorker makes the same check
+ * the other way round. Stopped work ends at the next row; a stopped restore rolls back
+ * and leaves the previous table in place
+ */
+public class CrimeSnapshotWorker extends Worker {
+
+    private static final String TAG = "CrimeSnapshotWorker";
+
+    public static final String UNIQUE_WORK_NAME = "crime-snapshot";
+
+    // Input
+    public static final String KEY_MODE = "mode";
+    public static final String KEY_URI = "uri";
+    public static final String MODE_EXPORT = "export";
+    public static final String MODE_RESTORE = "restore";
+
+    // Progress and output
+    public static final String KEY_PROCESSED = "processed";
+    public static final String KEY_COUNT = "count";
+    public static final String KEY_ERROR = "error";
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    private long lastProgressAt = 0;
+
+    public CrimeSnapshotWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Write the crimes table to uri; ignored if a snapshot task is already queued or running
+     * The caller should hold a persistable write permission on the URI
+     */
+    public static void enqueueExport(Context context, Uri uri) {
+        enqueue(context, MODE_EXPORT, uri);
+    }
+
+    /**
+     * Replace the crimes table with the snapshot at uri; ignored if a snapshot task is
+     * already queued or running
+     * The caller should hold a persistable read permission on the URI
+     */
+    public static void enqueueRestore(Context context, Uri uri) {
+        enqueue(context, MODE_RESTORE, uri);
+    }
+
+    /**
+     * State, progress and result of the current or last snapshot task
+     */
+    public static LiveData<List<WorkInfo>> getWorkInfos(Context context) {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(UNIQUE_WORK_NAME);
+    }
+
+    /**
+     * Whether the work is an export (otherwise a restore); WorkInfo carries no input data
+     */
+    public static boolean isExport(WorkInfo workInfo) {
+        return workInfo.getTags().contains(MODE_EXPORT);
+    }
+
+    /**
+     * Whether any work under the unique name is queued, blocked or running
+     * Blocks on WorkManager's database; call off the main thread
+     */
+    static boolean isActive(Context context, String uniqueWorkName) {
+        try {
+            for (WorkInfo info : WorkManager.getInstance(context)
+                    .getWorkInfosForUniqueWork(uniqueWorkName).get()) {
+                if (!info.getState().isFinished()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Could not read state of " + uniqueWorkName, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void enqueue(Context context, String mode, Uri uri) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(CrimeSnapshotWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(KEY_MODE, mode)
+                        .putString(KEY_URI, uri.toString())
+                        .build())
+                .addTag(mode)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        boolean export = MODE_EXPORT.equals(getInputData().getString(KEY_MODE));
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+
+        if (isActive(context, CrimeImportWorker.UNIQUE_WORK_NAME)) {
+            Log.w(TAG, "Refusing snapshot " + (export ? "export" : "restore") + " while a CSV import runs");
+            return failure("A CSV import is running; try again when it has finished");
+        }
+        Log.d(TAG, "Starting snapshot " + (export ? "export to " : "restore from ") + uri);
+
+        AtomicReference<String> error = new AtomicReference<>();
+        CSVImporter.ImportListener listener = new CSVImporter.ImportListener() {
+            @Override
+            public void onProgress(int progress) {
+                publishProgress(progress);
+            }
+
+            @Override
+            public void onSuccess(int count) {}
+
+            @Override
+            public void onError(String message) {
+                error.set(message);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return isStopped();
+            }
+        };
+
+        // Runs on the worker's own thread: an export reads in pages without a transaction,
+        // a restore holds one long transaction, and neither ties up the database executors
+        SnapshotManager snapshotManager = new SnapshotManager(context, CrimeDatabase.getInstance(context));
+        long count = export ? snapshotManager.exportTo(uri, listener) : snapshotManager.restoreFrom(uri, listener);
+
+        if (count < 0) {
+            return failure(error.get() != null ? error.get() : "Snapshot " + (export ? "export" : "restore") + " failed");
+        }
+        return Result.success(new Data.Builder()
+                .putLong(KEY_COUNT, count)
+                .build());
+    }
+
+    private void publishProgress(int processed) {
+        long now = System.currentTimeMillis();
+        if (now - lastProgressAt < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        lastProgressAt = now;
+        setProgressAsync(new Data.Builder()
+                .putInt(KEY_PROCESSED, processed)
+                .build());
+    }
+
+    private static Result failure(String message) {
+        return Result.failure(new Data.Builder()
+                .putString(KEY_ERROR, message)
+                .build());
+    }
+}
@@ -0,0 +1,84 @@
+package com.uni.crimes.map;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Build and query benchmark for {@link ClusterIndex} at 1M points spread over
+ * West Yorkshire. Reports build time and the median viewport query per zoom; timings
+ * are printed only, the assertions cover that every query accounts for its points
+ * Skipped unless run with -Pbenchmarks, which sets crimes.benchmarks; the regular
+ * unit test run stays fast
+ */
+public class ClusterIndexBenchmarkTest {
+
+    private static final int POINTS = 1_000_000;
+    private static final int RUNS = 21;
+    private static final int[] ZOOMS = {6, 10, 13, 16, 17};
+    // Roughly the county: a phone-sized viewport is centred on Leeds at each zoom
+    private static final double SOUTH = 53.5;
+    private static final double NORTH = 54.0;
+    private static final double WEST = -2.2;
+    private static final double EAST = -1.2;
+
+    @Before
+    public void onlyWhenRequested() {
+        Assume.assumeTrue("Benchmarks run with -Pbenchmarks", Boolean.getBoolean("crimes.benchmarks"));
+    }
+
+    @Test
+    public void millionPointsBuildAndViewportQueries() {
+        Random random = new Random(11);
+        double[] lat = new double[POINTS];
+        double[] lng = new double[POINTS];
+        long[] ids = new long[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            lat[i] = SOUTH + random.nextDouble() * (NORTH - SOUTH);
+            lng[i] = WEST + random.nextDouble() * (EAST - WEST);
+            ids[i] = i + 1;
+        }
+
+        ClusterIndex index = new ClusterIndex();
+        long start = System.nanoTime();
+        index.load(lat, lng, ids, POINTS);
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(POINTS, index.size());
+
+        StringBuilder report = new StringBuilder(String.format(Locale.US,
+                "ClusterIndex, %d points: build %d ms", POINTS, buildMs));
+        for (int zoom : ZOOMS) {
+            // 1080x1920 px viewport at 512 px tiles
+            double lngSpan = 360 * 1080 / (512 * Math.pow(2, zoom));
+            double latSpan = lngSpan * 1920 / 1080 * Math.cos(Math.toRadians(53.8));
+            double west = -1.5492 - lngSpan / 2;
+            double south = 53.7997 - latSpan / 2;
+
+            long[] times = new long[RUNS];
+            List<ClusterIndex.Cluster> clusters = null;
+            for (int run = 0; run < RUNS; run++) {
+                start = System.nanoTime();
+                clusters = index.getClusters(west, south, west + lngSpan, south + latSpan, zoom);
+                times[run] = System.nanoTime() - start;
+            }
+            Arrays.sort(times);
+            report.append(String.format(Locale.US, "; zoom %d: %d entries in %d us",
+                    zoom, clusters.size(), times[RUNS / 2] / 1000));
+            assertFalse("Nothing drawn at zoom " + zoom, clusters.isEmpty());
+        }
+        System.out.println(report);
+
+        int total = 0;
+        for (ClusterIndex.Cluster cluster : index.getClusters(-180, -85, 180, 85, 0)) {
+            total += cluster.getCount();
+        }
+        assertEquals(POINTS, total);
+    }
+}
@@ -0,0 +1,147 @@
+package com.uni.crimes.map;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ClusterIndex}
+ */
+public class ClusterIndexTest {
+
+    // Leeds city centre
+    private static final double LAT = 53.7997;
+    private static final double LNG = -1.5492;
+
+    @Test
+    public void nearbyPointsClusterWhenZoomedOutAndSplitWhenZoomedIn() {
+        ClusterIndex index = new ClusterIndex();
+        // Two groups ~10 m apart internally, ~20 km from each other
+        index.load(new double[]{LAT, LAT + 0.0001, LAT + 0.0001, LAT + 0.2, LAT + 0.2001},
+                new double[]{LNG, LNG, LNG + 0.0001, LNG, LNG},
+                new long[]{1, 2, 3, 4, 5}, 5);
+
+        List<ClusterIndex.Cluster> world = index.getClusters(-180, -85, 180, 85, 0);
+        assertEquals(1, world.size());
+        assertEquals(5, world.get(0).getCount());
+        assertEquals(-1, world.get(0).getPointId());
+
+        List<ClusterIndex.Cluster> city = index.getClusters(-180, -85, 180, 85, 10);
+        assertEquals(2, city.size());
+        assertEquals(5, city.get(0).getCount() + city.get(1).getCount());
+
+        List<ClusterIndex.Cluster> street = index.getClusters(-180, -85, 180, 85, 20);
+        assertEquals(5, street.size());
+        Set<Long> ids = new HashSet<>();
+        for (ClusterIndex.Cluster cluster : street) {
+            assertFalse(cluster.isCluster());
+            ids.add(cluster.getPointId());
+        }
+        assertEquals(5, ids.size());
+    }
+
+    @Test
+    public void everyZoomAccountsForEveryPoint() {
+        Random random = new Random(7);
+        int size = 20_000;
+        double[] lat = new double[size];
+        double[] lng = new double[size];
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            lat[i] = 53.5 + random.nextDouble() * 0.5;
+            lng[i] = -2.2 + random.nextDouble() * 1.0;
+            ids[i] = size - i;
+        }
+        ClusterIndex index = new ClusterIndex();
+        index.load(lat, lng, ids, size);
+
+        for (int z = 0; z <= index.getMaxZoom() + 1; z++) {
+            assertEquals("zoom " + z, size, totalCount(index.getClusters(-180, -85, 180, 85, z)));
+        }
+        assertTrue(index.getClusters(-180, -85, 180, 85, 5).size() < 10);
+        assertEquals(size, index.getClusters(-180, -85, 180, 85, 17).size());
+    }
+
+    @Test
+    public void viewportQueryOnlyReturnsEntriesInside() {
+        ClusterIndex index = new ClusterIndex();
+        index.load(new double[]{LAT, 51.5074, 40.7128}, new double[]{LNG, -0.1278, -74.0060},
+                new long[]{1, 2, 3}, 3);
+
+        List<ClusterIndex.Cluster> yorkshire = index.getClusters(-2.5, 53.3, -1.0, 54.2, 12);
+        assertEquals(1, yorkshire.size());
+        assertEquals(1, yorkshire.get(0).getPointId());
+        assertEquals(LAT, yorkshire.get(0).getLatitude(), 1e-9);
+        assertEquals(LNG, yorkshire.get(0).getLongitude(), 1e-9);
+
+        // Box across the antimeridian covering neither city
+        assertTrue(index.getClusters(170, -10, -170, 10, 3).isEmpty());
+    }
+
+    @Test
+    public void insertAndRemoveKeepCountsConsistent() {
+        ClusterIndex index = new ClusterIndex();
+        index.load(new double[]{LAT, LAT + 0.0001}, new double[]{LNG, LNG}, new long[]{10, 11}, 2);
+
+        index.insert(12, LAT + 0.0002, LNG);
+        index.insert(13, 51.5074, -0.1278);
+        assertEquals(4, index.size());
+        assertEquals(4, totalCount(index.getClusters(-180, -85, 180, 85, 0)));
+        assertEquals(3, index.getClusters(-2.5, 53.3, -1.0, 54.2, 8).get(0).getCount());
+
+        assertTrue(index.remove(10));
+        assertTrue(index.remove(13));
+        assertFalse(index.remove(13));
+        assertFalse(index.remove(99));
+        assertEquals(2, index.size());
+        for (int z = 0; z <= 17; z++) {
+            assertEquals("zoom " + z, 2, totalCount(index.getClusters(-180, -85, 180, 85, z)));
+        }
+        assertTrue(index.getClusters(-1.0, 51.0, 0.5, 52.0, 8).isEmpty());
+    }
+
+    @Test
+    public void clusterShrunkToOnePointReportsThatPoint() {
+        ClusterIndex index = new ClusterIndex();
+        index.load(new double[]{LAT, LAT + 0.0001}, new double[]{LNG, LNG}, new long[]{10, 20}, 2);
+        index.insert(30, LAT + 0.0002, LNG);
+
+        assertTrue(index.remove(20));
+        assertTrue(index.remove(30));
+        for (int z = 0; z <= 17; z++) {
+            List<ClusterIndex.Cluster> clusters = index.getClusters(-180, -85, 180, 85, z);
+            assertEquals("zoom " + z, 1, clusters.size());
+            assertFalse("zoom " + z, clusters.get(0).isCluster());
+            assertEquals("zoom " + z, 10, clusters.get(0).getPointId());
+        }
+    }
+
+    @Test
+    public void manyInsertsTriggerRebuildWithoutLosingPoints() {
+        ClusterIndex index = new ClusterIndex();
+        Random random = new Random(3);
+        for (int i = 0; i < 5_000; i++) {
+            index.insert(i, 53.5 + random.nextDouble() * 0.5, -2.2 + random.nextDouble());
+        }
+        for (int i = 0; i < 5_000; i += 2) {
+            assertTrue(index.remove(i));
+        }
+        assertEquals(2_500, index.size());
+        for (int z = 0; z <= 17; z++) {
+            assertEquals("zoom " + z, 2_500, totalCount(index.getClusters(-180, -85, 180, 85, z)));
+        }
+    }
+
+    private static int totalCount(List<ClusterIndex.Cluster> clusters) {
+        int total = 0;
+        for (ClusterIndex.Cluster cluster : clusters) {
+            total += cluster.getCount();
+        }
+        return total;
+    }
+}
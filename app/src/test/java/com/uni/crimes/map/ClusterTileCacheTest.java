@@ -0,0 +1,81 @@
+package com.uni.crimes.map;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ClusterTileCache}
+ */
+public class ClusterTileCacheTest {
+
+    private static ClusterIndex randomIndex(int size) {
+        Random random = new Random(11);
+        double[] lat = new double[size];
+        double[] lng = new double[size];
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            lat[i] = 53.5 + random.nextDouble() * 0.5;
+            lng[i] = -2.2 + random.nextDouble();
+            ids[i] = i;
+        }
+        ClusterIndex index = new ClusterIndex();
+        index.load(lat, lng, ids, size);
+        return index;
+    }
+
+    @Test
+    public void tilesCoverTheViewportWithoutDuplicates() {
+        ClusterIndex index = randomIndex(10_000);
+        ClusterTileCache cache = new ClusterTileCache(index);
+
+        for (double zoom : new double[]{9.5, 12.2, 14.9, 17}) {
+            List<ClusterIndex.Cluster> direct = index.getClusters(-1.7, 53.7, -1.5, 53.8, zoom);
+            List<ClusterIndex.Cluster> tiled = cache.getClusters(-1.7, 53.7, -1.5, 53.8, zoom);
+            Set<Long> tiledIds = new HashSet<>();
+            for (ClusterIndex.Cluster cluster : tiled) {
+                assertTrue("duplicate at zoom " + zoom, tiledIds.add(cluster.getId()));
+            }
+            for (ClusterIndex.Cluster cluster : direct) {
+                assertTrue("missing at zoom " + zoom, tiledIds.contains(cluster.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void revisitedTilesAreServedFromCache() {
+        ClusterTileCache cache = new ClusterTileCache(randomIndex(1_000), 4);
+        cache.getClusters(-1.60, 53.75, -1.59, 53.76, 14);
+        int misses = cache.getMisses();
+        assertTrue(misses > 0);
+
+        // Nudge within the same tile
+        cache.getClusters(-1.599, 53.751, -1.591, 53.759, 14);
+        assertEquals(misses, cache.getMisses());
+        assertTrue(cache.getHits() > 0);
+
+        cache.invalidate();
+        cache.getClusters(-1.599, 53.751, -1.591, 53.759, 14);
+        assertTrue(cache.getMisses() > misses);
+    }
+
+    @Test
+    public void leastRecentlyUsedTilesAreEvicted() {
+        ClusterTileCache cache = new ClusterTileCache(randomIndex(1_000), 2);
+        // Three single-tile viewports far enough apart to land on different tiles
+        cache.getClusters(-2.10, 53.55, -2.099, 53.551, 14);
+        cache.getClusters(-1.60, 53.75, -1.599, 53.751, 14);
+        cache.getClusters(-1.30, 53.95, -1.299, 53.951, 14);
+        assertEquals(3, cache.getMisses());
+
+        cache.getClusters(-1.30, 53.95, -1.299, 53.951, 14);
+        assertEquals(3, cache.getMisses());
+        cache.getClusters(-2.10, 53.55, -2.099, 53.551, 14);
+        assertEquals(4, cache.getMisses());
+    }
+}
@@ -0,0 +1,120 @@
+package com.uni.crimes.map;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DensityGrid}
+ */
+public class DensityGridTest {
+
+    private static final int TYPES = 4;
+
+    @Test
+    public void parallelBuildMatchesIncrementalAdds() {
+        Random random = new Random(5);
+        int size = 300_000;
+        double[] lat = new double[size];
+        double[] lng = new double[size];
+        int[] types = new int[size];
+        for (int i = 0; i < size; i++) {
+            lat[i] = 52.9 + random.nextDouble() * 1.9;
+            lng[i] = -2.6 + random.nextDouble() * 2.2;
+            types[i] = random.nextInt(TYPES);
+        }
+
+        DensityGrid built = DensityGrid.forYorkshire(TYPES);
+        built.addAll(lat, lng, types, size, new ForkJoinPool(4));
+        DensityGrid added = DensityGrid.forYorkshire(TYPES);
+        for (int i = 0; i < size; i++) {
+            added.add(lat[i], lng[i], types[i]);
+        }
+
+        assertEquals(added.getOutside(), built.getOutside());
+        assertTrue(built.getOutside() > 0);
+        for (int level = 0; level < DensityGrid.RESOLUTIONS; level++) {
+            for (int type = DensityGrid.ALL_TYPES; type < TYPES; type++) {
+                assertArrayEquals("level " + level + " type " + type,
+                        added.getCounts(level, type), built.getCounts(level, type));
+            }
+            assertEquals(size - built.getOutside(), sum(built.getCounts(level, DensityGrid.ALL_TYPES)));
+        }
+    }
+
+    @Test
+    public void typeFilterPicksThatTypesCounts() {
+        DensityGrid grid = DensityGrid.forYorkshire(TYPES);
+        grid.add(53.80, -1.55, 1);
+        grid.add(53.80, -1.55, 1);
+        grid.add(53.80, -1.55, 2);
+        grid.add(53.95, -1.08, 2);
+
+        int level = DensityGrid.RESOLUTIONS - 1;
+        assertEquals(2, sum(grid.getCounts(level, 1)));
+        assertEquals(2, sum(grid.getCounts(level, 2)));
+        assertEquals(0, sum(grid.getCounts(level, 3)));
+        assertEquals(4, sum(grid.getCounts(level, DensityGrid.ALL_TYPES)));
+
+        grid.remove(53.80, -1.55, 1);
+        assertEquals(1, sum(grid.getCounts(0, 1)));
+        assertEquals(3, sum(grid.getCounts(0, DensityGrid.ALL_TYPES)));
+    }
+
+    @Test
+    public void maxCountCoversCellsOutsideAnyBox() {
+        DensityGrid grid = DensityGrid.forYorkshire(TYPES);
+        for (int i = 0; i < 5; i++) {
+            grid.add(53.80, -1.55, 1);
+        }
+        grid.add(53.95, -1.08, 2);
+
+        int level = DensityGrid.RESOLUTIONS - 1;
+        assertEquals(5, grid.getMaxCount(level, DensityGrid.ALL_TYPES));
+        assertEquals(5, grid.getMaxCount(level, 1));
+        assertEquals(1, grid.getMaxCount(level, 2));
+        assertEquals(0, grid.getMaxCount(level, 3));
+
+        grid.remove(53.80, -1.55, 1);
+        assertEquals(4, grid.getMaxCount(0, DensityGrid.ALL_TYPES));
+    }
+
+    @Test
+    public void forEachCellOnlyVisitsCellsInTheBox() {
+        DensityGrid grid = DensityGrid.forYorkshire(TYPES);
+        grid.add(53.80, -1.55, 0);
+        grid.add(53.80, -1.55, 0);
+        grid.add(53.95, -1.08, 0);
+
+        int level = DensityGrid.RESOLUTIONS - 1;
+        int[] visited = new int[2];
+        grid.forEachCell(level, DensityGrid.ALL_TYPES, -1.7, 53.7, -1.4, 53.9, (lat, lng, count) -> {
+            visited[0]++;
+            visited[1] += count;
+            assertEquals(53.80, lat, 0.01);
+            assertEquals(-1.55, lng, 0.01);
+        });
+        assertEquals(1, visited[0]);
+        assertEquals(2, visited[1]);
+    }
+
+    @Test
+    public void coarserLevelsAreUsedWhenZoomedOut() {
+        DensityGrid grid = DensityGrid.forYorkshire(TYPES);
+        assertEquals(0, grid.levelForZoom(5));
+        assertEquals(DensityGrid.RESOLUTIONS - 1, grid.levelForZoom(13));
+        assertTrue(grid.levelForZoom(8) <= grid.levelForZoom(9));
+        assertTrue(grid.getColumns(0) < grid.getColumns(DensityGrid.RESOLUTIONS - 1));
+    }
+
+    private static long sum(int[] counts) {
+        long sum = 0;
+        for (int count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,41 @@
+package com.uni.crimes.map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FrameTimeStats}
+ */
+public class FrameTimeStatsTest {
+
+    @Test
+    public void percentilesAndJankComeFromRecordedFrames() {
+        FrameTimeStats stats = new FrameTimeStats();
+        for (int i = 0; i < 95; i++) {
+            stats.addFrame(16_000_000L);
+        }
+        for (int i = 0; i < 5; i++) {
+            stats.addFrame(40_000_000L);
+        }
+
+        assertEquals(100, stats.getFrameCount());
+        assertEquals(5, stats.getJankyFrames());
+        assertEquals(17.2, stats.getMeanMs(), 1e-9);
+        assertEquals(16.5, stats.getPercentileMs(50), 1e-9);
+        assertEquals(16.5, stats.getPercentileMs(95), 1e-9);
+        assertEquals(40.5, stats.getPercentileMs(99), 1e-9);
+        assertEquals(40.0, stats.getMaxMs(), 1e-9);
+    }
+
+    @Test
+    public void emptyAndVerySlowFramesAreHandled() {
+        FrameTimeStats stats = new FrameTimeStats();
+        assertEquals(0, stats.getPercentileMs(95), 0);
+        assertEquals(0, stats.getMeanMs(), 0);
+
+        stats.addFrame(2_000_000_000L);
+        assertEquals(250.0, stats.getPercentileMs(50), 1e-9);
+        assertEquals(2000.0, stats.getMaxMs(), 1e-9);
+    }
+}
@@ -0,0 +1,94 @@
+package com.uni.crimes.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CrimeArchiveStreams}
+ */
+public class CrimeArchiveStreamsTest {
+
+    @Test
+    public void plainCsvIsPassedThrough() throws Exception {
+        List<String> seen = new ArrayList<>();
+        int count = CrimeArchiveStreams.forEachCsv(stream("a,b\n".getBytes(StandardCharsets.UTF_8)), null,
+                (name, csv) -> seen.add(name + "=" + read(csv)));
+
+        assertEquals(1, count);
+        assertEquals("null=a,b\n", seen.get(0));
+    }
+
+    @Test
+    public void gzipIsInflated() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write("a,b\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<String> seen = new ArrayList<>();
+        CrimeArchiveStreams.forEachCsv(stream(bytes.toByteArray()), null, (name, csv) -> seen.add(read(csv)));
+
+        assertEquals("a,b\n", seen.get(0));
+    }
+
+    @Test
+    public void zipEntriesAreFilteredByForce() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            entry(zip, "2024-01/", null);
+            entry(zip, "2024-01/2024-01-west-yorkshire-street.csv", "wy1");
+            entry(zip, "2024-01/2024-01-north-yorkshire-street.csv", "ny1");
+            entry(zip, "2024-02/2024-02-west-yorkshire-street.csv", "wy2");
+            entry(zip, "README.txt", "notes");
+        }
+
+        List<String> seen = new ArrayList<>();
+        int count = CrimeArchiveStreams.forEachCsv(stream(bytes.toByteArray()), "West Yorkshire",
+                (name, csv) -> seen.add(read(csv)));
+
+        assertEquals(2, count);
+        assertEquals("wy1", seen.get(0));
+        assertEquals("wy2", seen.get(1));
+    }
+
+    @Test
+    public void slugIgnoresCaseAndPunctuation() {
+        assertEquals("west-yorkshire", CrimeArchiveStreams.slug("  West   Yorkshire "));
+        assertEquals("2024-01-west-yorkshire-street-csv", CrimeArchiveStreams.slug("2024-01_West-Yorkshire-street.csv"));
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        if (content != null) {
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        zip.closeEntry();
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close(); // Must not close the archive
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.Crime;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CrimeImportPipeline}
+ * The parallel pipeline must deliver exactly what the sequential parser produces
+ */
+public class CrimeImportPipelineTest {
+
+    @Test
+    public void matchesSequentialParse() throws Exception {
+        String csv = buildCsv(20_000);
+
+        List<String> sequential = new ArrayList<>();
+        int sequentialInvalid = CrimeCsvParser.parse(new StringReader(csv), CrimeCsvParser.APP_LAYOUT, Crime::new,
+                crime -> sequential.add(describe(crime)));
+
+        // Small chunks so records, quotes and CRLFs straddle many chunk boundaries
+        CrimeImportPipeline pipeline = new CrimeImportPipeline(4, 512);
+        List<String> parallel = new ArrayList<>();
+        int parallelInvalid = pipeline.run(new StringReader(csv), CrimeCsvParser.APP_LAYOUT,
+                crime -> parallel.add(describe(crime)));
+
+        assertEquals(sequential, parallel);
+        assertEquals(sequentialInvalid, parallelInvalid);
+        assertEquals(sequential.size(), pipeline.getStats().getRows());
+    }
+
+    @Test
+    public void recordLongerThanChunkIsKeptWhole() throws Exception {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            longName.append("Leeds ");
+        }
+        String csv = "header\nCRIME1,Burglary,WYP,\"" + longName + "\n\",53.8,-1.5,None\nCRIME2,Drugs,WYP,L,1,2,None\n";
+
+        List<Crime> crimes = new ArrayList<>();
+        new CrimeImportPipeline(2, 64).run(new StringReader(csv), CrimeCsvParser.APP_LAYOUT, crimes::add);
+
+        assertEquals(2, crimes.size());
+        assertEquals("CRIME1", crimes.get(0).getCrimeId());
+        assertEquals("CRIME2", crimes.get(1).getCrimeId());
+    }
+
+    @Test
+    public void rejectionsAreCountedByReason() throws Exception {
+        String csv = "header\nCRIME1,Burglary,WYP,L,1,2,None\nshort,row\nCRIME2,,WYP,L,1,2,None\nx\n";
+
+        CrimeImportPipeline pipeline = new CrimeImportPipeline(2, 16);
+        int invalid = pipeline.run(new StringReader(csv), CrimeCsvParser.APP_LAYOUT, crime -> {});
+
+        assertEquals(3, invalid);
+        long[] rejections = pipeline.getRejections();
+        assertEquals(2, rejections[CrimeCsvParser.Rejection.TOO_FEW_FIELDS.ordinal()]);
+        assertEquals(1, rejections[CrimeCsvParser.Rejection.MISSING_CRIME_TYPE.ordinal()]);
+    }
+
+    @Test
+    public void carriageReturnOnlyFileMatchesSequentialParse() throws Exception {
+        String csv = buildCsv(5_000).replace("\r\n", "\r").replace('\n', '\r');
+
+        List<String> sequential = new ArrayList<>();
+        CrimeCsvParser.parse(new StringReader(csv), CrimeCsvParser.APP_LAYOUT, Crime::new,
+                crime -> sequential.add(describe(crime)));
+
+        CrimeImportPipeline pipeline = new CrimeImportPipeline(4, 512);
+        List<String> parallel = new ArrayList<>();
+        pipeline.run(new StringReader(csv), CrimeCsvParser.APP_LAYOUT, crime -> parallel.add(describe(crime)));
+
+        assertEquals(5_000, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void bareCarriageReturnEndsRecord() {
+        // Without CR boundaries a CR-only file never splits and is read into one chunk
+        assertEquals(4, boundary("a,b\rc,d"));
+        assertEquals(5, boundary("a,b\r\nc"));
+        // Quoted CRs are data, and a trailing CR may still be followed by LF
+        assertEquals(0, boundary("\"a\rb\",c"));
+        assertEquals(0, boundary("a,b\r"));
+    }
+
+    @Test
+    public void quoteInsideFieldIsData() {
+        // 12" opens nothing, so the line break after it still ends the record
+        assertEquals(11, boundary("a,12\" TV,b\nc"));
+        // "" inside quotes is an escape, not a close followed by a new open
+        assertEquals(0, boundary("\"a\"\"\nb\",c"));
+        assertEquals(9, boundary("\"a\"\"b\",c\nd"));
+        // A quote in the last slot may be half of ""
+        assertEquals(0, boundary("\"a\nb\""));
+    }
+
+    @Test
+    public void midFieldQuotesAndMultiLineRecordsMatchSequentialParse() throws Exception {
+        StringBuilder csv = new StringBuilder("crimeId,crimeType,reportedBy,lsoaName,latitude,longitude,outcomeCategory\n");
+        for (int i = 0; i < 3_000; i++) {
+            csv.append("CRIME").append(i)
+                    .append(",Theft of 12\" TV,West Yorkshire Police,")
+                    .append(i % 2 == 0 ? "\"Leeds\n\"\"North\"\"\r\nward " + i + "\"" : "Leeds " + i)
+                    .append(",53.8,-1.5,Under \"investigation\"\n");
+        }
+
+        List<String> sequential = new ArrayList<>();
+        CrimeCsvParser.parse(new StringReader(csv.toString()), CrimeCsvParser.APP_LAYOUT, Crime::new,
+                crime -> sequential.add(describe(crime)));
+
+        // Chunk sizes that put boundaries at every offset inside the quoted lines
+        for (int chunkChars : new int[]{37, 64, 101}) {
+            List<String> parallel = new ArrayList<>();
+            new CrimeImportPipeline(3, chunkChars).run(new StringReader(csv.toString()),
+                    CrimeCsvParser.APP_LAYOUT, crime -> parallel.add(describe(crime)));
+            assertEquals(3_000, sequential.size());
+            assertEquals("chunk " + chunkChars, sequential, parallel);
+        }
+    }
+
+    @Test
+    public void emptyInputProducesNoRows() throws Exception {
+        List<Crime> crimes = new ArrayList<>();
+        assertEquals(0, new CrimeImportPipeline(3, 128).run(new StringReader(""),
+                CrimeCsvParser.APP_LAYOUT, crimes::add));
+        assertTrue(crimes.isEmpty());
+    }
+
+    private static int boundary(String chars) {
+        return CrimeImportPipeline.lastRecordBoundary(chars.toCharArray(), chars.length());
+    }
+
+    private static String buildCsv(int rows) {
+        StringBuilder csv = new StringBuilder("crimeId,crimeType,reportedBy,lsoaName,latitude,longitude,outcomeCategory\r\n");
+        for (int i = 0; i < rows; i++) {
+            if (i % 97 == 0) {
+                csv.append("broken row\r\n");
+            }
+            csv.append("CRIME").append(i % 15_000) // some duplicate IDs
+                    .append(i % 3 == 0 ? ",\"Violence, \"\"sexual\"\"\"" : ",Burglary")
+                    .append(",West Yorkshire Police,\"Leeds\n").append(i % 400).append("\",")
+                    .append(53.0 + i / 100_000.0).append(',').append(-1.5 - i / 100_000.0)
+                    .append(",Under investigation\r\n");
+        }
+        return csv.toString();
+    }
+
+    private static String describe(Crime crime) {
+        return crime.getCrimeId() + "|" + crime.getCrimeType() + "|" + crime.getLsoaName() + "|"
+                + crime.getLatitude() + "|" + crime.getLongitude() + "|" + crime.getOutcomeCategory();
+    }
+}
@@ -0,0 +1,108 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.Crime;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CrimeSnapshot}
+ */
+public class CrimeSnapshotTest {
+
+    @Test
+    public void roundTripKeepsEveryField() throws Exception {
+        Crime crime = new Crime("abc123", "Burglary", "West Yorkshire Police", "Leeds 001A",
+                53.8008, -1.5491, "Under investigation", "2024-03");
+        crime.setContentHash(0x1234_5678_9abc_def0L);
+        Crime sparse = new Crime("NOID-00ff-0", "Anti-social behaviour", null, null, 0.0, 0.0, null, null);
+        String policeUkId = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+        Crime oddMonth = new Crime(policeUkId, "Drugs", "West Yorkshire Police", "Leeds 001A",
+                1.5, 2.5, "", "March 2024");
+
+        List<Crime> restored = roundTrip(Arrays.asList(crime, sparse, oddMonth));
+
+        assertEquals(3, restored.size());
+        assertEquals(crime.toString(), restored.get(0).toString());
+        assertEquals(crime.getMonth(), restored.get(0).getMonth());
+        assertEquals(crime.getContentHash(), restored.get(0).getContentHash());
+        assertNull(restored.get(1).getReportedBy());
+        assertNull(restored.get(1).getOutcomeCategory());
+        assertNull(restored.get(1).getMonth());
+        assertEquals(policeUkId, restored.get(2).getCrimeId());
+        assertEquals("March 2024", restored.get(2).getMonth());
+        assertEquals("", restored.get(2).getOutcomeCategory());
+        assertEquals(2.5, restored.get(2).getLongitude(), 0.0);
+    }
+
+    @Test
+    public void rowsSpanSeveralBlocks() throws Exception {
+        List<Crime> crimes = new ArrayList<>();
+        for (int i = 0; i < CrimeSnapshot.BLOCK_ROWS * 2 + 7; i++) {
+            crimes.add(new Crime("id" + i, "Type " + (i % 5), "Force", "LSOA " + (i % 100),
+                    i / 1000.0, -i / 1000.0, "Outcome", String.format("20%02d-%02d", i % 30, i % 12 + 1)));
+        }
+
+        List<Crime> restored = roundTrip(crimes);
+
+        assertEquals(crimes.size(), restored.size());
+        for (int i = 0; i < crimes.size(); i += 997) {
+            assertEquals(crimes.get(i).getCrimeId(), restored.get(i).getCrimeId());
+            assertEquals(crimes.get(i).getLsoaName(), restored.get(i).getLsoaName());
+            assertEquals(crimes.get(i).getMonth(), restored.get(i).getMonth());
+            assertEquals(crimes.get(i).getLatitude(), restored.get(i).getLatitude(), 0.0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFileIsRejected() throws Exception {
+        File file = write(Arrays.asList(new Crime("a", "Drugs", null, null, 0, 0, null, "2024-01")));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            CrimeSnapshot.Reader.map(channel);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws Exception {
+        new CrimeSnapshot.Reader(ByteBuffer.wrap("Crime ID,Month,Reported by,Falls within\n".getBytes()));
+    }
+
+    private static List<Crime> roundTrip(List<Crime> crimes) throws IOException {
+        File file = write(crimes);
+        List<Crime> restored = new ArrayList<>();
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            CrimeSnapshot.Reader reader = CrimeSnapshot.Reader.map(channel);
+            assertEquals(crimes.size(), reader.getRowCount());
+            reader.forEach(restored::add);
+        } finally {
+            file.delete();
+        }
+        return restored;
+    }
+
+    private static File write(List<Crime> crimes) throws IOException {
+        File file = File.createTempFile("crimes", ".snapshot");
+        try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+             CrimeSnapshot.Writer writer = new CrimeSnapshot.Writer(channel)) {
+            for (Crime crime : crimes) {
+                writer.add(crime);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,34 @@
+package com.uni.crimes.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FtsQueryBuilder}
+ */
+public class FtsQueryBuilderTest {
+
+    @Test
+    public void tokensBecomePrefixTerms() {
+        assertEquals("leeds* burg*", FtsQueryBuilder.toMatchQuery("Leeds Burg"));
+    }
+
+    @Test
+    public void punctuationSplitsTokens() {
+        assertEquals("anti* social*", FtsQueryBuilder.toMatchQuery("  anti-social  "));
+    }
+
+    @Test
+    public void columnFilterIsAppliedToEveryToken() {
+        assertEquals("lsoaName:leeds* lsoaName:001a*",
+                FtsQueryBuilder.toMatchQuery("Leeds 001A", "lsoaName"));
+    }
+
+    @Test
+    public void termWithoutTokensReturnsNull() {
+        assertNull(FtsQueryBuilder.toMatchQuery("%;\""));
+        assertNull(FtsQueryBuilder.toMatchQuery(""));
+        assertNull(FtsQueryBuilder.toMatchQuery(null));
+    }
+}
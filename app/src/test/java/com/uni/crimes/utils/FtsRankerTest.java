@@ -0,0 +1,64 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.Crime;
+import com.uni.crimes.model.CrimeSearchHit;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FtsRanker}
+ */
+public class FtsRankerTest {
+
+    @Test
+    public void hitCountSumsHitsInThisRowOnly() {
+        // 2 phrases x 2 columns; the other two values per cell are corpus-wide counts
+        byte[] matchinfo = matchinfo(2, 2,
+                1, 50, 40,
+                0, 3, 3,
+                2, 90, 70,
+                1, 10, 9);
+        assertEquals(4, FtsRanker.hitCount(matchinfo));
+    }
+
+    @Test
+    public void missingOrTruncatedMatchinfoCountsAsZero() {
+        assertEquals(0, FtsRanker.hitCount(null));
+        assertEquals(0, FtsRanker.hitCount(new byte[4]));
+        assertEquals(0, FtsRanker.hitCount(Arrays.copyOf(matchinfo(1, 1, 5, 5, 5), 12)));
+    }
+
+    @Test
+    public void rankOrdersByHitsAndKeepsQueryOrderForTies() {
+        List<Crime> ranked = FtsRanker.rank(Arrays.asList(
+                hit("A", 1), hit("B", 3), hit("C", 1), hit("D", 2), hit("E", 3)));
+        StringBuilder order = new StringBuilder();
+        for (Crime crime : ranked) {
+            order.append(crime.getCrimeId());
+        }
+        assertEquals("BEDAC", order.toString());
+    }
+
+    private static CrimeSearchHit hit(String crimeId, int hits) {
+        CrimeSearchHit hit = new CrimeSearchHit();
+        hit.setCrime(new Crime(crimeId, "Burglary", "West Yorkshire Police", "Leeds 001A",
+                53.8, -1.5, "Under investigation", "2024-01"));
+        hit.setMatchinfo(matchinfo(1, 1, hits, hits, 1));
+        return hit;
+    }
+
+    private static byte[] matchinfo(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
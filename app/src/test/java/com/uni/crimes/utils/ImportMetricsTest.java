@@ -0,0 +1,112 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.ImportReport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ImportMetrics}
+ */
+public class ImportMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void commitsFallIntoLatencyBuckets() {
+        ImportMetrics metrics = new ImportMetrics(0);
+        metrics.recordCommit(5 * MS);
+        metrics.recordCommit(10 * MS);
+        metrics.recordCommit(40 * MS);
+        metrics.recordCommit(3_000 * MS);
+
+        ImportReport report = metrics.toReport("test.csv", "1.0", ImportReport.STATUS_SUCCEEDED, null, 0);
+
+        assertEquals(4, report.getCommitCount());
+        assertEquals(3_000, report.getMaxCommitMs());
+        assertEquals("<=10ms: 2, <=50ms: 1, >1000ms: 1", report.getCommitHistogram());
+    }
+
+    @Test
+    public void throughputIsSampledPerInterval() {
+        ImportMetrics metrics = new ImportMetrics(0);
+        metrics.sample(500, 500 * MS);     // Too early for a sample
+        metrics.sample(1_000, 1_000 * MS);
+        metrics.sample(4_000, 2_000 * MS);
+
+        ImportReport report = metrics.toReport("test.csv", null, ImportReport.STATUS_SUCCEEDED, null, 2_500 * MS);
+
+        // The last half second is closed as a partial interval only if rows arrived in it
+        assertEquals("1000,3000", report.getThroughput());
+        assertEquals(ImportMetrics.SAMPLE_INTERVAL_MS, report.getThroughputIntervalMs());
+        assertEquals(1_600, report.getRowsPerSecond());
+    }
+
+    @Test
+    public void longImportsMergeSamples() {
+        ImportMetrics metrics = new ImportMetrics(0);
+        long rows = 0;
+        for (int second = 1; second <= ImportMetrics.MAX_SAMPLES + 1; second++) {
+            rows += 100;
+            metrics.sample(rows, second * 1_000 * MS);
+        }
+
+        ImportReport report = metrics.toReport("test.csv", null, ImportReport.STATUS_SUCCEEDED, null,
+                (ImportMetrics.MAX_SAMPLES + 1) * 1_000 * MS);
+
+        assertEquals(2 * ImportMetrics.SAMPLE_INTERVAL_MS, report.getThroughputIntervalMs());
+        assertEquals((ImportMetrics.MAX_SAMPLES + 2) / 2, report.getThroughput().split(",").length);
+        assertTrue(report.getThroughput().startsWith("100,100,"));
+    }
+
+    @Test
+    public void bytesAndRejectionsAreReported() throws Exception {
+        ImportMetrics metrics = new ImportMetrics(0);
+        try (InputStream inputStream = metrics.countBytes(new ByteArrayInputStream(new byte[10_000]))) {
+            byte[] buffer = new byte[4096];
+            while (inputStream.read(buffer) > 0) {
+                // Drain
+            }
+        }
+        long[] rejections = new long[CrimeCsvParser.Rejection.values().length];
+        rejections[CrimeCsvParser.Rejection.MISSING_CRIME_TYPE.ordinal()] = 3;
+        metrics.setWriteCounts(90, 7, 0);
+
+        ImportReport report = metrics.toReport("test.csv", null, ImportReport.STATUS_FAILED, "boom", MS);
+        assertEquals(10_000, report.getBytesRead());
+        assertEquals(0, report.getRowsRejected());
+
+        metrics.setPipelineResults(new CrimeImportPipeline(1, 16).getStats(), rejections);
+        report = metrics.toReport("test.csv", null, ImportReport.STATUS_SUCCEEDED, null, MS);
+        assertEquals(3, report.getRowsRejected());
+        assertEquals("missing crime type: 3", report.getRejections());
+        assertEquals(7, report.getDedupHits());
+        assertTrue(ImportMetrics.describe(report).contains("Rejected 3 (missing crime type: 3)"));
+    }
+
+    @Test
+    public void countersRefuseOtherThreadsButBytesDoNot() throws Exception {
+        ImportMetrics metrics = new ImportMetrics(0);
+        InputStream counted = metrics.countBytes(new ByteArrayInputStream(new byte[100]));
+        Throwable[] thrown = new Throwable[1];
+        Thread other = new Thread(() -> {
+            try {
+                counted.read(new byte[100]);
+                metrics.recordCommit(1);
+            } catch (Throwable t) {
+                thrown[0] = t;
+            }
+        });
+        other.start();
+        other.join();
+
+        assertTrue(thrown[0] instanceof IllegalStateException);
+        assertEquals(100, metrics.getBytesRead());
+        assertEquals(0, metrics.toReport("test.csv", null, ImportReport.STATUS_SUCCEEDED, null, MS)
+                .getCommitCount());
+    }
+}
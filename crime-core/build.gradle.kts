@@ -0,0 +1,22 @@
+// Pure-Java CSV parsing and side-table SQL, shared by the app and by
+// generate<Variant>CrimeDatabase in app/build.gradle.kts
+plugins {
+    `java-library`
+}
+
+group = "com.uni.crimes"
+version = "1.0"
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
+
+// The LongHashSet benchmark only runs with -Pbenchmarks
+tasks.test {
+    systemProperty("crimes.benchmarks", project.hasProperty("benchmarks"))
+}
@@ -0,0 +1,212 @@
+package com.uni.crimes.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL for the tables and triggers Room does not manage: the R*Tree spatial index,
+ * the crime_types dictionary triggers and the trigger-maintained count tables
+ * Plain statements with no Android dependency, so the app (migrations, fresh
+ * databases) and the Gradle task that builds the prepackaged database run the same SQL
+ * Every CREATE uses IF NOT EXISTS, so the statements are safe to run more than once
+ */
+public final class CrimeSideTables {
+
+    public static final String SPATIAL_INDEX_TABLE = "crimes_rtree";
+
+    private static final List<Aggregate> AGGREGATES = Collections.unmodifiableList(Arrays.asList(
+            new Aggregate("crime_counts_type_month", "crimeType", "month"),
+            new Aggregate("crime_counts_lsoa_month", "lsoaName", "month"),
+            new Aggregate("crime_counts_outcome", "outcomeCategory")));
+
+    private CrimeSideTables() {}
+
+    /**
+     * rtree table over crime coordinates, keyed by crimes.rowid, and its sync triggers
+     */
+    public static List<String> spatialIndex() {
+        String upsert = "BEGIN INSERT OR REPLACE INTO `" + SPATIAL_INDEX_TABLE + "` VALUES " +
+                "(NEW.rowid, NEW.latitude, NEW.latitude, NEW.longitude, NEW.longitude); END";
+        return Arrays.asList(
+                "CREATE VIRTUAL TABLE IF NOT EXISTS `" + SPATIAL_INDEX_TABLE + "` " +
+                        "USING rtree(id, minLat, maxLat, minLng, maxLng)",
+                "CREATE TRIGGER IF NOT EXISTS crimes_rtree_AFTER_INSERT AFTER INSERT ON `crimes` " + upsert,
+                "CREATE TRIGGER IF NOT EXISTS crimes_rtree_AFTER_UPDATE " +
+                        "AFTER UPDATE OF latitude, longitude ON `crimes` " + upsert,
+                "CREATE TRIGGER IF NOT EXISTS crimes_rtree_AFTER_DELETE AFTER DELETE ON `crimes` " +
+                        "BEGIN DELETE FROM `" + SPATIAL_INDEX_TABLE + "` WHERE id = OLD.rowid; END");
+    }
+
+    /**
+     * Index rows that were stored before the triggers existed
+     */
+    public static String spatialIndexBackfill() {
+        return "INSERT OR REPLACE INTO `" + SPATIAL_INDEX_TABLE + "` " +
+                "SELECT rowid, latitude, latitude, longitude, longitude FROM `crimes`";
+    }
+
+    /**
+     * crime_types exactly as Room creates it for the CrimeType entity
+     */
+    public static List<String> dictionaryTables() {
+        return Arrays.asList(
+                "CREATE TABLE IF NOT EXISTS `crime_types` " +
+                        "(`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS `index_crime_types_name` ON `crime_types` (`name`)");
+    }
+
+    /**
+     * Triggers that add every new crime type to crime_types; entries are never removed,
+     * so ids stay stable
+     */
+    public static List<String> dictionaryTriggers() {
+        String addNew = "INSERT OR IGNORE INTO `crime_types`(`name`) " +
+                "SELECT NEW.`crimeType` WHERE NEW.`crimeType` IS NOT NULL; ";
+        return Arrays.asList(
+                "CREATE TRIGGER IF NOT EXISTS crime_types_AFTER_INSERT " +
+                        "AFTER INSERT ON `crimes` BEGIN " + addNew + "END",
+                "CREATE TRIGGER IF NOT EXISTS crime_types_AFTER_UPDATE " +
+                        "AFTER UPDATE OF `crimeType` ON `crimes` BEGIN " + addNew + "END");
+    }
+
+    /**
+     * Add the crime types of rows stored before the triggers existed
+     */
+    public static String dictionaryBackfill() {
+        return "INSERT OR IGNORE INTO `crime_types`(`name`) " +
+                "SELECT DISTINCT `crimeType` FROM `crimes` WHERE `crimeType` IS NOT NULL";
+    }
+
+    /**
+     * Count tables exactly as Room creates them for the count entities
+     */
+    public static List<String> aggregateTables() {
+        List<String> statements = new ArrayList<>();
+        for (Aggregate aggregate : AGGREGATES) {
+            StringBuilder columns = new StringBuilder();
+            for (String key : aggregate.keys) {
+                columns.append('`').append(key).append("` TEXT NOT NULL, ");
+            }
+            statements.add("CREATE TABLE IF NOT EXISTS `" + aggregate.table + "` (" + columns +
+                    "`crimeCount` INTEGER NOT NULL, PRIMARY KEY(" + aggregate.keyList() + "))");
+        }
+        return statements;
+    }
+
+    /**
+     * Triggers that adjust one counter row per insert, update or delete
+     */
+    public static List<String> aggregateTriggers() {
+        List<String> statements = new ArrayList<>();
+        for (Aggregate aggregate : AGGREGATES) {
+            statements.add("CREATE TRIGGER IF NOT EXISTS " + aggregate.table + "_AFTER_INSERT " +
+                    "AFTER INSERT ON `crimes` BEGIN " + aggregate.increment("NEW") + "END");
+            statements.add("CREATE TRIGGER IF NOT EXISTS " + aggregate.table + "_AFTER_DELETE " +
+                    "AFTER DELETE ON `crimes` BEGIN " + aggregate.decrement("OLD") + "END");
+            statements.add("CREATE TRIGGER IF NOT EXISTS " + aggregate.table + "_AFTER_UPDATE " +
+                    "AFTER UPDATE OF " + aggregate.keyList() + " ON `crimes` BEGIN " +
+                    aggregate.decrement("OLD") + aggregate.increment("NEW") + "END");
+        }
+        return statements;
+    }
+
+    /**
+     * Recompute every count table from the crimes table
+     */
+    public static List<String> aggregateRebuild() {
+        List<String> statements = new ArrayList<>();
+        for (Aggregate aggregate : AGGREGATES) {
+            statements.add("DELETE FROM `" + aggregate.table + "`");
+            statements.add("INSERT INTO `" + aggregate.table + "` " + aggregate.expectedQuery());
+        }
+        return statements;
+    }
+
+    public static List<Aggregate> aggregates() {
+        return AGGREGATES;
+    }
+
+    /**
+     * Names of every trigger created by spatialIndex, dictionaryTriggers and aggregateTriggers
+     */
+    public static List<String> triggerNames() {
+        List<String> names = new ArrayList<>(Arrays.asList(
+                "crimes_rtree_AFTER_INSERT", "crimes_rtree_AFTER_UPDATE", "crimes_rtree_AFTER_DELETE",
+                "crime_types_AFTER_INSERT", "crime_types_AFTER_UPDATE"));
+        for (Aggregate aggregate : AGGREGATES) {
+            names.add(aggregate.table + "_AFTER_INSERT");
+            names.add(aggregate.table + "_AFTER_DELETE");
+            names.add(aggregate.table + "_AFTER_UPDATE");
+        }
+        return names;
+    }
+
+    /**
+     * One count table and the crimes columns it groups by
+     * NULL keys are stored as '' because the key columns are part of the primary key
+     */
+    public static final class Aggregate {
+        private final String table;
+        private final String[] keys;
+
+        Aggregate(String table, String... keys) {
+            this.table = table;
+            this.keys = keys;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String keyList() {
+            StringBuilder sb = new StringBuilder();
+            for (String key : keys) {
+                if (sb.length() > 0) sb.append(", ");
+                sb.append('`').append(key).append('`');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Counts computed from scratch, in the column order of the table
+         */
+        public String expectedQuery() {
+            StringBuilder select = new StringBuilder();
+            for (String key : keys) {
+                if (select.length() > 0) select.append(", ");
+                select.append("IFNULL(`").append(key).append("`, '') AS `").append(key).append('`');
+            }
+            return "SELECT " + select + ", COUNT(*) AS `crimeCount` FROM `crimes` GROUP BY " + keyList();
+        }
+
+        private String keyValues(String row) {
+            StringBuilder sb = new StringBuilder();
+            for (String key : keys) {
+                if (sb.length() > 0) sb.append(", ");
+                sb.append("IFNULL(").append(row).append(".`").append(key).append("`, '')");
+            }
+            return sb.toString();
+        }
+
+        private String keyMatch(String row) {
+            StringBuilder sb = new StringBuilder();
+            for (String key : keys) {
+                if (sb.length() > 0) sb.append(" AND ");
+                sb.append('`').append(key).append("` = IFNULL(").append(row).append(".`").append(key).append("`, '')");
+            }
+            return sb.toString();
+        }
+
+        private String increment(String row) {
+            return "INSERT OR IGNORE INTO `" + table + "` VALUES (" + keyValues(row) + ", 0); " +
+                    "UPDATE `" + table + "` SET `crimeCount` = `crimeCount` + 1 WHERE " + keyMatch(row) + "; ";
+        }
+
+        private String decrement(String row) {
+            return "UPDATE `" + table + "` SET `crimeCount` = `crimeCount` - 1 WHERE " + keyMatch(row) + "; " +
+                    "DELETE FROM `" + table + "` WHERE " + keyMatch(row) + " AND `crimeCount` <= 0; ";
+        }
+    }
+}
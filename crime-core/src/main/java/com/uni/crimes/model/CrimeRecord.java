@@ -0,0 +1,44 @@
+package com.uni.crimes.model;
+
+/**
+ * Plain crime row with no Android or Room dependencies
+ * Used where the app's Crime entity is not available, e.g. the Gradle task that
+ * builds the prepackaged database
+ */
+public class CrimeRecord implements CrimeRow {
+    private String crimeId;
+    private final String crimeType;
+    private final String reportedBy;
+    private final String lsoaName;
+    private final double latitude;
+    private final double longitude;
+    private final String outcomeCategory;
+    private final String month;
+    private long contentHash;
+
+    public CrimeRecord(String crimeId, String crimeType, String reportedBy, String lsoaName,
+                       double latitude, double longitude, String outcomeCategory, String month) {
+        this.crimeId = crimeId;
+        this.crimeType = crimeType;
+        this.reportedBy = reportedBy;
+        this.lsoaName = lsoaName;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.outcomeCategory = outcomeCategory;
+        this.month = month;
+    }
+
+    @Override public String getCrimeId() { return crimeId; }
+    @Override public void setCrimeId(String crimeId) { this.crimeId = crimeId; }
+
+    @Override public String getCrimeType() { return crimeType; }
+    @Override public String getReportedBy() { return reportedBy; }
+    @Override public String getLsoaName() { return lsoaName; }
+    @Override public double getLatitude() { return latitude; }
+    @Override public double getLongitude() { return longitude; }
+    @Override public String getOutcomeCategory() { return outcomeCategory; }
+    @Override public String getMonth() { return month; }
+
+    @Override public long getContentHash() { return contentHash; }
+    @Override public void setContentHash(long contentHash) { this.contentHash = contentHash; }
+}
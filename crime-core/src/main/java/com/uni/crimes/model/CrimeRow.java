@@ -0,0 +1,23 @@
+package com.uni.crimes.model;
+
+/**
+ * Fields of one crime as the CSV parser fills them in
+ * Implemented by the app's Room entity and by CrimeRecord, so the same parser code
+ * feeds the device import and the build-time database generator
+ */
+public interface CrimeRow {
+
+    String getCrimeId();
+    void setCrimeId(String crimeId);
+
+    String getCrimeType();
+    String getReportedBy();
+    String getLsoaName();
+    double getLatitude();
+    double getLongitude();
+    String getOutcomeCategory();
+    String getMonth();
+
+    long getContentHash();
+    void setContentHash(long contentHash);
+}
@@ -0,0 +1,210 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.CrimeRow;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns CSV records into crime rows using CsvTokenizer
+ * The row type comes from a CrimeFactory: the app builds its Room entity directly,
+ * the prepackaged database generator builds plain CrimeRecords
+ * Rows with too few columns or without a crime type are skipped, unreadable coordinates
+ * become 0. Rows without a crime ID (police.uk leaves it empty for anti-social
+ * behaviour) get a synthetic ID derived from their content and position, so importing
+ * the same file twice produces the same keys
+ */
+public class CrimeCsvParser {
+
+    /**
+     * Default month for files that carry no month column
+     */
+    public static final String DEFAULT_MONTH = "2024-01";
+
+    public interface CrimeHandler<T extends CrimeRow> {
+        void onCrime(T crime);
+    }
+
+    /**
+     * Creates a row from the parsed fields; matches the field order of the row constructors
+     */
+    public interface CrimeFactory<T extends CrimeRow> {
+        T create(String crimeId, String crimeType, String reportedBy, String lsoaName,
+                 double latitude, double longitude, String outcomeCategory, String month);
+    }
+
+    /**
+     * Why toCrime rejected a record, for import metrics
+     */
+    public enum Rejection {
+        TOO_FEW_FIELDS("too few fields"),
+        MISSING_CRIME_TYPE("missing crime type");
+
+        private final String label;
+
+        Rejection(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Column positions of the crime fields in a CSV layout, -1 where a field is absent
+     * Built once per file (see CrimeCsvSchema), so the per-row work is array lookups
+     */
+    public static class Columns {
+        final int crimeId;
+        final int crimeType;
+        final int reportedBy;
+        final int lsoaName;
+        final int latitude;
+        final int longitude;
+        final int outcomeCategory;
+        final int month;
+        final int minimumFieldCount;
+
+        public Columns(int crimeId, int crimeType, int reportedBy, int lsoaName,
+                       int latitude, int longitude, int outcomeCategory, int month,
+                       int minimumFieldCount) {
+            this.crimeId = crimeId;
+            this.crimeType = crimeType;
+            this.reportedBy = reportedBy;
+            this.lsoaName = lsoaName;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.outcomeCategory = outcomeCategory;
+            this.month = month;
+            this.minimumFieldCount = minimumFieldCount;
+        }
+    }
+
+    /**
+     * App format: crimeId,crimeType,reportedBy,lsoaName,latitude,longitude,outcomeCategory
+     */
+    public static final Columns APP_LAYOUT = new Columns(0, 1, 2, 3, 4, 5, 6, -1, 7);
+
+    /**
+     * Street-level data.police.uk export: Crime ID, Month, Reported by, Falls within,
+     * Longitude, Latitude, Location, LSOA code, LSOA name, Crime type,
+     * Last outcome category, Context
+     */
+    public static final Columns POLICE_UK_LAYOUT = new Columns(0, 9, 2, 8, 5, 4, 10, 1, 11);
+
+    private static final String SYNTHETIC_ID_PREFIX = "NOID-";
+
+    private CrimeCsvParser() {}
+
+    /**
+     * Parse every record after the header row
+     * @return Number of records skipped as invalid
+     */
+    public static <T extends CrimeRow> int parse(Reader reader, Columns columns, CrimeFactory<T> factory,
+                                                 CrimeHandler<T> handler) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(reader);
+        CrimeHandler<T> output = withSyntheticIds(handler);
+        int skipped = 0;
+
+        // Skip header line
+        if (!tokenizer.nextRecord()) {
+            return 0;
+        }
+
+        while (tokenizer.nextRecord()) {
+            T crime = toCrime(tokenizer, columns, factory);
+            if (crime != null) {
+                output.onCrime(crime);
+            } else {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Map the tokenizer's current record to a row
+     * A record without a crime ID gets an empty one; withSyntheticIds fills it in
+     * @return The crime, or null if the record is invalid
+     */
+    public static <T extends CrimeRow> T toCrime(CsvTokenizer tokenizer, Columns columns, CrimeFactory<T> factory) {
+        if (rejection(tokenizer, columns) != null) {
+            return null;
+        }
+        T crime = factory.create(
+                columns.crimeId >= 0 ? tokenizer.getString(columns.crimeId) : "",
+                tokenizer.getString(columns.crimeType),
+                text(tokenizer, columns.reportedBy),
+                text(tokenizer, columns.lsoaName),
+                tokenizer.getDouble(columns.latitude, 0.0),
+                tokenizer.getDouble(columns.longitude, 0.0),
+                text(tokenizer, columns.outcomeCategory),
+                columns.month >= 0 && !tokenizer.isBlank(columns.month)
+                        ? tokenizer.getString(columns.month) : DEFAULT_MONTH);
+        // Hashed here, on the parser threads, so delta imports only compare longs
+        crime.setContentHash(contentHash(crime));
+        return crime;
+    }
+
+    /**
+     * @return Why toCrime rejects the tokenizer's current record, or null if it is valid
+     */
+    public static Rejection rejection(CsvTokenizer tokenizer, Columns columns) {
+        if (tokenizer.getFieldCount() < columns.minimumFieldCount) {
+            return Rejection.TOO_FEW_FIELDS;
+        }
+        if (tokenizer.isBlank(columns.crimeType)) {
+            return Rejection.MISSING_CRIME_TYPE;
+        }
+        return null;
+    }
+
+    /**
+     * 64-bit hash of every imported field except the crime ID
+     * Delta imports compare it with the stored hash to find changed rows
+     */
+    public static long contentHash(CrimeRow crime) {
+        return LongHashSet.hash(crime.getMonth() + '|' + crime.getCrimeType() + '|' +
+                crime.getReportedBy() + '|' + crime.getLsoaName() + '|' + crime.getLatitude() + '|' +
+                crime.getLongitude() + '|' + crime.getOutcomeCategory());
+    }
+
+    private static String text(CsvTokenizer tokenizer, int column) {
+        return column >= 0 ? tokenizer.getString(column) : null;
+    }
+
+    /**
+     * 64-bit hash of the fields that identify an incident: month, type, force, LSOA
+     * and location. The outcome is left out because it changes between monthly
+     * exports, and a row whose outcome moved must keep its synthetic ID
+     */
+    static long identityHash(CrimeRow crime) {
+        return LongHashSet.hash(crime.getMonth() + '|' + crime.getCrimeType() + '|' +
+                crime.getReportedBy() + '|' + crime.getLsoaName() + '|' + crime.getLatitude() + '|' +
+                crime.getLongitude());
+    }
+
+    /**
+     * Wrap a handler so crimes without an ID get a synthetic one before delivery
+     * Must see the crimes in file order: the ID is the row's identityHash plus how
+     * many rows with the same identity came before it, which keeps genuinely
+     * repeated rows apart
+     */
+    public static <T extends CrimeRow> CrimeHandler<T> withSyntheticIds(CrimeHandler<T> handler) {
+        Map<Long, Integer> occurrences = new HashMap<>();
+        return crime -> {
+            if (crime.getCrimeId().isEmpty()) {
+                long hash = identityHash(crime);
+                Integer seen = occurrences.get(hash);
+                int ordinal = seen == null ? 0 : seen + 1;
+                occurrences.put(hash, ordinal);
+                crime.setCrimeId(SYNTHETIC_ID_PREFIX + String.format(Locale.US, "%016x-%d", hash, ordinal));
+            }
+            handler.onCrime(crime);
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package com.uni.crimes.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Detects the column layout of a crime CSV from its header row
+ * Header names are matched case-insensitively ignoring spaces and punctuation, so both
+ * the app's own export (crimeId, crimeType, ...) and the street-level data.police.uk
+ * file (Crime ID, Month, ..., Last outcome category, Context) map onto Crime fields
+ * without positional assumptions
+ */
+public class CrimeCsvSchema {
+
+    // Enough for any header row; the reader is rewound to the mark afterwards
+    private static final int HEADER_READ_LIMIT = 64 * 1024;
+
+    /**
+     * The header does not describe crimes (no crime type column)
+     */
+    public static class UnrecognisedHeaderException extends IOException {
+        UnrecognisedHeaderException(String message) {
+            super(message);
+        }
+    }
+
+    private CrimeCsvSchema() {}
+
+    /**
+     * Read the header row and rewind, so the caller still sees the file from the start
+     * @param reader Reader positioned at the start of the file; must support mark
+     * @throws UnrecognisedHeaderException If the header has no crime type column
+     */
+    public static CrimeCsvParser.Columns detect(BufferedReader reader) throws IOException {
+        reader.mark(HEADER_READ_LIMIT);
+        CsvTokenizer tokenizer = new CsvTokenizer(reader, 4096);
+        if (!tokenizer.nextRecord()) {
+            reader.reset();
+            return CrimeCsvParser.APP_LAYOUT;
+        }
+        String[] header = new String[tokenizer.getFieldCount()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = tokenizer.getString(i);
+        }
+        reader.reset();
+        return fromHeader(header);
+    }
+
+    /**
+     * Build the column map for a header row
+     * @throws UnrecognisedHeaderException If the header has no crime type column
+     */
+    public static CrimeCsvParser.Columns fromHeader(String[] header) throws IOException {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String name = normalize(header[i]);
+            if (!index.containsKey(name)) {
+                index.put(name, i);
+            }
+        }
+
+        int crimeType = column(index, "crimetype");
+        if (crimeType < 0) {
+            throw new UnrecognisedHeaderException("Unrecognised CSV header: no crime type column");
+        }
+        int crimeId = column(index, "crimeid");
+        int reportedBy = column(index, "reportedby");
+        int lsoaName = column(index, "lsoaname");
+        int latitude = column(index, "latitude");
+        int longitude = column(index, "longitude");
+        int outcomeCategory = column(index, "lastoutcomecategory", "outcomecategory");
+        int month = column(index, "month");
+
+        // Rows shorter than the last mapped column are truncated and skipped
+        int lastColumn = Math.max(Math.max(Math.max(crimeId, crimeType), Math.max(reportedBy, lsoaName)),
+                Math.max(Math.max(latitude, longitude), Math.max(outcomeCategory, month)));
+        return new CrimeCsvParser.Columns(crimeId, crimeType, reportedBy, lsoaName,
+                latitude, longitude, outcomeCategory, month, lastColumn + 1);
+    }
+
+    private static int column(Map<String, Integer> index, String... names) {
+        for (String name : names) {
+            Integer column = index.get(name);
+            if (column != null) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,291 @@
+package com.uni.crimes.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 CSV tokenizer shared by every import path
+ * Reads through one reusable char buffer and keeps the current record in a second
+ * reusable buffer, so walking a file allocates nothing per line; callers only create
+ * Strings for the fields they actually keep
+ *
+ * Handles quoted fields, escaped quotes (""), commas and line breaks inside quotes,
+ * LF, CRLF and bare CR line endings, and a leading byte order mark
+ */
+public class CsvTokenizer implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // Largest mantissa that converts to double exactly, and the exact powers of ten
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean started = false;
+
+    // Current record: unescaped field characters plus [start, end) offsets per field
+    private char[] record = new char[256];
+    private int recordLength = 0;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    private int line = 1;
+    private int recordLine = 0;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Advance to the next record
+     * @return False at end of input
+     */
+    public boolean nextRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        if (c == -1) {
+            return false;
+        }
+        recordLine = line;
+
+        int fieldStart = 0;
+        boolean atFieldStart = true;
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // Unterminated quote: keep what was read
+                    endField(fieldStart);
+                    return true;
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c == '"') {
+                        append('"');
+                        c = read();
+                    } else {
+                        quoted = false;
+                    }
+                    continue;
+                }
+                if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                    line++;
+                }
+                append((char) c);
+                c = read();
+                continue;
+            }
+
+            if (c == '"' && atFieldStart) {
+                quoted = true;
+                atFieldStart = false;
+                c = read();
+                continue;
+            }
+            if (c == ',') {
+                endField(fieldStart);
+                fieldStart = recordLength;
+                atFieldStart = true;
+                c = read();
+                continue;
+            }
+            if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c != -1) {
+                    line++;
+                }
+                endField(fieldStart);
+                return true;
+            }
+            append((char) c);
+            atFieldStart = false;
+            c = read();
+        }
+    }
+
+    /**
+     * Number of fields in the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Physical line (1-based) on which the current record starts
+     */
+    public int getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * @return True if the field is missing or only whitespace
+     */
+    public boolean isBlank(int field) {
+        return field >= fieldCount || trimmedStart(field) == trimmedEnd(field);
+    }
+
+    /**
+     * Field value with surrounding whitespace removed, as the old parsers' trim() did
+     * @return The value, or "" if the record has no such field
+     */
+    public String getString(int field) {
+        if (field >= fieldCount) {
+            return "";
+        }
+        int start = trimmedStart(field);
+        return new String(record, start, trimmedEnd(field) - start);
+    }
+
+    /**
+     * Parse a decimal field straight from the record buffer
+     * Plain decimals with up to 15 significant digits (all coordinates in the dataset)
+     * are converted exactly without creating a String; anything else falls back to
+     * Double.parseDouble
+     * @return The value, or defaultValue if the field is blank or not a number
+     */
+    public double getDouble(int field, double defaultValue) {
+        if (isBlank(field)) {
+            return defaultValue;
+        }
+        int start = trimmedStart(field);
+        int end = trimmedEnd(field);
+        double fast = parseDecimal(record, start, end);
+        if (!Double.isNaN(fast)) {
+            return fast;
+        }
+        try {
+            return Double.parseDouble(new String(record, start, end - start));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Clinger's fast path: an exact integer mantissa divided by an exact power of ten
+     * is correctly rounded
+     * @return The value, or NaN if the text needs the slow path
+     */
+    static double parseDecimal(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (chars[i] == '-' || chars[i] == '+') {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return Double.NaN;
+                }
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                seenDigit = true;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private int trimmedStart(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (start < end && Character.isWhitespace(record[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (end > start && Character.isWhitespace(record[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = recordLength;
+        fieldCount++;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
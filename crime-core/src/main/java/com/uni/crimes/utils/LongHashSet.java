@@ -0,0 +1,129 @@
+package com.uni.crimes.utils;
+
+/**
+ * Compact open-addressing set of 64-bit hashes
+ * One long per slot and no per-entry objects, so a million crime IDs take 16 MB
+ * instead of the ~100 MB a HashSet&lt;String&gt; of the same IDs would hold
+ * Not thread safe; callers synchronize
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] slots;
+    private int size = 0;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize Number of entries to hold before the first resize
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        slots = new long[capacity];
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * 64-bit hash of a string: FNV-1a over the chars, then a murmur3 finalizer
+     */
+    public static long hash(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return finish(h);
+    }
+
+    /**
+     * Same hash as {@link #hash(CharSequence)} over a char range, without creating a String
+     */
+    public static long hash(char[] chars, int start, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < start + length; i++) {
+            h = (h ^ chars[i]) * 0x100000001b3L;
+        }
+        return finish(h);
+    }
+
+    /**
+     * @return True if the hash was not already present
+     */
+    public boolean add(long hash) {
+        hash = nonEmpty(hash);
+        int mask = slots.length - 1;
+        int index = spread(hash) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == hash) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = hash;
+        if (++size > resizeAt) {
+            resize();
+        }
+        return true;
+    }
+
+    public boolean contains(long hash) {
+        hash = nonEmpty(hash);
+        int mask = slots.length - 1;
+        int index = spread(hash) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == hash) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap used by the slot array, for memory reports
+     */
+    public long footprintBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    private void resize() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        resizeAt = (int) (slots.length * MAX_LOAD);
+        int mask = slots.length - 1;
+        for (long hash : old) {
+            if (hash != EMPTY) {
+                int index = spread(hash) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = hash;
+            }
+        }
+    }
+
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long nonEmpty(long hash) {
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,123 @@
+package com.uni.crimes.utils;
+
+import com.uni.crimes.model.CrimeRecord;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CrimeCsvSchema} and synthetic crime IDs
+ */
+public class CrimeCsvSchemaTest {
+
+    private static final String POLICE_UK_HEADER = "Crime ID,Month,Reported by,Falls within,Longitude,Latitude," +
+            "Location,LSOA code,LSOA name,Crime type,Last outcome category,Context\n";
+
+    @Test
+    public void mapsPoliceUkStreetLevelColumns() throws Exception {
+        String csv = POLICE_UK_HEADER +
+                "abc123,2024-03,West Yorkshire Police,West Yorkshire Police,-1.549,53.801," +
+                "On or near High Street,E01011352,Leeds 111B,Burglary,Under investigation,\n";
+
+        List<CrimeRecord> crimes = parse(csv);
+
+        assertEquals(1, crimes.size());
+        CrimeRecord crime = crimes.get(0);
+        assertEquals("abc123", crime.getCrimeId());
+        assertEquals("2024-03", crime.getMonth());
+        assertEquals("Leeds 111B", crime.getLsoaName());
+        assertEquals("Burglary", crime.getCrimeType());
+        assertEquals("Under investigation", crime.getOutcomeCategory());
+        assertEquals(53.801, crime.getLatitude(), 0.0);
+        assertEquals(-1.549, crime.getLongitude(), 0.0);
+    }
+
+    @Test
+    public void mapsAppColumnsInAnyOrder() throws Exception {
+        String csv = "crimeType,latitude,longitude,crimeId,lsoaName,reportedBy,outcomeCategory\n" +
+                "Drugs,53.7,-1.6,CRIME9,Batley 008H,WYP,Offender given a caution\n";
+
+        List<CrimeRecord> crimes = parse(csv);
+
+        assertEquals("CRIME9", crimes.get(0).getCrimeId());
+        assertEquals("Drugs", crimes.get(0).getCrimeType());
+        assertEquals("Batley 008H", crimes.get(0).getLsoaName());
+        assertEquals(CrimeCsvParser.DEFAULT_MONTH, crimes.get(0).getMonth());
+    }
+
+    @Test
+    public void detectRewindsToTheHeader() throws Exception {
+        BufferedReader reader = new BufferedReader(new StringReader("\uFEFF" + POLICE_UK_HEADER));
+        CrimeCsvSchema.detect(reader);
+        assertEquals("\uFEFF" + POLICE_UK_HEADER.trim(), reader.readLine());
+    }
+
+    @Test
+    public void missingCrimeIdsGetStableDistinctKeys() throws Exception {
+        String row = ",2024-03,West Yorkshire Police,West Yorkshire Police,-1.5,53.8," +
+                "On or near Park,E01,Leeds 001A,Anti-social behaviour,,\n";
+        String csv = POLICE_UK_HEADER + row + row;
+
+        List<CrimeRecord> first = parse(csv);
+        List<CrimeRecord> second = parse(csv);
+
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).getCrimeId().startsWith("NOID-"));
+        assertNotEquals(first.get(0).getCrimeId(), first.get(1).getCrimeId());
+        assertEquals(first.get(0).getCrimeId(), second.get(0).getCrimeId());
+        assertEquals(first.get(1).getCrimeId(), second.get(1).getCrimeId());
+    }
+
+    @Test
+    public void syntheticKeyIgnoresOutcomeChanges() throws Exception {
+        String before = POLICE_UK_HEADER + ",2024-03,WYP,WYP,-1.5,53.8,On or near Park,E01,Leeds 001A," +
+                "Burglary,Under investigation,\n";
+        String after = POLICE_UK_HEADER + ",2024-03,WYP,WYP,-1.5,53.8,On or near Park,E01,Leeds 001A," +
+                "Burglary,Investigation complete; no suspect identified,\n";
+
+        CrimeRecord first = parse(before).get(0);
+        CrimeRecord second = parse(after).get(0);
+
+        assertEquals(first.getCrimeId(), second.getCrimeId());
+        assertNotEquals(first.getContentHash(), second.getContentHash());
+    }
+
+    @Test
+    public void pipelineAssignsSameSyntheticKeysAsSequentialParse() throws Exception {
+        StringBuilder csv = new StringBuilder(POLICE_UK_HEADER);
+        for (int i = 0; i < 2_000; i++) {
+            csv.append(",2024-03,WYP,WYP,-1.5,53.8,On or near Park,E01,Leeds ").append(i % 7)
+                    .append(",Anti-social behaviour,,\n");
+        }
+        CrimeCsvParser.Columns columns = CrimeCsvSchema.detect(new BufferedReader(new StringReader(csv.toString())));
+
+        List<String> sequential = new ArrayList<>();
+        CrimeCsvParser.parse(new StringReader(csv.toString()), columns, CrimeRecord::new, c -> sequential.add(c.getCrimeId()));
+        List<String> parallel = new ArrayList<>();
+        new CrimeImportPipeline(3, 256).run(new StringReader(csv.toString()), columns,
+                c -> parallel.add(c.getCrimeId()));
+
+        assertEquals(2_000, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsHeaderWithoutCrimeType() throws Exception {
+        CrimeCsvSchema.fromHeader(new String[]{"id", "name", "value"});
+    }
+
+    private static List<CrimeRecord> parse(String csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(csv));
+        CrimeCsvParser.Columns columns = CrimeCsvSchema.detect(reader);
+        List<CrimeRecord> crimes = new ArrayList<>();
+        CrimeCsvParser.parse(reader, columns, CrimeRecord::new, crimes::add);
+        return crimes;
+    }
+}
@@ -0,0 +1,108 @@
+package com.uni.crimes.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CsvTokenizer}
+ */
+public class CsvTokenizerTest {
+
+    @Test
+    public void splitsPlainRecords() throws IOException {
+        List<List<String>> records = readAll("a,b,c\n1,2,3\n");
+        assertEquals(2, records.size());
+        assertEquals(Arrays.asList("a", "b", "c"), records.get(0));
+        assertEquals(Arrays.asList("1", "2", "3"), records.get(1));
+    }
+
+    @Test
+    public void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<List<String>> records = readAll("id,\"Leeds, \"\"city\"\" centre\",\"two\nlines\"\r\nnext,x,y");
+        assertEquals(Arrays.asList("id", "Leeds, \"city\" centre", "two\nlines"), records.get(0));
+        assertEquals(Arrays.asList("next", "x", "y"), records.get(1));
+    }
+
+    @Test
+    public void handlesCrlfBareCrAndByteOrderMark() throws IOException {
+        List<List<String>> records = readAll("\uFEFFa,b\r\nc,d\re,f");
+        assertEquals(3, records.size());
+        assertEquals(Arrays.asList("a", "b"), records.get(0));
+        assertEquals(Arrays.asList("c", "d"), records.get(1));
+        assertEquals(Arrays.asList("e", "f"), records.get(2));
+    }
+
+    @Test
+    public void emptyFieldsAreKept() throws IOException {
+        assertEquals(Arrays.asList("", "x", ""), readAll(",x,\n").get(0));
+    }
+
+    @Test
+    public void recordsSpanBufferRefills() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            csv.append("CRIME").append(i).append(",\"Burglary, ").append(i).append("\",53.80").append(i % 10).append('\n');
+        }
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv.toString()), 7);
+        int count = 0;
+        while (tokenizer.nextRecord()) {
+            assertEquals("CRIME" + count, tokenizer.getString(0));
+            assertEquals("Burglary, " + count, tokenizer.getString(1));
+            assertEquals(Double.parseDouble("53.80" + (count % 10)), tokenizer.getDouble(2, 0.0), 0.0);
+            count++;
+        }
+        assertEquals(1000, count);
+    }
+
+    @Test
+    public void lineNumbersCountPhysicalLines() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("h\n\"a\nb\"\nc\n"));
+        tokenizer.nextRecord();
+        assertEquals(1, tokenizer.getLineNumber());
+        tokenizer.nextRecord();
+        assertEquals(2, tokenizer.getLineNumber());
+        tokenizer.nextRecord();
+        assertEquals(4, tokenizer.getLineNumber());
+    }
+
+    @Test
+    public void doublesMatchDoubleParseDouble() throws IOException {
+        String[] values = {"53.8008", "-1.5491", "0", "+2.5", " 53.7248 ", "-0.000001",
+                "53.80081234567891", "1e3", "12345678901234567890.5"};
+        for (String value : values) {
+            CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(value));
+            assertTrue(tokenizer.nextRecord());
+            assertEquals(value, Double.parseDouble(value.trim()), tokenizer.getDouble(0, Double.NaN), 0.0);
+        }
+    }
+
+    @Test
+    public void invalidOrBlankDoublesUseDefault() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("abc,,1.2.3"));
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(-7.0, tokenizer.getDouble(0, -7.0), 0.0);
+        assertEquals(-7.0, tokenizer.getDouble(1, -7.0), 0.0);
+        assertEquals(-7.0, tokenizer.getDouble(2, -7.0), 0.0);
+        assertEquals(-7.0, tokenizer.getDouble(5, -7.0), 0.0);
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        while (tokenizer.nextRecord()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                fields.add(tokenizer.getString(i));
+            }
+            records.add(fields);
+        }
+        return records;
+    }
+}
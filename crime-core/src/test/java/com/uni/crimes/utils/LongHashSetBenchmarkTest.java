@@ -0,0 +1,95 @@
+package com.uni.crimes.utils;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark and memory report for {@link LongHashSet} as the crime ID filter
+ * 1M police.uk-style IDs (64 hex chars): build time, 2M lookups (half hits, half
+ * misses) and footprint against a HashSet of the ID strings. Timings are printed only;
+ * the assertions cover correctness and the footprint bound
+ * Skipped unless run with -Pbenchmarks, which sets crimes.benchmarks; the regular
+ * unit test run stays fast
+ */
+public class LongHashSetBenchmarkTest {
+
+    private static final int IDS = 1_000_000;
+
+    @Before
+    public void onlyWhenRequested() {
+        Assume.assumeTrue("Benchmarks run with -Pbenchmarks", Boolean.getBoolean("crimes.benchmarks"));
+    }
+
+    @Test
+    public void millionIdsBuildLookupAndFootprint() {
+        String[] ids = new String[IDS];
+        String[] unknown = new String[IDS];
+        Random random = new Random(7);
+        for (int i = 0; i < IDS; i++) {
+            ids[i] = randomId(random);
+            unknown[i] = randomId(random);
+        }
+
+        long start = System.nanoTime();
+        LongHashSet set = new LongHashSet(IDS);
+        for (String id : ids) {
+            set.add(LongHashSet.hash(id));
+        }
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        int hits = 0;
+        int falsePositives = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (set.contains(LongHashSet.hash(ids[i]))) {
+                hits++;
+            }
+            if (set.contains(LongHashSet.hash(unknown[i]))) {
+                falsePositives++;
+            }
+        }
+        long lookupMs = (System.nanoTime() - start) / 1_000_000;
+
+        long before = usedHeap();
+        Set<String> strings = new HashSet<>();
+        for (int i = 0; i < IDS; i++) {
+            // Copies, so the set owns its strings as rows loaded from SQLite would
+            strings.add(new String(ids[i].toCharArray()));
+        }
+        long stringSetBytes = usedHeap() - before;
+
+        System.out.println(String.format(Locale.US,
+                "LongHashSet, %d IDs: build %d ms, %d lookups %d ms, %d KB; HashSet<String> ~%d KB",
+                IDS, buildMs, 2 * IDS, lookupMs, set.footprintBytes() / 1024, stringSetBytes / 1024));
+
+        assertEquals(IDS, hits);
+        assertEquals(0, falsePositives);
+        assertEquals(IDS, strings.size());
+        // 2^21 slots of 8 bytes, whatever the ID length
+        assertTrue(set.footprintBytes() <= 16L * 1024 * 1024);
+    }
+
+    private static String randomId(Random random) {
+        StringBuilder id = new StringBuilder(64);
+        for (int i = 0; i < 4; i++) {
+            id.append(String.format(Locale.US, "%016x", random.nextLong()));
+        }
+        return id.toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,58 @@
+package com.uni.crimes.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LongHashSet}
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void addedHashesAreFoundAcrossResizes() {
+        LongHashSet set = new LongHashSet(4);
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(set.add(LongHashSet.hash("CRIME" + i)));
+        }
+        assertEquals(200_000, set.size());
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(set.contains(LongHashSet.hash("CRIME" + i)));
+        }
+        int falsePositives = 0;
+        for (int i = 200_000; i < 400_000; i++) {
+            if (set.contains(LongHashSet.hash("CRIME" + i))) {
+                falsePositives++;
+            }
+        }
+        assertEquals(0, falsePositives);
+    }
+
+    @Test
+    public void duplicateAddIsRejected() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void zeroHashIsStorable() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0L));
+        set.add(0L);
+        assertTrue(set.contains(0L));
+    }
+
+    @Test
+    public void charRangeHashMatchesStringHash() {
+        char[] chars = "xxCRIME123yy".toCharArray();
+        assertEquals(LongHashSet.hash("CRIME123"), LongHashSet.hash(chars, 2, 8));
+    }
+
+    @Test
+    public void sizingLeavesHeadroom() {
+        LongHashSet set = new LongHashSet(1_000_000);
+        assertEquals(2_097_152L * Long.BYTES, set.footprintBytes());
+    }
+}
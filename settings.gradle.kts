@@ -33,3 +33,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "YorkShire_Crimes"
 include(":app")
+// Shared with the app's build script, so it is an included build rather than a module
+includeBuild("crime-core")